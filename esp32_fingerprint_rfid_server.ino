@@ -71,12 +71,14 @@ struct EnrollState {
   JsonDocument messages;
   int messagesCount = 0;
   uint8_t enrolledId = 0;
+  uint8_t requestedId = 0; // Slot asignado por el backend (0 = primer slot tras templateCount)
   
   void reset() {
     inProgress = false;
     messages.clear();
     messagesCount = 0;
     enrolledId = 0;
+    requestedId = 0;
   }
   
   void addMessage(const char* msg) {
@@ -89,6 +91,27 @@ EnrollState enrollState;
 // Variables para control de RFID
 unsigned long lastCardTime = 0;
 
+// Secuencia de accesos enviados al backend: los reintentos repiten el mismo valor para que
+// el backend devuelva la respuesta original. Arranca en un valor aleatorio para no repetir
+// secuencias de antes de un reinicio.
+uint32_t accessSequence = 0;
+const int BACKEND_MAX_ATTEMPTS = 3;
+const int BACKEND_RETRY_DELAY_MS = 500;
+
+// POST al backend con reintentos ante error de red o 5xx; el payload (y su secuencia) no cambia
+int postToBackend(HTTPClient& http, const String& payload) {
+  int httpCode = 0;
+  for (int attempt = 1; attempt <= BACKEND_MAX_ATTEMPTS; attempt++) {
+    httpCode = http.POST(payload);
+    if (httpCode > 0 && httpCode < 500) {
+      break;
+    }
+    Serial.printf("Backend sin respuesta (intento %d): %d\n", attempt, httpCode);
+    delay(BACKEND_RETRY_DELAY_MS * attempt);
+  }
+  return httpCode;
+}
+
 // ============================================
 // FUNCION AUXILIAR: ABRIR PUERTA
 // ============================================
@@ -109,6 +132,7 @@ void abrirPuerta() {
 // ============================================
 void setup() {
   Serial.begin(115200);
+  accessSequence = esp_random() & 0x7FFFFFFF;
   Serial.println("\n\n=== ESP32 Access Control Server + Servo ===");
 
   // ===== INICIALIZAR LEDs =====
@@ -135,6 +159,7 @@ void setup() {
   Serial.print("Sensor AS608... ");
   if (finger.verifyPassword()) {
     Serial.println("OK");
+    finger.getParameters(); // capacity, usada por /api/fingerprint/slots
     finger.getTemplateCount();
     Serial.printf("Templates: %d\n", finger.templateCount);
   } else {
@@ -191,6 +216,7 @@ void setup() {
   // Fingerprint
   server.on("/api/fingerprint/ping", HTTP_GET, handleFingerprintPing);
   server.on("/api/fingerprint/count", HTTP_GET, handleFingerprintCount);
+  server.on("/api/fingerprint/slots", HTTP_GET, handleFingerprintSlots);
   server.on("/api/fingerprint/enroll", HTTP_POST, handleFingerprintEnroll);
   server.on("/api/fingerprint/verify", HTTP_POST, handleFingerprintVerify);
   server.on("/api/fingerprint/empty", HTTP_DELETE, handleFingerprintEmpty);
@@ -246,12 +272,47 @@ void handleFingerprintCount() {
   server.send(200, "application/json", response);
 }
 
+// Slots ocupados en un rango (?from=1&to=32), para que el backend concilie sensor y BD
+void handleFingerprintSlots() {
+  int from = server.hasArg("from") ? server.arg("from").toInt() : 1;
+  int to = server.hasArg("to") ? server.arg("to").toInt() : finger.capacity;
+  Serial.printf("GET /api/fingerprint/slots %d-%d\n", from, to);
+  if (from < 1) from = 1;
+  if (to > finger.capacity) to = finger.capacity;
+  JsonDocument doc;
+  doc["capacity"] = finger.capacity;
+  doc["from"] = from;
+  doc["to"] = to;
+  JsonArray occupied = doc["occupied"].to<JsonArray>();
+  for (int id = from; id <= to; id++) {
+    if (finger.loadModel(id) == FINGERPRINT_OK) {
+      occupied.add(id);
+    }
+  }
+  String response;
+  serializeJson(doc, response);
+  server.send(200, "application/json", response);
+}
+
 void handleFingerprintEnroll() {
   Serial.println("POST /api/fingerprint/enroll");
   lcd.clear();
   lcd.setCursor(0, 0);
   lcd.print("Enrollando...");
   enrollState.reset();
+  // El backend asigna el slot (?id=N); no se sobrescribe una plantilla existente
+  if (server.hasArg("id")) {
+    int requested = server.arg("id").toInt();
+    if (requested < 1 || requested > finger.capacity) {
+      server.send(400, "application/json", "{\"status\":\"error\",\"error\":\"Invalid slot\"}");
+      return;
+    }
+    if (finger.loadModel(requested) == FINGERPRINT_OK) {
+      server.send(409, "application/json", "{\"status\":\"error\",\"error\":\"Slot occupied\"}");
+      return;
+    }
+    enrollState.requestedId = requested;
+  }
   enrollState.inProgress = true;
   bool success = performEnroll();
   JsonDocument doc;
@@ -493,10 +554,11 @@ void sendAccessToBackend(String cardUid) {
   doc["location"] = "Puerta Principal";
   doc["deviceId"] = "ESP32-001";
   doc["authenticationMethod"] = "RFID";
+  doc["sequence"] = ++accessSequence;
   String payload;
   serializeJson(doc, payload);
   Serial.printf("Enviando al backend: %s\n", payload.c_str());
-  int httpCode = http.POST(payload);
+  int httpCode = postToBackend(http, payload);
   
   if (httpCode > 0) {
     String response = http.getString();
@@ -645,8 +707,11 @@ bool performEnroll() {
     enrollState.addMessage("Unknown error");
     return false;
   }
-  finger.getTemplateCount();
-  uint8_t id = finger.templateCount + 1;
+  uint8_t id = enrollState.requestedId;
+  if (id == 0) {
+    finger.getTemplateCount();
+    id = finger.templateCount + 1;
+  }
   char idMsg[20];
   sprintf(idMsg, "ID %d", id);
   enrollState.addMessage(idMsg);
@@ -730,12 +795,13 @@ void sendFingerprintAccessToBackend(uint8_t fingerprintId, uint16_t confidence)
   doc["location"] = "Puerta Principal";
   doc["deviceId"] = "ESP32-001";
   doc["authenticationMethod"] = "FINGERPRINT";
+  doc["sequence"] = ++accessSequence;
   
   String payload;
   serializeJson(doc, payload);
   Serial.printf("Enviando huella al backend: %s\n", payload.c_str());
   
-  int httpCode = http.POST(payload);
+  int httpCode = postToBackend(http, payload);
   
   if (httpCode > 0) {
     String response = http.getString();
@@ -1,14 +1,27 @@
 package com.example.sensor.api;
 
+import com.example.sensor.cache.AccessTapTracker;
+import com.example.sensor.metrics.AccessMetrics;
 import com.example.sensor.model.dto.*;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.model.enums.ExportFormat;
+import com.example.sensor.pipeline.AccessEventBroadcaster;
+import com.example.sensor.pipeline.AccessRequestDeduplicator;
 import com.example.sensor.service.AccessControlService;
+import com.example.sensor.service.AccessLogExportService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,11 +33,16 @@ import java.util.List;
 public class AccessControlController {
 
     private final AccessControlService accessService;
+    private final AccessLogExportService exportService;
+    private final AccessEventBroadcaster eventBroadcaster;
+    private final AccessMetrics accessMetrics;
+    private final AccessRequestDeduplicator accessDeduplicator;
+    private final AccessTapTracker tapTracker;
 
     @PostMapping("/cards")
-    public ResponseEntity<RfidCardResponseDTO> registerCard() {
-        log.info("POST /access/cards - Iniciando escaneo de tarjeta RFID...");
-        return ResponseEntity.status(HttpStatus.CREATED).body(accessService.registerCardWithScan());
+    public ResponseEntity<RfidCardResponseDTO> registerCard(@RequestParam(required = false) String deviceId) {
+        log.info("POST /access/cards - Iniciando escaneo de tarjeta RFID en {}...", deviceId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(accessService.registerCardWithScan(deviceId));
     }
 
     @GetMapping("/cards")
@@ -32,6 +50,15 @@ public class AccessControlController {
         return ResponseEntity.ok(accessService.getAllCards());
     }
 
+    /**
+     * Tarjetas activas paginadas: ?page=0&size=50&sort=cardUid,asc
+     */
+    @GetMapping("/cards/page")
+    public ResponseEntity<PageResponseDTO<RfidCardResponseDTO>> getCardsPage(
+            @PageableDefault(size = 50, sort = "id") Pageable pageable) {
+        return ResponseEntity.ok(accessService.getCardsPage(pageable));
+    }
+
     @GetMapping("/cards/uid/{cardUid}")
     public ResponseEntity<RfidCardResponseDTO> getCardByUid(@PathVariable String cardUid) {
         return ResponseEntity.ok(accessService.getCardByUid(cardUid));
@@ -62,7 +89,35 @@ public class AccessControlController {
     public ResponseEntity<AccessRegisterResponseDTO> registerAccess(
             @Valid @RequestBody AccessRegisterRequestDTO requestDTO) {
         log.info("POST /access/register - UID: {}", requestDTO.getCardUid());
-        return ResponseEntity.ok(accessService.registerAccess(requestDTO));
+        // Un reintento del firmware con la misma secuencia, o la misma tarjeta leída de nuevo en la
+        // misma puerta, no vuelve a decidir
+        return ResponseEntity.ok(accessDeduplicator.execute(requestDTO.getDeviceId(), requestDTO.getSequence(),
+                () -> tapTracker.coalesce(AuthenticationMethod.RFID, requestDTO.getCardUid(),
+                        requestDTO.getDeviceId(), requestDTO.getLocation(),
+                        () -> accessMetrics.timeDecision(AuthenticationMethod.RFID,
+                                () -> accessService.registerAccess(requestDTO)))));
+    }
+
+    @PostMapping("/events/batch")
+    public ResponseEntity<AccessEventBatchResponseDTO> registerAccessBatch(
+            @Valid @RequestBody AccessEventBatchRequestDTO requestDTO) {
+        log.info("POST /access/events/batch - Dispositivo: {}, eventos: {}",
+                requestDTO.getDeviceId(), requestDTO.getEvents().size());
+        return ResponseEntity.ok(accessService.registerAccessBatch(requestDTO));
+    }
+
+    /**
+     * Decisiones de acceso en tiempo real (SSE). EventSource reenvía Last-Event-ID al reconectar
+     * y se reciben los eventos perdidos; un evento "reset" indica que hay que recargar por REST.
+     */
+    @GetMapping(value = "/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAccessEvents(
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String deviceId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        return eventBroadcaster.subscribe(location, deviceId,
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
     }
 
     @GetMapping("/logs")
@@ -77,6 +132,35 @@ public class AccessControlController {
         return ResponseEntity.ok(accessService.getAccessLogs(start, end));
     }
 
+    /**
+     * Descarga de accesos para nómina/auditoría (format=CSV o NDJSON).
+     * Se transmite fila por fila sin armar la lista completa en memoria.
+     */
+    @GetMapping("/logs/export")
+    public ResponseEntity<StreamingResponseBody> exportAccessLogs(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+
+        LocalDateTime from = start != null ? start : LocalDateTime.now().minusDays(7);
+        LocalDateTime to = end != null ? end : LocalDateTime.now();
+        log.info("GET /access/logs/export - {} entre {} y {}", format, from, to);
+
+        String filename = "access-logs_" + from.toLocalDate() + "_" + to.toLocalDate() + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> exportService.exportAccessLogs(from, to, format, out));
+    }
+
+    /**
+     * Consulta de accesos con filtros y paginación por cursor (nextCursor de la respuesta anterior)
+     */
+    @GetMapping("/logs/search")
+    public ResponseEntity<AccessLogPageDTO> searchAccessLogs(@Valid @ModelAttribute AccessLogFilterDTO filter) {
+        return ResponseEntity.ok(accessService.searchAccessLogs(filter));
+    }
+
     @GetMapping("/logs/today")
     public ResponseEntity<List<AccessLogResponseDTO>> getTodayAccesses() {
         return ResponseEntity.ok(accessService.getTodayAccesses());
@@ -0,0 +1,65 @@
+package com.example.sensor.api;
+
+import com.example.sensor.exceptions.InvalidDateRangeException;
+import com.example.sensor.model.dto.AttendanceDailyDTO;
+import com.example.sensor.model.dto.AttendanceSummaryDTO;
+import com.example.sensor.service.AttendanceRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/attendance")
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceController {
+
+    private final AttendanceRollupService rollupService;
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<AttendanceDailyDTO>> getDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String location) {
+        return ResponseEntity.ok(rollupService.getDay(date != null ? date : LocalDate.now(), location));
+    }
+
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<List<AttendanceDailyDTO>> getUserAttendance(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.withDayOfMonth(1);
+        return ResponseEntity.ok(rollupService.getUserAttendance(userId, start, end));
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<List<AttendanceSummaryDTO>> getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end;
+        return ResponseEntity.ok(rollupService.getSummary(start, end));
+    }
+
+    /**
+     * Recalcula el resumen de un rango de días desde access_logs (p. ej. tras corregir datos)
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("POST /attendance/rebuild - {} a {}", from, to);
+        if (to.isBefore(from)) {
+            throw new InvalidDateRangeException(from, to);
+        }
+        int rows = rollupService.rebuild(from, to);
+        return ResponseEntity.ok(Map.of("from", from, "to", to, "rows", rows));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.sensor.api;
+
+import com.example.sensor.device.DeviceCommandScheduler;
+import com.example.sensor.device.DeviceHealth;
+import com.example.sensor.device.DeviceHealthMonitor;
+import com.example.sensor.device.Esp32DeviceRegistry;
+import com.example.sensor.model.dto.DeviceResponseDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/devices")
+@RequiredArgsConstructor
+public class DeviceController {
+
+    private final Esp32DeviceRegistry deviceRegistry;
+    private final DeviceCommandScheduler commandScheduler;
+    private final DeviceHealthMonitor healthMonitor;
+
+    @GetMapping
+    public ResponseEntity<List<DeviceResponseDTO>> getDevices() {
+        String defaultId = deviceRegistry.getDefaultDeviceId();
+        return ResponseEntity.ok(deviceRegistry.getAll().stream()
+                .map(device -> {
+                    DeviceHealth health = healthMonitor.get(device.getId());
+                    return DeviceResponseDTO.builder()
+                            .id(device.getId())
+                            .baseUrl(device.getBaseUrl())
+                            .location(device.getLocation())
+                            .defaultDevice(device.getId().equals(defaultId))
+                            .status(health.getStatus().name())
+                            .circuit(health.getCircuit().name())
+                            .build();
+                })
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Estado del circuit breaker, presupuesto de reintentos y últimos resultados por dispositivo
+     */
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, Map<String, Object>>> getHealth() {
+        return ResponseEntity.ok(healthMonitor.getSnapshot());
+    }
+
+    /**
+     * Profundidad de cola y tiempos de espera de los comandos por dispositivo
+     */
+    @GetMapping("/queues")
+    public ResponseEntity<Map<String, Map<String, Object>>> getQueues() {
+        return ResponseEntity.ok(commandScheduler.getStats());
+    }
+}
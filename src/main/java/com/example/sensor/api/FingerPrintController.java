@@ -1,19 +1,38 @@
 package com.example.sensor.api;
 
+import com.example.sensor.cache.AccessTapTracker;
+import com.example.sensor.cache.SensorSlotAllocator;
+import com.example.sensor.jobs.EnrollJob;
+import com.example.sensor.jobs.EnrollJobRegistry;
+import com.example.sensor.metrics.AccessMetrics;
+import com.example.sensor.model.dto.EnrollJobDTO;
 import com.example.sensor.model.dto.EnrollProgressDTO;
 import com.example.sensor.model.dto.FingerPrintRequestDTO;
 import com.example.sensor.model.dto.FingerPrintResponseDTO;
 import com.example.sensor.model.dto.FingerPrintVerifyResponseDTO;
 import com.example.sensor.model.dto.FingerprintAccessRequestDTO;
+import com.example.sensor.model.dto.FingerprintReconciliationDTO;
+import com.example.sensor.model.dto.PageResponseDTO;
 import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.pipeline.AccessRequestDeduplicator;
 import com.example.sensor.service.FingerPrintService;
+import com.example.sensor.service.FingerprintReconciliationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/fingerprints")
@@ -21,6 +40,12 @@ import java.util.List;
 @Slf4j
 public class FingerPrintController {
     private final FingerPrintService fingerprintService;
+    private final EnrollJobRegistry enrollJobRegistry;
+    private final AccessMetrics accessMetrics;
+    private final FingerprintReconciliationService reconciliationService;
+    private final SensorSlotAllocator slotAllocator;
+    private final AccessRequestDeduplicator accessDeduplicator;
+    private final AccessTapTracker tapTracker;
 
     @GetMapping
     public ResponseEntity<List<FingerPrintResponseDTO>> getAllFingerprints() {
@@ -28,6 +53,15 @@ public class FingerPrintController {
         return ResponseEntity.ok(fingerprints);
     }
 
+    /**
+     * Huellas activas paginadas: ?page=0&size=50&sort=enrolledAt,desc
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageResponseDTO<FingerPrintResponseDTO>> getFingerprintsPage(
+            @PageableDefault(size = 50, sort = "fingerprintId") Pageable pageable) {
+        return ResponseEntity.ok(fingerprintService.findPage(pageable));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<FingerPrintResponseDTO> getFingerprintById(@PathVariable Integer id) {
         FingerPrintResponseDTO fingerprint = fingerprintService.findById(id);
@@ -51,17 +85,59 @@ public class FingerPrintController {
         }
     }
 
+    @PostMapping("/jobs")
+    public ResponseEntity<EnrollJobDTO> startEnrollJob(@RequestParam(required = false) String deviceId) {
+        log.info("POST /fingerprints/jobs - Creando trabajo de enroll en {}", deviceId);
+        EnrollJobDTO job = fingerprintService.startEnrollJob(deviceId);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/fingerprints/jobs/{id}")
+                        .buildAndExpand(job.getJobId())
+                        .toUri())
+                .body(job);
+    }
+
+    /**
+     * Estado del trabajo. Con waitMs > 0 actúa como long-poll: responde al terminar
+     * el trabajo o al vencer la espera, sin ocupar el hilo de la petición mientras tanto.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public DeferredResult<ResponseEntity<EnrollJobDTO>> getEnrollJob(
+            @PathVariable String jobId,
+            @RequestParam(required = false) Long waitMs) {
+        EnrollJob job = enrollJobRegistry.get(jobId);
+        long wait = enrollJobRegistry.clampWait(waitMs);
+
+        DeferredResult<ResponseEntity<EnrollJobDTO>> result = new DeferredResult<>();
+        if (job.isFinished() || wait == 0) {
+            result.setResult(ResponseEntity.ok(enrollJobRegistry.toDto(job)));
+            return result;
+        }
+        // copy(): el timeout de esta espera no debe completar el futuro compartido del trabajo
+        job.getDone().copy()
+                .completeOnTimeout(job, wait, TimeUnit.MILLISECONDS)
+                .thenAccept(finished -> result.setResult(ResponseEntity.ok(enrollJobRegistry.toDto(finished))));
+        return result;
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEnrollJob(@PathVariable String jobId) {
+        return enrollJobRegistry.subscribe(jobId);
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteFingerprint(@PathVariable Integer id) {
+    public ResponseEntity<Void> deleteFingerprint(@PathVariable Integer id,
+                                                  @RequestParam(required = false) String deviceId) {
         log.info("DELETE /api/fingerprints/{} - Eliminando huella", id);
-        fingerprintService.deleteFingerprint(id);
+        fingerprintService.deleteFingerprint(id, deviceId);
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/verify")
-    public ResponseEntity<FingerPrintVerifyResponseDTO> verifyFingerprint() {
-        log.info("POST /fingerprints/verify - Verificando huella");
-        FingerPrintVerifyResponseDTO result = fingerprintService.verifyFingerprint();
+    public ResponseEntity<FingerPrintVerifyResponseDTO> verifyFingerprint(
+            @RequestParam(required = false) String deviceId) {
+        log.info("POST /fingerprints/verify - Verificando huella en {}", deviceId);
+        FingerPrintVerifyResponseDTO result = fingerprintService.verifyFingerprint(deviceId);
         return ResponseEntity.ok(result);
     }
 
@@ -69,7 +145,13 @@ public class FingerPrintController {
     public ResponseEntity<AccessRegisterResponseDTO> registerFingerprintAccess(
             @RequestBody FingerprintAccessRequestDTO requestDTO) {
         log.info("POST /fingerprints/access - Fingerprint ID: {}", requestDTO.getFingerprintId());
-        AccessRegisterResponseDTO response = fingerprintService.registerFingerprintAccess(requestDTO);
+        // Un reintento del firmware con la misma secuencia, o la misma huella leída de nuevo en la
+        // misma puerta, no vuelve a decidir
+        AccessRegisterResponseDTO response = accessDeduplicator.execute(requestDTO.getDeviceId(),
+                requestDTO.getSequence(), () -> tapTracker.coalesce(AuthenticationMethod.FINGERPRINT,
+                        requestDTO.getFingerprintId(), requestDTO.getDeviceId(), requestDTO.getLocation(),
+                        () -> accessMetrics.timeDecision(AuthenticationMethod.FINGERPRINT,
+                                () -> fingerprintService.registerFingerprintAccess(requestDTO))));
         return ResponseEntity.ok(response);
     }
 
@@ -80,10 +162,32 @@ public class FingerPrintController {
         return ResponseEntity.ok(count);
     }
 
+    /**
+     * Diferencias entre los slots del sensor y la BD encontradas por la conciliación periódica
+     */
+    @GetMapping("/reconciliation")
+    public ResponseEntity<FingerprintReconciliationDTO> getReconciliation() {
+        return ResponseEntity.ok(reconciliationService.getStatus());
+    }
+
+    /**
+     * Ocupación de slots por sensor según el asignador (BD + última lectura del sensor)
+     */
+    @GetMapping("/slots")
+    public ResponseEntity<Map<String, Map<String, Object>>> getSlots() {
+        return ResponseEntity.ok(slotAllocator.getSnapshot());
+    }
+
+    @PostMapping("/reconciliation")
+    public ResponseEntity<FingerprintReconciliationDTO> reconcile(@RequestParam(required = false) Boolean repair) {
+        log.info("POST /fingerprints/reconciliation - Conciliación completa (repair={})", repair);
+        return ResponseEntity.ok(reconciliationService.reconcileAll(repair));
+    }
+
     @DeleteMapping("/empty")
-    public ResponseEntity<Void> emptyDatabase() {
-        log.info("DELETE /fingerprints/empty - Vaciando base de datos del sensor");
-        fingerprintService.emptyDatabase();
+    public ResponseEntity<Void> emptyDatabase(@RequestParam(required = false) String deviceId) {
+        log.info("DELETE /fingerprints/empty - Vaciando base de datos del sensor {}", deviceId);
+        fingerprintService.emptyDatabase(deviceId);
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
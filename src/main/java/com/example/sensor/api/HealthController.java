@@ -1,5 +1,10 @@
 package com.example.sensor.api;
 
+import com.example.sensor.config.VirtualThreadConfig;
+import com.example.sensor.diagnostics.PinnedThreadMonitor;
+import com.example.sensor.pipeline.AccessEventBroadcaster;
+import com.example.sensor.pipeline.AccessLogWriter;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -8,8 +13,14 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestController
+@RequiredArgsConstructor
 public class HealthController {
 
+    private final AccessLogWriter accessLogWriter;
+    private final PinnedThreadMonitor pinnedThreadMonitor;
+    private final AccessEventBroadcaster eventBroadcaster;
+    private final VirtualThreadConfig virtualThreadConfig;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
         Map<String, String> response = new HashMap<>();
@@ -18,6 +29,27 @@ public class HealthController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/health/access-log-writer")
+    public ResponseEntity<Map<String, Object>> accessLogWriter() {
+        return ResponseEntity.ok(accessLogWriter.getStats());
+    }
+
+    @GetMapping("/health/access-stream")
+    public ResponseEntity<Map<String, Object>> accessStream() {
+        return ResponseEntity.ok(eventBroadcaster.getStats());
+    }
+
+    @GetMapping("/health/threads")
+    public ResponseEntity<Map<String, Object>> threads() {
+        Map<String, Object> response = new HashMap<>();
+        // Modo resuelto al arrancar (propiedad + versión de la JVM), no el formato de Thread.toString()
+        response.put("virtual", virtualThreadConfig.isVirtualThreadsActive());
+        response.put("mode", virtualThreadConfig.getThreadingMode());
+        response.put("javaVersion", Runtime.version().feature());
+        response.put("pinnedSites", pinnedThreadMonitor.getPinnedSites());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/")
     public ResponseEntity<Map<String, String>> root() {
         Map<String, String> response = new HashMap<>();
@@ -2,16 +2,27 @@ package com.example.sensor.api;
 
 import com.example.sensor.model.dto.AssignFingerPrintDTO;
 import com.example.sensor.model.dto.AssignRfidCardDTO;
+import com.example.sensor.model.dto.PageResponseDTO;
+import com.example.sensor.model.dto.UserImportResultDTO;
 import com.example.sensor.model.dto.UserRequestDTO;
 import com.example.sensor.model.dto.UserResponseDTO;
+import com.example.sensor.model.dto.UserSearchResultDTO;
+import com.example.sensor.service.UserImportService;
 import com.example.sensor.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -21,6 +32,7 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
 
     @PostMapping
     public ResponseEntity<UserResponseDTO> createUser(@Valid @RequestBody UserRequestDTO requestDTO) {
@@ -29,11 +41,53 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Alta masiva desde CSV (multipart, campo "file"). Cabecera: nombres, apellidoPaterno,
+     * apellidoMaterno, fechaNacimiento, tipoDocumento, numeroDocumento, cargo, areaDepartamento,
+     * cardUid, fingerprintId; separador ',' o ';'
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UserImportResultDTO> importUsers(@RequestParam("file") MultipartFile file)
+            throws IOException {
+        log.info("POST /users/import - Importando {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+        try (InputStream csv = file.getInputStream()) {
+            return ResponseEntity.ok(userImportService.importUsers(csv));
+        }
+    }
+
+    /**
+     * Misma importación con el CSV como cuerpo (Content-Type: text/csv), leído sin archivo temporal
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<UserImportResultDTO> importUsersCsv(HttpServletRequest request) throws IOException {
+        log.info("POST /users/import - Importando CSV ({} bytes)", request.getContentLengthLong());
+        return ResponseEntity.ok(userImportService.importUsers(request.getInputStream()));
+    }
+
     @GetMapping
     public ResponseEntity<List<UserResponseDTO>> getAllUsers() { 
         return ResponseEntity.ok(userService.getAllUsers());
     }
 
+    /**
+     * Usuarios activos paginados: ?page=0&size=50&sort=apellidoPaterno,asc
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageResponseDTO<UserResponseDTO>> getUsersPage(
+            @PageableDefault(size = 50, sort = "id") Pageable pageable) {
+        return ResponseEntity.ok(userService.getUsersPage(pageable));
+    }
+
+    /**
+     * Búsqueda mientras se escribe: ?q=gonzales 4567&limit=20 (máximo 100 resultados)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<UserSearchResultDTO>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.searchUsers(q, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserResponseDTO> getUserById(@PathVariable Integer id) { 
         return ResponseEntity.ok(userService.getUserById(id));
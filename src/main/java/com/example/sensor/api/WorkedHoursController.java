@@ -0,0 +1,71 @@
+package com.example.sensor.api;
+
+import com.example.sensor.exceptions.InvalidDateRangeException;
+import com.example.sensor.model.dto.WorkedHoursDTO;
+import com.example.sensor.model.dto.WorkedHoursDailyDTO;
+import com.example.sensor.service.WorkedHoursService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/worked-hours")
+@RequiredArgsConstructor
+@Slf4j
+public class WorkedHoursController {
+
+    private final WorkedHoursService workedHoursService;
+
+    /**
+     * Horas por usuario calculadas en vivo (por defecto, el mes en curso)
+     */
+    @GetMapping
+    public ResponseEntity<List<WorkedHoursDTO>> calculate(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.withDayOfMonth(1);
+        return ResponseEntity.ok(workedHoursService.calculate(start, end));
+    }
+
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<WorkedHoursDTO> calculateForUser(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.withDayOfMonth(1);
+        return ResponseEntity.ok(workedHoursService.calculateForUser(userId, start, end));
+    }
+
+    /**
+     * Horas por día ya calculadas en segundo plano
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<List<WorkedHoursDailyDTO>> getDaily(
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.withDayOfMonth(1);
+        return ResponseEntity.ok(workedHoursService.getDaily(userId, start, end));
+    }
+
+    @PostMapping("/recompute")
+    public ResponseEntity<Map<String, Object>> recompute(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("POST /worked-hours/recompute - {} a {}", from, to);
+        if (to.isBefore(from)) {
+            throw new InvalidDateRangeException(from, to);
+        }
+        int rows = workedHoursService.recomputeDays(from, to);
+        return ResponseEntity.ok(Map.of("from", from, "to", to, "rows", rows));
+    }
+}
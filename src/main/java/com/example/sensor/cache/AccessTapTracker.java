@@ -0,0 +1,226 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.config.AccessTapConfig;
+import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Últimas marcaciones por credencial, en memoria y con vencimiento.
+ *
+ * <p>Coalescencia: una tarjeta apoyada en el lector o un dedo presionado dos veces genera
+ * varias lecturas seguidas. Mientras la misma credencial se lea en la misma puerta sin una
+ * pausa de access.taps.coalesce-seconds, cada lectura recibe la decisión de la primera sin
+ * alternar ENTRADA/SALIDA, sin escribir en access_logs y sin abrir una transacción.
+ *
+ * <p>Anti-passback: se recuerda el sentido de la última marcación aceptada de cada credencial
+ * durante access.taps.anti-passback-hours. Tras un reinicio o vencida la entrada no hay
+ * historial y la marcación se acepta.
+ *
+ * <p>Las credenciales se guardan en orden de última actividad: se vencen desde la más antigua
+ * y, si se supera access.taps.max-entries, se descartan las más antiguas.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AccessTapTracker {
+
+    private final AccessTapConfig config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, CredentialTaps> taps = new LinkedHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder passbackRejected = new LongAdder();
+
+    private static final class CredentialTaps {
+        String door;
+        long tapNanos;
+        CompletableFuture<AccessRegisterResponseDTO> response;
+        AccessType direction;
+        long directionNanos;
+        long touchedNanos;
+    }
+
+    /**
+     * Decide el acceso, salvo que la credencial se haya leído en la misma puerta dentro de la
+     * ventana: en ese caso devuelve la decisión anterior (esperándola si sigue en curso)
+     */
+    public AccessRegisterResponseDTO coalesce(AuthenticationMethod method, Object credential,
+                                              String deviceId, String location,
+                                              Supplier<AccessRegisterResponseDTO> decision) {
+        if (config.getCoalesceSeconds() <= 0 || credential == null) {
+            return decision.get();
+        }
+        String key = key(method, credential);
+        String door = door(deviceId, location);
+        CompletableFuture<AccessRegisterResponseDTO> response = new CompletableFuture<>();
+        CompletableFuture<AccessRegisterResponseDTO> previous = null;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            CredentialTaps state = touch(key, now);
+            if (state.response != null && door.equals(state.door)
+                    && now - state.tapNanos < TimeUnit.SECONDS.toNanos(config.getCoalesceSeconds())) {
+                // Ventana deslizante: una tarjeta apoyada en el lector no vuelve a decidir
+                previous = state.response;
+            } else {
+                state.door = door;
+                state.response = response;
+            }
+            state.tapNanos = now;
+        } finally {
+            lock.unlock();
+        }
+
+        if (previous != null) {
+            coalesced.increment();
+            log.debug("Lectura repetida de {} en {}: se devuelve la decisión anterior", key, door);
+            try {
+                return previous.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            AccessRegisterResponseDTO result = decision.get();
+            response.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // Sin decisión no hay nada que repetir: la próxima lectura decide de nuevo
+            clearTap(key, response);
+            response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Sentido fijo de la puerta, o null si alterna ENTRADA/SALIDA por credencial
+     */
+    public AccessType doorDirection(String deviceId, String location) {
+        AccessType direction = deviceId != null ? config.getDoorDirections().get(deviceId) : null;
+        if (direction == null && location != null) {
+            direction = config.getDoorDirections().get(location);
+        }
+        return direction;
+    }
+
+    /**
+     * true si el anti-passback estricto rechaza esta marcación: ENTRADA tras otra ENTRADA sin SALIDA
+     */
+    public boolean isPassback(AuthenticationMethod method, Object credential, AccessType direction) {
+        if (!config.isAntiPassback() || direction != AccessType.ENTRADA) {
+            return false;
+        }
+        lock.lock();
+        try {
+            CredentialTaps state = taps.get(key(method, credential));
+            boolean passback = state != null && state.direction == AccessType.ENTRADA
+                    && System.nanoTime() - state.directionNanos < TimeUnit.HOURS.toNanos(config.getAntiPassbackHours());
+            if (passback) {
+                passbackRejected.increment();
+            }
+            return passback;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sentido de la marcación aceptada; se recuerda cuando la transacción confirma
+     */
+    public void recordDirection(AuthenticationMethod method, Object credential, AccessType direction) {
+        if (!config.isAntiPassback()) {
+            return;
+        }
+        String key = key(method, credential);
+        TransactionUtils.afterCommit(() -> {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                CredentialTaps state = touch(key, now);
+                state.direction = direction;
+                state.directionNanos = now;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public int getSize() {
+        lock.lock();
+        try {
+            return taps.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getPassbackRejectedCount() {
+        return passbackRejected.sum();
+    }
+
+    private void clearTap(String key, CompletableFuture<AccessRegisterResponseDTO> response) {
+        lock.lock();
+        try {
+            CredentialTaps state = taps.get(key);
+            if (state != null && state.response == response) {
+                state.response = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Entrada de la credencial movida al final del orden de actividad; vence las más antiguas
+     */
+    private CredentialTaps touch(String key, long now) {
+        CredentialTaps state = taps.remove(key);
+        if (state == null) {
+            state = new CredentialTaps();
+        }
+        state.touchedNanos = now;
+        taps.put(key, state);
+
+        long horizonNanos = config.isAntiPassback()
+                ? TimeUnit.HOURS.toNanos(config.getAntiPassbackHours())
+                : TimeUnit.SECONDS.toNanos(config.getCoalesceSeconds());
+        Iterator<CredentialTaps> iterator = taps.values().iterator();
+        while (iterator.hasNext()) {
+            CredentialTaps oldest = iterator.next();
+            if (oldest == state || (taps.size() <= config.getMaxEntries() && now - oldest.touchedNanos < horizonNanos)) {
+                break;
+            }
+            iterator.remove();
+        }
+        return state;
+    }
+
+    private static String key(AuthenticationMethod method, Object credential) {
+        return method.name() + ":" + credential;
+    }
+
+    private static String door(String deviceId, String location) {
+        if (deviceId != null && !deviceId.isBlank()) {
+            return deviceId;
+        }
+        return location != null ? location : "";
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.entity.User;
+import lombok.Getter;
+
+/**
+ * Snapshot inmutable de una tarjeta RFID y su usuario, usado por
+ * {@link CredentialIndex} para decidir accesos sin consultar la BD.
+ */
+@Getter
+public class CardCredential {
+    private final Integer cardId;
+    private final String cardUid;
+    private final boolean active;
+    private final boolean authorized;
+    private final Integer userId;
+    private final String personName;
+    private final String cargo;
+
+    public CardCredential(Integer cardId, String cardUid, Boolean active, Boolean authorized,
+                          Integer userId, String nombres, String apellidoPaterno, String cargo) {
+        this.cardId = cardId;
+        this.cardUid = cardUid;
+        this.active = Boolean.TRUE.equals(active);
+        this.authorized = Boolean.TRUE.equals(authorized);
+        this.userId = userId;
+        this.personName = userId != null ? nombres + " " + apellidoPaterno : null;
+        this.cargo = cargo;
+    }
+
+    public static CardCredential from(RfidCard card) {
+        User user = card.getUser();
+        return new CardCredential(card.getId(), card.getCardUid(), card.getActive(), card.getAuthorized(),
+                user != null ? user.getId() : null,
+                user != null ? user.getNombres() : null,
+                user != null ? user.getApellidoPaterno() : null,
+                user != null ? user.getCargo() : null);
+    }
+
+    public boolean hasUser() {
+        return userId != null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.repository.RfidCardRepository;
+import com.example.sensor.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice residente en memoria de credenciales (UID de tarjeta y slot del sensor).
+ * Permite que registerAccess/registerFingerprintAccess decidan sin ir a PostgreSQL.
+ * Se carga al arrancar y se actualiza después de cada commit que modifica
+ * tarjetas, huellas o usuarios.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CredentialIndex {
+
+    private final RfidCardRepository cardRepository;
+    private final FingerPrintRepository fingerPrintRepository;
+
+    private final Map<String, CardCredential> cardsByUid = new ConcurrentHashMap<>();
+    private final Map<Integer, FingerprintCredential> fingerprintsBySlot = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        cardsByUid.clear();
+        fingerprintsBySlot.clear();
+        cardRepository.findAllCredentials()
+                .forEach(card -> cardsByUid.put(card.getCardUid(), card));
+        fingerPrintRepository.findAllCredentials()
+                .forEach(fp -> fingerprintsBySlot.put(fp.getFingerprintId(), fp));
+        log.info("Índice de credenciales cargado: {} tarjetas, {} huellas",
+                cardsByUid.size(), fingerprintsBySlot.size());
+    }
+
+    /**
+     * Tarjeta activa por UID, o vacío si no existe o está deshabilitada
+     */
+    public Optional<CardCredential> findActiveCard(String cardUid) {
+        if (cardUid == null) {
+            return Optional.empty();
+        }
+        CardCredential card = cardsByUid.get(cardUid);
+        return card != null && card.isActive() ? Optional.of(card) : Optional.empty();
+    }
+
+    /**
+     * Huella activa por slot del sensor, o vacío si no existe o está desactivada
+     */
+    public Optional<FingerprintCredential> findActiveFingerprint(Integer fingerprintId) {
+        if (fingerprintId == null) {
+            return Optional.empty();
+        }
+        FingerprintCredential fingerprint = fingerprintsBySlot.get(fingerprintId);
+        return fingerprint != null && fingerprint.isActive() ? Optional.of(fingerprint) : Optional.empty();
+    }
+
+    public void refreshCard(RfidCard card) {
+        CardCredential snapshot = CardCredential.from(card);
+        TransactionUtils.afterCommit(() -> cardsByUid.put(snapshot.getCardUid(), snapshot));
+    }
+
+    /**
+     * Tarjetas ya proyectadas desde la BD (importación masiva), publicadas al confirmar
+     */
+    public void refreshCards(Collection<CardCredential> cards) {
+        List<CardCredential> snapshots = List.copyOf(cards);
+        TransactionUtils.afterCommit(() -> snapshots.forEach(card -> cardsByUid.put(card.getCardUid(), card)));
+    }
+
+    public void removeCard(String cardUid) {
+        TransactionUtils.afterCommit(() -> cardsByUid.remove(cardUid));
+    }
+
+    public void refreshFingerprint(FingerPrint fingerPrint) {
+        FingerprintCredential snapshot = FingerprintCredential.from(fingerPrint);
+        TransactionUtils.afterCommit(() -> fingerprintsBySlot.put(snapshot.getFingerprintId(), snapshot));
+    }
+
+    public void refreshFingerprints(Collection<FingerprintCredential> fingerprints) {
+        List<FingerprintCredential> snapshots = List.copyOf(fingerprints);
+        TransactionUtils.afterCommit(() -> snapshots.forEach(fp -> fingerprintsBySlot.put(fp.getFingerprintId(), fp)));
+    }
+
+    public void clearFingerprints() {
+        TransactionUtils.afterCommit(fingerprintsBySlot::clear);
+    }
+}
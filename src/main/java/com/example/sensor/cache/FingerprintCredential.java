@@ -0,0 +1,40 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.entity.User;
+import lombok.Getter;
+
+/**
+ * Snapshot inmutable de un slot del sensor y su usuario, usado por
+ * {@link CredentialIndex} para decidir accesos sin consultar la BD.
+ */
+@Getter
+public class FingerprintCredential {
+    private final Integer fingerprintId;
+    private final boolean active;
+    private final Integer userId;
+    private final String personName;
+    private final String cargo;
+
+    public FingerprintCredential(Integer fingerprintId, Boolean active,
+                                 Integer userId, String nombres, String apellidoPaterno, String cargo) {
+        this.fingerprintId = fingerprintId;
+        this.active = Boolean.TRUE.equals(active);
+        this.userId = userId;
+        this.personName = userId != null ? nombres + " " + apellidoPaterno : null;
+        this.cargo = cargo;
+    }
+
+    public static FingerprintCredential from(FingerPrint fingerPrint) {
+        User user = fingerPrint.getUser();
+        return new FingerprintCredential(fingerPrint.getFingerprintId(), fingerPrint.getActive(),
+                user != null ? user.getId() : null,
+                user != null ? user.getNombres() : null,
+                user != null ? user.getApellidoPaterno() : null,
+                user != null ? user.getCargo() : null);
+    }
+
+    public boolean hasUser() {
+        return userId != null;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.config.FingerprintReconciliationConfig;
+import com.example.sensor.device.Esp32DeviceRegistry;
+import com.example.sensor.exceptions.FingerPrintException;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asignación de slots del sensor a cargo del backend, con un BitSet por estado.
+ * Un slot está libre si ninguna huella activa de la BD lo usa, el sensor del dispositivo no
+ * tiene plantilla en él y ningún enroll en curso lo reservó. El estado se arma desde la BD al
+ * arrancar y se corrige con cada lectura de slots de la conciliación; hasta la primera lectura
+ * se asume que el sensor tiene exactamente las huellas activas de la BD.
+ *
+ * El slot es la clave de fingerprints y access_logs lo referencia, así que enrolar otra persona en
+ * el slot de una huella borrada le pasaría todo su historial (búsquedas, exportes, horas y
+ * asistencia). Por eso los slots con registros en access_logs no se reutilizan nunca: se prefieren
+ * slots que nunca tuvieron fila en fingerprints, luego huecos sin historial, y si no queda ninguno
+ * el sensor se informa lleno. Marcar un slot como usado es inmediato; liberarlo por cambios en la
+ * BD espera al commit.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SensorSlotAllocator {
+
+    private final FingerPrintRepository fingerPrintRepository;
+    private final Esp32DeviceRegistry deviceRegistry;
+    private final FingerprintReconciliationConfig config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BitSet activeInDatabase = new BitSet();
+    private final BitSet knownInDatabase = new BitSet();
+    private final BitSet withHistory = new BitSet();
+    private final BitSet reserved = new BitSet();
+    private final Map<String, SensorSlots> sensors = new HashMap<>();
+
+    private static class SensorSlots {
+        final BitSet occupied;
+        int capacity;
+
+        SensorSlots(BitSet occupied, int capacity) {
+            this.occupied = occupied;
+            this.capacity = capacity;
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.lock();
+        try {
+            activeInDatabase.clear();
+            knownInDatabase.clear();
+            withHistory.clear();
+            sensors.clear();
+            fingerPrintRepository.findAllCredentials().forEach(fp -> {
+                knownInDatabase.set(fp.getFingerprintId());
+                if (fp.isActive()) {
+                    activeInDatabase.set(fp.getFingerprintId());
+                }
+            });
+            fingerPrintRepository.findInactiveIdsWithAccessHistory().forEach(withHistory::set);
+            log.info("Slots del sensor cargados: {} huellas activas, {} slots usados alguna vez, {} con historial",
+                    activeInDatabase.cardinality(), knownInDatabase.cardinality(), withHistory.cardinality());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserva el próximo slot libre del sensor para un enroll; se confirma con confirm o se devuelve con release
+     */
+    public int reserve(String deviceId) {
+        lock.lock();
+        try {
+            SensorSlots sensor = sensor(deviceId);
+            BitSet taken = (BitSet) activeInDatabase.clone();
+            taken.or(sensor.occupied);
+            taken.or(reserved);
+            BitSet neverUsed = (BitSet) taken.clone();
+            neverUsed.or(knownInDatabase);
+
+            int slot = neverUsed.nextClearBit(1);
+            if (slot > sensor.capacity) {
+                BitSet reusable = (BitSet) taken.clone();
+                reusable.or(withHistory);
+                slot = reusable.nextClearBit(1);
+            }
+            if (slot > sensor.capacity) {
+                throw new FingerPrintException("Sensor lleno: " + sensor.capacity
+                        + " slots ocupados o retirados por tener historial de accesos");
+            }
+            reserved.set(slot);
+            return slot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * El enroll guardó la plantilla en el slot reservado y la huella en la BD
+     */
+    public void confirm(String deviceId, int slot) {
+        lock.lock();
+        try {
+            reserved.clear(slot);
+            activeInDatabase.set(slot);
+            knownInDatabase.set(slot);
+            sensor(deviceId).occupied.set(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * El enroll terminó sin guardar nada en el slot reservado
+     */
+    public void release(int slot) {
+        lock.lock();
+        try {
+            reserved.clear(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * El sensor rechazó el slot porque ya tenía una plantilla que el backend no conocía
+     */
+    public void markOccupied(String deviceId, int slot) {
+        lock.lock();
+        try {
+            reserved.clear(slot);
+            sensor(deviceId).occupied.set(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void removedFromSensor(String deviceId, int slot) {
+        lock.lock();
+        try {
+            sensor(deviceId).occupied.clear(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sensorEmptied(String deviceId) {
+        lock.lock();
+        try {
+            sensor(deviceId).occupied.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * La huella del slot quedó inactiva. Se da por hecho que tiene historial: sus últimos accesos
+     * pueden seguir en la cola de AccessLogWriter, y load() lo corrige al arrancar
+     */
+    public void deactivated(int slot) {
+        TransactionUtils.afterCommit(() -> {
+            lock.lock();
+            try {
+                activeInDatabase.clear(slot);
+                withHistory.set(slot);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public void databaseEmptied() {
+        TransactionUtils.afterCommit(() -> {
+            lock.lock();
+            try {
+                // deleteAll solo confirma si ningún access_log referenciaba las huellas (FK)
+                activeInDatabase.clear();
+                knownInDatabase.clear();
+                withHistory.clear();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Estado real de un rango de slots leído del sensor (conciliación)
+     */
+    public void updateFromSensor(String deviceId, int from, int to, Collection<Integer> occupied, Integer capacity) {
+        lock.lock();
+        try {
+            SensorSlots sensor = sensor(deviceId);
+            if (capacity != null && capacity > 0) {
+                sensor.capacity = capacity;
+            }
+            sensor.occupied.clear(from, to + 1);
+            occupied.forEach(sensor.occupied::set);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isReserved(int slot) {
+        lock.lock();
+        try {
+            return reserved.get(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Map<String, Object>> getSnapshot() {
+        lock.lock();
+        try {
+            Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+            deviceRegistry.getAll().forEach(device -> {
+                SensorSlots sensor = sensor(device.getId());
+                BitSet taken = (BitSet) activeInDatabase.clone();
+                taken.or(sensor.occupied);
+                taken.or(reserved);
+                int used = taken.get(1, sensor.capacity + 1).cardinality();
+                BitSet retired = withHistory.get(0, sensor.capacity + 1);
+                retired.andNot(taken);
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("capacity", sensor.capacity);
+                stats.put("used", used);
+                stats.put("retired", retired.cardinality());
+                stats.put("free", sensor.capacity - used - retired.cardinality());
+                stats.put("reserved", reserved.cardinality());
+                snapshot.put(device.getId(), stats);
+            });
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SensorSlots sensor(String deviceId) {
+        String id = deviceRegistry.get(deviceId).getId();
+        return sensors.computeIfAbsent(id,
+                key -> new SensorSlots((BitSet) activeInDatabase.clone(), config.getDefaultCapacity()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.model.entity.User;
+import lombok.Getter;
+
+/**
+ * Snapshot inmutable de los campos buscables de un usuario activo, usado por
+ * {@link UserSearchIndex} para responder búsquedas sin consultar la BD.
+ */
+@Getter
+public class UserSearchEntry {
+    private final Integer id;
+    private final String nombres;
+    private final String apellidoPaterno;
+    private final String apellidoMaterno;
+    private final String tipoDocumento;
+    private final String numeroDocumento;
+    private final String cargo;
+    private final String areaDepartamento;
+
+    public UserSearchEntry(Integer id, String nombres, String apellidoPaterno, String apellidoMaterno,
+                           String tipoDocumento, String numeroDocumento, String cargo, String areaDepartamento) {
+        this.id = id;
+        this.nombres = nombres;
+        this.apellidoPaterno = apellidoPaterno;
+        this.apellidoMaterno = apellidoMaterno;
+        this.tipoDocumento = tipoDocumento;
+        this.numeroDocumento = numeroDocumento;
+        this.cargo = cargo;
+        this.areaDepartamento = areaDepartamento;
+    }
+
+    public static UserSearchEntry from(User user) {
+        return new UserSearchEntry(user.getId(), user.getNombres(), user.getApellidoPaterno(),
+                user.getApellidoMaterno(), user.getTipoDocumento(), user.getNumeroDocumento(),
+                user.getCargo(), user.getAreaDepartamento());
+    }
+
+    public String getFullName() {
+        return nombres + " " + apellidoPaterno + (apellidoMaterno != null ? " " + apellidoMaterno : "");
+    }
+
+    /**
+     * Textos indexados, en el orden en que se tokenizan
+     */
+    String[] searchableFields() {
+        return new String[]{nombres, apellidoPaterno, apellidoMaterno, numeroDocumento, cargo, areaDepartamento};
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.model.entity.User;
+import com.example.sensor.repository.UserRepository;
+import com.example.sensor.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria para buscar usuarios activos por nombres, apellidos, documento, cargo y área.
+ *
+ * <p>Los textos se normalizan (minúsculas, sin tildes) y se parten en palabras. Cada palabra de la
+ * consulta debe coincidir con alguna palabra del usuario, como palabra exacta, como prefijo
+ * (para buscar mientras se escribe) o, desde MIN_FUZZY_LENGTH letras, con un error de tipeo
+ * (una letra de más, de menos, cambiada o dos letras invertidas). Los errores se resuelven con
+ * un índice de variantes con una letra borrada, así no se recorre todo el vocabulario.
+ *
+ * <p>Se carga al arrancar y se actualiza después de cada commit que crea, modifica o da de baja
+ * un usuario. Las búsquedas solo leen y corren en paralelo bajo el lock de lectura; las
+ * actualizaciones toman el de escritura.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UserSearchIndex {
+
+    public static final int MAX_RESULTS = 100;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int FUZZY = 1;
+    // Usuarios indexados por cada toma del lock de escritura en una importación masiva
+    private static final int REFRESH_CHUNK = 500;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(hit -> hit.entry().getApellidoPaterno(), Comparator.nullsLast(String::compareTo))
+            .thenComparing(hit -> hit.entry().getNombres(), Comparator.nullsLast(String::compareTo))
+            .thenComparing(hit -> hit.entry().getId());
+
+    private final UserRepository userRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Indexed> users = new HashMap<>();
+    // palabra -> usuarios que la contienen
+    private final NavigableMap<String, Set<Integer>> postings = new TreeMap<>();
+    // palabra o palabra con una letra borrada -> palabras del vocabulario que la generan
+    private final Map<String, Set<String>> variants = new HashMap<>();
+
+    private record Indexed(UserSearchEntry entry, Set<String> tokens) {
+    }
+
+    public record Hit(UserSearchEntry entry, int score) {
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            users.clear();
+            postings.clear();
+            variants.clear();
+            userRepository.findAllSearchEntries().forEach(this::add);
+            log.info("Índice de búsqueda de usuarios cargado: {} usuarios, {} palabras",
+                    users.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Usuarios que coinciden con todas las palabras de la consulta, de mejor a peor coincidencia
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> scores = null;
+            for (String term : terms) {
+                Map<Integer, Integer> termScores = match(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            // Top-k con un heap acotado de (puntaje, id) en un long: un prefijo corto puede coincidir con
+            // miles de usuarios y compararlos por nombre costaría más que toda la búsqueda. Solo los k
+            // elegidos se ordenan por apellido y nombre.
+            int k = Math.min(Math.max(limit, 1), MAX_RESULTS);
+            PriorityQueue<Long> top = new PriorityQueue<>(k + 1);
+            scores.forEach((id, score) -> {
+                long rank = ((long) score << 32) | (Integer.MAX_VALUE - id);
+                if (top.size() < k) {
+                    top.add(rank);
+                } else if (rank > top.peek()) {
+                    top.poll();
+                    top.add(rank);
+                }
+            });
+            List<Hit> hits = new ArrayList<>(top.size());
+            for (long rank : top) {
+                hits.add(new Hit(users.get(Integer.MAX_VALUE - (int) rank).entry(), (int) (rank >>> 32)));
+            }
+            hits.sort(RANKING);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a indexar el usuario (o lo quita si quedó inactivo) cuando la transacción confirma
+     */
+    public void refresh(User user) {
+        Integer id = user.getId();
+        UserSearchEntry snapshot = Boolean.TRUE.equals(user.getActive()) ? UserSearchEntry.from(user) : null;
+        TransactionUtils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(id);
+                if (snapshot != null) {
+                    add(snapshot);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Usuarios activos ya proyectados desde la BD (importación masiva): se indexan al confirmar,
+     * de a REFRESH_CHUNK por toma del lock de escritura para que las búsquedas no esperen a todo el lote
+     */
+    public void refreshEntries(Collection<UserSearchEntry> entries) {
+        List<UserSearchEntry> snapshots = List.copyOf(entries);
+        TransactionUtils.afterCommit(() -> {
+            for (int from = 0; from < snapshots.size(); from += REFRESH_CHUNK) {
+                int to = Math.min(from + REFRESH_CHUNK, snapshots.size());
+                List<UserSearchEntry> chunk = snapshots.subList(from, to);
+                lock.writeLock().lock();
+                try {
+                    for (UserSearchEntry entry : chunk) {
+                        remove(entry.getId());
+                        add(entry);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return users.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Integer> match(String term) {
+        Map<Integer, Integer> hits = new HashMap<>();
+        postings.subMap(term, true, term + Character.MAX_VALUE, false).forEach((token, ids) -> {
+            int score = token.equals(term) ? EXACT : PREFIX;
+            ids.forEach(id -> hits.merge(id, score, Math::max));
+        });
+        if (term.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> candidates = new HashSet<>();
+            for (String variant : variantsOf(term)) {
+                candidates.addAll(variants.getOrDefault(variant, Set.of()));
+            }
+            for (String candidate : candidates) {
+                if (!candidate.equals(term) && withinOneEdit(term, candidate)) {
+                    postings.get(candidate).forEach(id -> hits.merge(id, FUZZY, Math::max));
+                }
+            }
+        }
+        return hits;
+    }
+
+    private void add(UserSearchEntry entry) {
+        Set<String> tokens = new HashSet<>();
+        for (String field : entry.searchableFields()) {
+            tokens.addAll(tokenize(field));
+        }
+        users.put(entry.getId(), new Indexed(entry, tokens));
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, key -> {
+                variantsOf(key).forEach(variant -> variants.computeIfAbsent(variant, v -> new HashSet<>()).add(key));
+                return new HashSet<>();
+            }).add(entry.getId());
+        }
+    }
+
+    private void remove(Integer id) {
+        Indexed indexed = users.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        for (String token : indexed.tokens()) {
+            Set<Integer> ids = postings.get(token);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+                for (String variant : variantsOf(token)) {
+                    Set<String> tokens = variants.get(variant);
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        variants.remove(variant);
+                    }
+                }
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * La palabra y cada forma con una letra borrada: dos palabras a un error de distancia comparten
+     * al menos una de ellas
+     */
+    private static Set<String> variantsOf(String token) {
+        Set<String> result = new HashSet<>();
+        result.add(token);
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            for (int i = 0; i < token.length(); i++) {
+                result.add(token.substring(0, i) + token.substring(i + 1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Distancia de edición (con transposición de letras vecinas) menor o igual a 1
+     */
+    private static boolean withinOneEdit(String a, String b) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < Math.min(la, lb) && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (la == lb) {
+            if (a.regionMatches(i + 1, b, i + 1, la - i - 1)) {
+                return true;
+            }
+            return i + 1 < la && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                    && a.regionMatches(i + 2, b, i + 2, la - i - 2);
+        }
+        return la > lb ? a.regionMatches(i + 1, b, i, lb - i) : b.regionMatches(i + 1, a, i, la - i);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "access.dedupe")
+@Getter
+@Setter
+public class AccessDedupeConfig {
+
+    /**
+     * Si está deshabilitado, cada POST de acceso se decide de nuevo aunque repita la secuencia
+     */
+    private boolean enabled = true;
+
+    /**
+     * Tiempo (s) durante el que una secuencia repetida recibe la respuesta guardada
+     */
+    private long windowSeconds = 120;
+
+    /**
+     * Máximo de respuestas guardadas; al superarlo se descartan las más antiguas
+     */
+    private int maxEntries = 20000;
+
+    /**
+     * Tiempo máximo (ms) que un reintento espera a que termine la decisión original en curso
+     */
+    private long inFlightWaitMs = 10000;
+}
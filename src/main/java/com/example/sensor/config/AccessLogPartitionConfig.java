@@ -0,0 +1,23 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "access-log.partitions")
+@Getter
+@Setter
+public class AccessLogPartitionConfig {
+
+    /**
+     * Crear particiones mensuales de access_logs por adelantado
+     */
+    private boolean enabled = true;
+
+    /**
+     * Meses futuros que deben existir además del mes actual
+     */
+    private int monthsAhead = 3;
+}
@@ -0,0 +1,43 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "access-log.writer")
+@Getter
+@Setter
+public class AccessLogWriterConfig {
+
+    /**
+     * Si está deshabilitado, cada registro de acceso se guarda de forma síncrona
+     */
+    private boolean enabled = true;
+
+    /**
+     * Capacidad máxima de la cola en memoria
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * Máximo de registros por INSERT en lote
+     */
+    private int batchSize = 200;
+
+    /**
+     * Tiempo máximo (ms) que un registro espera en cola antes de escribirse
+     */
+    private long flushIntervalMs = 200;
+
+    /**
+     * Tiempo máximo (ms) que se espera por espacio en la cola antes de guardar de forma síncrona
+     */
+    private long enqueueTimeoutMs = 50;
+
+    /**
+     * Tiempo máximo (ms) para vaciar la cola durante el apagado
+     */
+    private long shutdownTimeoutMs = 30000;
+}
@@ -0,0 +1,38 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "access-stream")
+@Getter
+@Setter
+public class AccessStreamConfig {
+
+    /**
+     * Eventos recientes que se conservan para reanudar con Last-Event-ID
+     */
+    private int bufferSize = 1000;
+
+    /**
+     * Eventos pendientes por suscriptor; si se llena, el suscriptor recibe "reset" y debe recargar
+     */
+    private int subscriberQueue = 256;
+
+    /**
+     * Máximo de conexiones SSE simultáneas
+     */
+    private int maxSubscribers = 200;
+
+    /**
+     * Duración máxima (ms) de una conexión; EventSource reconecta solo y reanuda desde el último ID
+     */
+    private long timeoutMs = 1800000;
+
+    /**
+     * Intervalo (ms) del comentario keep-alive para proxies y detección de clientes caídos
+     */
+    private long heartbeatMs = 15000;
+}
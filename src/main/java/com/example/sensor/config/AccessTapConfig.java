@@ -0,0 +1,44 @@
+package com.example.sensor.config;
+
+import com.example.sensor.model.enums.AccessType;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "access.taps")
+@Getter
+@Setter
+public class AccessTapConfig {
+
+    /**
+     * Lecturas repetidas de la misma credencial en la misma puerta dentro de este intervalo (segundos)
+     * devuelven la decisión anterior sin alternar ENTRADA/SALIDA ni registrar otro acceso; 0 lo desactiva
+     */
+    private int coalesceSeconds = 5;
+
+    /**
+     * Anti-passback estricto: en una puerta de ENTRADA se rechaza una credencial cuya última marcación
+     * también fue ENTRADA
+     */
+    private boolean antiPassback = false;
+
+    /**
+     * Tiempo (horas) que se recuerda la última marcación de cada credencial para el anti-passback
+     */
+    private int antiPassbackHours = 16;
+
+    /**
+     * Máximo de credenciales recordadas; al superarlo se descartan las de marcación más antigua
+     */
+    private int maxEntries = 50000;
+
+    /**
+     * Puertas con sentido fijo (deviceId o ubicación -> ENTRADA/SALIDA); las demás alternan por credencial
+     */
+    private Map<String, AccessType> doorDirections = new HashMap<>();
+}
@@ -0,0 +1,23 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "attendance.rollup")
+@Getter
+@Setter
+public class AttendanceRollupConfig {
+
+    /**
+     * Actualizar el resumen diario al escribir cada lote de accesos
+     */
+    private boolean enabled = true;
+
+    /**
+     * Días cerrados (hasta ayer) que el job nocturno recalcula desde access_logs
+     */
+    private int correctionDays = 3;
+}
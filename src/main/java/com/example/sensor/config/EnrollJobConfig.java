@@ -0,0 +1,33 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "enroll.jobs")
+@Getter
+@Setter
+public class EnrollJobConfig {
+
+    /**
+     * Minutos que se conserva un trabajo terminado para consultar su resultado
+     */
+    private long ttlMinutes = 30;
+
+    /**
+     * Tiempo máximo (ms) de una conexión SSE de progreso
+     */
+    private long sseTimeoutMs = 120000;
+
+    /**
+     * Espera máxima (ms) permitida en long-poll
+     */
+    private long maxWaitMs = 30000;
+
+    /**
+     * Trabajos sin terminar admitidos a la vez; por encima se rechazan con 429
+     */
+    private int maxPendingJobs = 16;
+}
@@ -3,13 +3,10 @@ package com.example.sensor.config;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.netty.http.client.HttpClient;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 @ConfigurationProperties(prefix = "esp32")
@@ -50,14 +47,93 @@ public class Esp32Config {
      */
     private boolean debugEnabled = false;
 
-    @Bean
-    public WebClient esp32WebClient() {
-        HttpClient httpClient = HttpClient.create()
-                .responseTimeout(Duration.ofMillis(readTimeout));
+    /**
+     * ID del dispositivo usado cuando la petición no indica uno
+     */
+    private String defaultDeviceId = "default";
+
+    /**
+     * Conexiones HTTP máximas por dispositivo (el ESP32 atiende una a la vez)
+     */
+    private int maxConnections = 4;
+
+    /**
+     * Tiempo (ms) que una conexión keep-alive puede quedar ociosa en el pool
+     */
+    private int maxIdleTimeMs = 60000;
+
+    /**
+     * Abrir una conexión a cada dispositivo al arrancar para evitar el handshake en el primer comando
+     */
+    private boolean prewarm = true;
+
+    /**
+     * Comandos máximos en cola por dispositivo antes de rechazar nuevos
+     */
+    private int schedulerMaxQueueDepth = 50;
+
+    /**
+     * Tiempo máximo (ms) que un comando puede esperar en cola; pasado ese tiempo se descarta sin ejecutarse
+     */
+    private long schedulerMaxQueueWaitMs = 60000;
+
+    /**
+     * Fallas de comunicación consecutivas (timeout, conexión, HTTP 5xx) que abren el circuito de un dispositivo
+     */
+    private int breakerFailureThreshold = 5;
+
+    /**
+     * Tiempo (ms) que el circuito queda abierto rechazando comandos antes de permitir un comando de prueba
+     */
+    private long breakerOpenMs = 30000;
+
+    /**
+     * Espera (ms) antes del primer reintento; se duplica en cada reintento
+     */
+    private long retryBackoffMs = 200;
+
+    /**
+     * Espera máxima (ms) entre reintentos
+     */
+    private long retryMaxBackoffMs = 2000;
+
+    /**
+     * Fracción aleatoria aplicada a cada espera entre reintentos (0 a 1)
+     */
+    private double retryJitter = 0.5;
+
+    /**
+     * Reintentos que gana cada comando ejecutado en el presupuesto del dispositivo
+     * (0.2 = como máximo un reintento por cada cinco comandos en régimen sostenido)
+     */
+    private double retryBudgetRatio = 0.2;
+
+    /**
+     * Reintentos acumulables en el presupuesto de cada dispositivo
+     */
+    private int retryBudgetMaxTokens = 5;
+
+    /**
+     * Intervalo (ms) del ping de salud en segundo plano; no se hace ping a dispositivos con actividad reciente
+     */
+    private long healthProbeIntervalMs = 10000;
+
+    /**
+     * Timeout (ms) del ping de salud, sin reintentos
+     */
+    private long healthProbeTimeoutMs = 2000;
+
+    /**
+     * Lectores adicionales (uno por puerta). Si la lista está vacía se usa solo base-url
+     * con el ID default-device-id
+     */
+    private List<Device> devices = new ArrayList<>();
 
-        return WebClient.builder()
-                .baseUrl(baseUrl)
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
-                .build();
+    @Getter
+    @Setter
+    public static class Device {
+        private String id;
+        private String baseUrl;
+        private String location;
     }
 }
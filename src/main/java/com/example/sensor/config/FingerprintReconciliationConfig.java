@@ -0,0 +1,44 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "fingerprint.reconciliation")
+@Getter
+@Setter
+public class FingerprintReconciliationConfig {
+
+    /**
+     * Ejecutar la conciliación periódica entre los slots del sensor y la tabla fingerprints
+     */
+    private boolean enabled = true;
+
+    /**
+     * Dispositivo cuyo sensor guarda las plantillas; vacío usa el dispositivo por defecto
+     */
+    private String deviceId;
+
+    /**
+     * Cada cuánto (ms) se revisa el siguiente lote de slots
+     */
+    private long intervalMs = 60000;
+
+    /**
+     * Slots revisados por ejecución; el cursor avanza y da la vuelta al llegar a la capacidad
+     */
+    private int batchSize = 32;
+
+    /**
+     * Corregir las diferencias confirmadas (borrar plantillas huérfanas del sensor y desactivar
+     * huellas sin plantilla). En false solo se reportan
+     */
+    private boolean repair = false;
+
+    /**
+     * Capacidad asumida del sensor hasta que el ESP32 informe la suya
+     */
+    private int defaultCapacity = 127;
+}
@@ -0,0 +1,23 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "users.import")
+@Getter
+@Setter
+public class UserImportConfig {
+
+    /**
+     * Filas por bloque: se validan juntas, se insertan en un lote JDBC y se confirman en una transacción
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Máximo de errores por fila incluidos en la respuesta; el resto solo se cuenta en rejected
+     */
+    private int maxReportedErrors = 1000;
+}
@@ -0,0 +1,68 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Modo de ejecución con hilos virtuales.
+ * Se activa con spring.threads.virtual.enabled (requiere Java 21+): Tomcat, las tareas
+ * {@code @Async} y el scheduler pasan a hilos virtuales, de modo que las llamadas
+ * bloqueantes al ESP32 (.block() hasta read-timeout) ya no ocupan hilos de plataforma.
+ */
+@Configuration
+@EnableAsync
+@ConfigurationProperties(prefix = "threads.pinning")
+@Getter
+@Setter
+@Slf4j
+public class VirtualThreadConfig {
+
+    /**
+     * Registrar eventos JFR de hilos virtuales anclados (synchronized, JNI) al hilo portador
+     */
+    private boolean diagnosticsEnabled = false;
+
+    /**
+     * Duración mínima (ms) de un anclaje para reportarlo
+     */
+    private long thresholdMs = 20;
+
+    private final Environment environment;
+
+    public VirtualThreadConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Modo efectivo: hilos virtuales solo si se pidieron y la JVM los soporta (Java 21+)
+     */
+    public boolean isVirtualThreadsActive() {
+        return isVirtualThreadsRequested() && Runtime.version().feature() >= 21;
+    }
+
+    public String getThreadingMode() {
+        return isVirtualThreadsActive() ? "VIRTUAL" : "PLATAFORMA";
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logThreadingMode() {
+        int javaVersion = Runtime.version().feature();
+        if (isVirtualThreadsRequested() && !isVirtualThreadsActive()) {
+            log.warn("spring.threads.virtual.enabled=true pero la JVM es Java {}: se usan hilos de plataforma",
+                    javaVersion);
+        } else {
+            log.info("Modo de hilos: {} (Java {})", getThreadingMode(), javaVersion);
+        }
+    }
+
+    private boolean isVirtualThreadsRequested() {
+        return environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.sensor.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "worktime")
+@Getter
+@Setter
+public class WorkTimeConfig {
+
+    /**
+     * Duración máxima de una jornada; una entrada sin salida dentro de este plazo se cierra como MISSING_EXIT
+     */
+    private int maxSessionHours = 16;
+
+    /**
+     * Marcaciones repetidas dentro de este intervalo (segundos) se consideran una sola
+     */
+    private int duplicateTapSeconds = 60;
+
+    /**
+     * Cada cuánto (ms) se recalculan las horas de ayer y hoy en segundo plano
+     */
+    private long refreshIntervalMs = 900000;
+
+    /**
+     * Días cerrados que el recálculo nocturno vuelve a procesar (eventos offline tardíos)
+     */
+    private int correctionDays = 3;
+}
@@ -0,0 +1,226 @@
+package com.example.sensor.device;
+
+import com.example.sensor.config.Esp32Config;
+import com.example.sensor.exceptions.SerialCommunicationException;
+import com.example.sensor.metrics.DeviceMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Planificador de comandos por dispositivo.
+ * El AS608 y el MFRC522 atienden una operación a la vez, así que cada ESP32 tiene
+ * una cola con un único hilo que ejecuta sus comandos en serie. Las operaciones
+ * interactivas (verify, scan, enroll) pasan antes que las de mantenimiento
+ * (count, delete, empty, ping), y las lecturas idempotentes idénticas que ya
+ * están en cola o en curso se comparten en lugar de repetirse.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DeviceCommandScheduler {
+
+    public enum Priority {
+        INTERACTIVE,
+        MAINTENANCE
+    }
+
+    private final Esp32Config config;
+    private final DeviceMetrics deviceMetrics;
+    private final Map<String, DeviceQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecuta el comando en la cola del dispositivo y espera su resultado.
+     *
+     * @param coalesce true para lecturas idempotentes: si ya hay una igual pendiente se reutiliza su resultado
+     */
+    public <T> T execute(String deviceId, String command, Priority priority, boolean coalesce, Callable<T> action) {
+        CompletableFuture<T> future = submit(deviceId, command, priority, coalesce, action);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new SerialCommunicationException("Error ejecutando " + command + ": " + cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerialCommunicationException("Comando interrumpido: " + command);
+        }
+    }
+
+    /**
+     * Encola el comando sin esperar su resultado (pings de salud en segundo plano)
+     */
+    public <T> CompletableFuture<T> submit(String deviceId, String command, Priority priority, boolean coalesce,
+                                           Callable<T> action) {
+        return queues.computeIfAbsent(deviceId, DeviceQueue::new).submit(command, priority, coalesce, action);
+    }
+
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        queues.forEach((deviceId, queue) -> stats.put(deviceId, queue.stats()));
+        return stats;
+    }
+
+    public int getQueueDepth(String deviceId) {
+        DeviceQueue queue = queues.get(deviceId);
+        return queue != null ? queue.queue.size() : 0;
+    }
+
+    /**
+     * true si el dispositivo está ejecutando un comando o tiene comandos en cola
+     */
+    public boolean isBusy(String deviceId) {
+        DeviceQueue queue = queues.get(deviceId);
+        return queue != null && (queue.current != null || !queue.queue.isEmpty());
+    }
+
+    private static class Task<T> implements Comparable<Task<?>> {
+        final String command;
+        final Priority priority;
+        final long sequence;
+        final long enqueuedAt = System.nanoTime();
+        final Callable<T> action;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(String command, Priority priority, long sequence, Callable<T> action) {
+            this.command = command;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+
+        void run() {
+            try {
+                future.complete(action.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private class DeviceQueue {
+        final String deviceId;
+        final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+        final Map<String, CompletableFuture<?>> pendingReads = new ConcurrentHashMap<>();
+        final AtomicLong sequence = new AtomicLong();
+
+        final LongAdder executed = new LongAdder();
+        final LongAdder coalesced = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder expired = new LongAdder();
+        final LongAdder totalWaitMillis = new LongAdder();
+        volatile long maxWaitMillis;
+        volatile String current;
+
+        DeviceQueue(String deviceId) {
+            this.deviceId = deviceId;
+            Thread worker = new Thread(this::work, "esp32-cmd-" + deviceId);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> CompletableFuture<T> submit(String command, Priority priority, boolean coalesce, Callable<T> action) {
+            if (!coalesce) {
+                return enqueue(command, priority, action);
+            }
+            boolean[] created = {false};
+            CompletableFuture<?> future = pendingReads.computeIfAbsent(command, key -> {
+                created[0] = true;
+                return enqueue(command, priority, action);
+            });
+            if (created[0]) {
+                future.whenComplete((result, error) -> pendingReads.remove(command, future));
+            } else {
+                coalesced.increment();
+                deviceMetrics.recordCoalesced(deviceId, command);
+            }
+            return (CompletableFuture<T>) future;
+        }
+
+        private <T> CompletableFuture<T> enqueue(String command, Priority priority, Callable<T> action) {
+            if (queue.size() >= config.getSchedulerMaxQueueDepth()) {
+                rejected.increment();
+                deviceMetrics.recordDropped(deviceId, command, "queue_full");
+                return CompletableFuture.failedFuture(new SerialCommunicationException(
+                        "Dispositivo " + deviceId + " ocupado: " + queue.size() + " comandos en cola"));
+            }
+            Task<T> task = new Task<>(command, priority, sequence.incrementAndGet(), action);
+            queue.add(task);
+            return task.future;
+        }
+
+        private void work() {
+            while (true) {
+                Task<?> task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.enqueuedAt);
+                totalWaitMillis.add(waited);
+                deviceMetrics.recordQueueWait(deviceId, waited);
+                if (waited > maxWaitMillis) {
+                    maxWaitMillis = waited;
+                }
+
+                // Quien lo pidió ya no espera una respuesta útil: no ocupar el sensor con él
+                if (waited > config.getSchedulerMaxQueueWaitMs()) {
+                    expired.increment();
+                    deviceMetrics.recordDropped(deviceId, task.command, "expired");
+                    task.future.completeExceptionally(new SerialCommunicationException(
+                            "Comando " + task.command + " expiró tras " + waited + " ms en cola"));
+                    continue;
+                }
+
+                current = task.command;
+                try {
+                    task.run();
+                } finally {
+                    current = null;
+                    executed.increment();
+                }
+                if (waited > 1000) {
+                    log.debug("Comando {} en {} esperó {} ms en cola", task.command, deviceId, waited);
+                }
+            }
+        }
+
+        Map<String, Object> stats() {
+            long count = executed.sum() + expired.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queueDepth", queue.size());
+            stats.put("current", current);
+            stats.put("executed", executed.sum());
+            stats.put("coalesced", coalesced.sum());
+            stats.put("rejected", rejected.sum());
+            stats.put("expired", expired.sum());
+            stats.put("avgWaitMillis", count > 0 ? totalWaitMillis.sum() / count : 0);
+            stats.put("maxWaitMillis", maxWaitMillis);
+            return stats;
+        }
+    }
+}
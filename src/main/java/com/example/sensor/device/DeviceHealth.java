@@ -0,0 +1,264 @@
+package com.example.sensor.device;
+
+import com.example.sensor.config.Esp32Config;
+import com.example.sensor.exceptions.DeviceUnavailableException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estado de salud de un ESP32: circuit breaker y presupuesto de reintentos.
+ * Cada comando ejecutado (y cada ping de salud) informa su resultado. Tras
+ * breaker-failure-threshold fallas de comunicación seguidas el circuito se abre y los
+ * comandos fallan de inmediato con DeviceUnavailableException en lugar de ocupar un
+ * hilo hasta el timeout; pasado breaker-open-ms se deja pasar un único comando de prueba
+ * (semiabierto) que cierra el circuito si responde.
+ *
+ * Solo cuentan como fallas los timeouts, errores de conexión y HTTP 5xx: un 4xx o una
+ * respuesta de error del sensor significa que el dispositivo está vivo.
+ */
+public class DeviceHealth {
+
+    public enum Circuit {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public enum Status {
+        UNKNOWN,
+        UP,
+        DEGRADED,
+        DOWN
+    }
+
+    private final String deviceId;
+    private final Esp32Config config;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Circuit circuit = Circuit.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+    private boolean everResponded;
+    private Instant lastSuccessAt;
+    private Instant lastFailureAt;
+    private String lastError;
+    private double retryTokens;
+    private long rejected;
+    private volatile long lastActivityNanos;
+
+    public DeviceHealth(String deviceId, Esp32Config config) {
+        this.deviceId = deviceId;
+        this.config = config;
+        this.retryTokens = config.getRetryBudgetMaxTokens();
+    }
+
+    /**
+     * Comprobación previa a encolar: falla rápido si el circuito está abierto y aún no toca probar
+     */
+    public void checkAvailable() {
+        lock.lock();
+        try {
+            if (isRejecting()) {
+                throw unavailable();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * true mientras el circuito está abierto y todavía no toca el comando de prueba
+     */
+    public boolean isRejecting() {
+        lock.lock();
+        try {
+            return circuit == Circuit.OPEN && remainingOpenMillis() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Permiso para ejecutar un comando en el dispositivo. Con el circuito abierto solo se concede
+     * el comando de prueba, una vez vencido breaker-open-ms. Quien obtiene el permiso debe
+     * informar el resultado con recordSuccess o recordFailure.
+     */
+    public void acquirePermit() {
+        lock.lock();
+        try {
+            if (circuit == Circuit.OPEN && remainingOpenMillis() <= 0) {
+                circuit = Circuit.HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (circuit == Circuit.OPEN || (circuit == Circuit.HALF_OPEN && trialInFlight)) {
+                throw unavailable();
+            }
+            if (circuit == Circuit.HALF_OPEN) {
+                trialInFlight = true;
+            }
+            retryTokens = Math.min(config.getRetryBudgetMaxTokens(), retryTokens + config.getRetryBudgetRatio());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Consume un reintento del presupuesto; false si está agotado o el circuito ya no está cerrado
+     */
+    public boolean tryAcquireRetry() {
+        lock.lock();
+        try {
+            if (circuit != Circuit.CLOSED || retryTokens < 1) {
+                return false;
+            }
+            retryTokens -= 1;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true si el dispositivo venía con el circuito abierto o semiabierto y se recuperó
+     */
+    public boolean recordSuccess() {
+        lock.lock();
+        try {
+            boolean recovered = circuit != Circuit.CLOSED;
+            circuit = Circuit.CLOSED;
+            trialInFlight = false;
+            consecutiveFailures = 0;
+            everResponded = true;
+            lastSuccessAt = Instant.now();
+            lastActivityNanos = System.nanoTime();
+            return recovered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Resultado fallido de un comando; los errores que no son de comunicación cuentan como respuesta
+     *
+     * @return true si esta falla abrió el circuito
+     */
+    public boolean recordFailure(Throwable error) {
+        if (!isCommunicationFailure(error)) {
+            recordSuccess();
+            return false;
+        }
+        lock.lock();
+        try {
+            lastActivityNanos = System.nanoTime();
+            lastFailureAt = Instant.now();
+            lastError = error.getMessage();
+            consecutiveFailures++;
+            trialInFlight = false;
+            boolean trip = circuit == Circuit.HALF_OPEN
+                    || (circuit == Circuit.CLOSED && consecutiveFailures >= config.getBreakerFailureThreshold());
+            if (trip) {
+                circuit = Circuit.OPEN;
+                openedAtNanos = System.nanoTime();
+            }
+            return trip;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Circuit getCircuit() {
+        lock.lock();
+        try {
+            return circuit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Status getStatus() {
+        lock.lock();
+        try {
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * true si el dispositivo respondió y el circuito no está abierto; no hace I/O
+     */
+    public boolean isAvailable() {
+        Status status = getStatus();
+        return status == Status.UP || status == Status.DEGRADED;
+    }
+
+    /**
+     * Milisegundos desde el último comando o ping con resultado; Long.MAX_VALUE si nunca hubo uno
+     */
+    public long millisSinceLastActivity() {
+        long last = lastActivityNanos;
+        return last == 0 ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - last);
+    }
+
+    public Map<String, Object> snapshot() {
+        lock.lock();
+        try {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("status", status());
+            snapshot.put("circuit", circuit);
+            snapshot.put("consecutiveFailures", consecutiveFailures);
+            snapshot.put("retryAfterMillis", circuit == Circuit.OPEN ? Math.max(0, remainingOpenMillis()) : 0);
+            snapshot.put("retryTokens", Math.floor(retryTokens * 100) / 100);
+            snapshot.put("rejected", rejected);
+            snapshot.put("lastSuccessAt", lastSuccessAt);
+            snapshot.put("lastFailureAt", lastFailureAt);
+            snapshot.put("lastError", lastError);
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Timeouts, errores de conexión y HTTP 5xx en cualquier nivel de la cadena de causas
+     */
+    public static boolean isCommunicationFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof WebClientRequestException) {
+                return true;
+            }
+            if (cause instanceof WebClientResponseException response) {
+                return response.getStatusCode().is5xxServerError();
+            }
+        }
+        return false;
+    }
+
+    private Status status() {
+        if (circuit == Circuit.OPEN) {
+            return Status.DOWN;
+        }
+        if (!everResponded) {
+            return consecutiveFailures > 0 ? Status.DOWN : Status.UNKNOWN;
+        }
+        return circuit == Circuit.HALF_OPEN || consecutiveFailures > 0 ? Status.DEGRADED : Status.UP;
+    }
+
+    private long remainingOpenMillis() {
+        return config.getBreakerOpenMs() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAtNanos);
+    }
+
+    private DeviceUnavailableException unavailable() {
+        rejected++;
+        long seconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(Math.max(0, remainingOpenMillis()) + 999));
+        return new DeviceUnavailableException(deviceId, seconds);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.sensor.device;
+
+import com.example.sensor.config.Esp32Config;
+import com.example.sensor.device.DeviceCommandScheduler.Priority;
+import com.example.sensor.exceptions.DeviceUnavailableException;
+import com.example.sensor.metrics.DeviceMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Salud por dispositivo: cada comando al ESP32 pasa por guard(), que aplica el circuit
+ * breaker de DeviceHealth y registra el resultado. En segundo plano se hace ping a los
+ * dispositivos sin actividad reciente, así isConnected() responde desde el estado en
+ * memoria sin esperar al ESP32, y un circuito abierto se vuelve a probar sin que tenga
+ * que hacerlo una petición de usuario.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DeviceHealthMonitor {
+
+    private final Esp32DeviceRegistry deviceRegistry;
+    private final DeviceCommandScheduler scheduler;
+    private final DeviceMetrics deviceMetrics;
+    private final Esp32Config config;
+    private final Map<String, DeviceHealth> health = new ConcurrentHashMap<>();
+    private final Set<String> probing = ConcurrentHashMap.newKeySet();
+
+    public DeviceHealth get(String deviceId) {
+        return health.computeIfAbsent(deviceId, id -> new DeviceHealth(id, config));
+    }
+
+    /**
+     * Falla rápido antes de encolar si el circuito del dispositivo está abierto
+     */
+    public void checkAvailable(String deviceId, String command) {
+        try {
+            get(deviceId).checkAvailable();
+        } catch (DeviceUnavailableException e) {
+            deviceMetrics.recordDropped(deviceId, command, "circuit_open");
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecuta la llamada al dispositivo si el circuito lo permite y registra su resultado
+     */
+    public <T> T guard(String deviceId, String command, Supplier<T> action) {
+        DeviceHealth deviceHealth = get(deviceId);
+        try {
+            deviceHealth.acquirePermit();
+        } catch (DeviceUnavailableException e) {
+            deviceMetrics.recordDropped(deviceId, command, "circuit_open");
+            throw e;
+        }
+        try {
+            T result = action.get();
+            if (deviceHealth.recordSuccess()) {
+                log.info("ESP32 {} responde de nuevo: circuito cerrado", deviceId);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            if (deviceHealth.recordFailure(e)) {
+                log.warn("ESP32 {} no disponible tras {}: circuito abierto por {} ms",
+                        deviceId, command, config.getBreakerOpenMs());
+            }
+            throw e;
+        }
+    }
+
+    public Map<String, Map<String, Object>> getSnapshot() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        deviceRegistry.getAll().forEach(device -> snapshot.put(device.getId(), get(device.getId()).snapshot()));
+        return snapshot;
+    }
+
+    /**
+     * Ping de salud sin reintentos. No se encola si el dispositivo está ocupado o tuvo actividad
+     * dentro del intervalo (el resultado de esos comandos ya actualizó su estado), ni mientras
+     * el circuito está abierto y aún no toca probar.
+     */
+    @Scheduled(fixedDelayString = "${esp32.health-probe-interval-ms:10000}")
+    public void probeDevices() {
+        for (Esp32Device device : deviceRegistry.getAll()) {
+            String deviceId = device.getId();
+            DeviceHealth deviceHealth = get(deviceId);
+            if (deviceHealth.isRejecting() || scheduler.isBusy(deviceId)
+                    || deviceHealth.millisSinceLastActivity() < config.getHealthProbeIntervalMs()
+                    || !probing.add(deviceId)) {
+                continue;
+            }
+            scheduler.submit(deviceId, "PING", Priority.MAINTENANCE, true,
+                            () -> guard(deviceId, "PING", () -> ping(device)))
+                    .whenComplete((result, error) -> {
+                        probing.remove(deviceId);
+                        if (error != null) {
+                            log.debug("Ping de salud a {} falló: {}", deviceId, error.getMessage());
+                        }
+                    });
+        }
+    }
+
+    private String ping(Esp32Device device) {
+        device.getWebClient().get()
+                .uri("/api/fingerprint/ping")
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(config.getHealthProbeTimeoutMs()))
+                .block();
+        return "PONG";
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.sensor.device;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Lector ESP32 registrado, con su propio WebClient y pool de conexiones
+ */
+@Getter
+@AllArgsConstructor
+public class Esp32Device {
+    private final String id;
+    private final String baseUrl;
+    private final String location;
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+}
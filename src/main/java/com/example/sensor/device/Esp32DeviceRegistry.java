@@ -0,0 +1,110 @@
+package com.example.sensor.device;
+
+import com.example.sensor.config.Esp32Config;
+import com.example.sensor.exceptions.SerialCommunicationException;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registro de lectores ESP32 configurados (esp32.devices).
+ * Cada dispositivo tiene un pool de conexiones keep-alive independiente, así que un
+ * lector lento o caído no consume conexiones de los demás y los comandos a puertas
+ * distintas corren en paralelo.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class Esp32DeviceRegistry {
+
+    private final Esp32Config config;
+    private final Map<String, Esp32Device> devices = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (config.getDevices().isEmpty()) {
+            register(config.getDefaultDeviceId(), config.getBaseUrl(), null);
+        } else {
+            config.getDevices().forEach(device ->
+                    register(device.getId(), device.getBaseUrl(), device.getLocation()));
+        }
+        if (config.isPrewarm()) {
+            devices.values().forEach(this::prewarm);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        devices.values().forEach(device -> device.getConnectionProvider().dispose());
+    }
+
+    /**
+     * Dispositivo por ID; null o vacío devuelve el dispositivo por defecto
+     */
+    public Esp32Device get(String deviceId) {
+        String id = deviceId == null || deviceId.isBlank() ? getDefaultDeviceId() : deviceId;
+        Esp32Device device = devices.get(id);
+        if (device == null) {
+            throw new SerialCommunicationException("Dispositivo ESP32 no registrado: " + id);
+        }
+        return device;
+    }
+
+    public Collection<Esp32Device> getAll() {
+        return devices.values();
+    }
+
+    public String getDefaultDeviceId() {
+        return devices.containsKey(config.getDefaultDeviceId())
+                ? config.getDefaultDeviceId()
+                : devices.keySet().iterator().next();
+    }
+
+    private void register(String id, String baseUrl, String location) {
+        ConnectionProvider provider = ConnectionProvider.builder("esp32-" + id)
+                .maxConnections(config.getMaxConnections())
+                .maxIdleTime(Duration.ofMillis(config.getMaxIdleTimeMs()))
+                .evictInBackground(Duration.ofMillis(config.getMaxIdleTimeMs()))
+                .pendingAcquireTimeout(Duration.ofMillis(config.getReadTimeout()))
+                .build();
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectionTimeout())
+                .responseTimeout(Duration.ofMillis(config.getReadTimeout()));
+
+        WebClient webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        devices.put(id, new Esp32Device(id, baseUrl, location, webClient, provider));
+        log.info("Dispositivo ESP32 registrado: {} -> {}", id, baseUrl);
+    }
+
+    /**
+     * Ping asíncrono que deja una conexión keep-alive abierta en el pool; no bloquea el arranque
+     */
+    private void prewarm(Esp32Device device) {
+        device.getWebClient().get()
+                .uri("/api/fingerprint/ping")
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(config.getQuickTimeout()))
+                .subscribe(
+                        response -> log.info("Conexión precalentada con {}", device.getId()),
+                        error -> log.warn("No se pudo precalentar {}: {}", device.getId(), error.getMessage()));
+    }
+}
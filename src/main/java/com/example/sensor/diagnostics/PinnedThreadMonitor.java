@@ -0,0 +1,89 @@
+package com.example.sensor.diagnostics;
+
+import com.example.sensor.config.VirtualThreadConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diagnóstico de anclaje (pinning) de hilos virtuales vía JFR.
+ * Un hilo virtual que bloquea dentro de un synchronized o de código nativo (p. ej. en
+ * drivers JDBC) retiene su hilo portador; este monitor registra dónde ocurre y cuántas veces.
+ * En JVMs sin hilos virtuales el evento no existe y el monitor no reporta nada.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PinnedThreadMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 8;
+
+    private final VirtualThreadConfig config;
+    private final Map<String, LongAdder> pinnedBySite = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (!config.isDiagnosticsEnabled()) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(config.getThresholdMs()))
+                .withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Diagnóstico de hilos virtuales anclados activo (umbral {} ms)", config.getThresholdMs());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Conteo de anclajes por primer frame de la aplicación o de la librería que lo provocó
+     */
+    public Map<String, Long> getPinnedSites() {
+        Map<String, Long> sites = new LinkedHashMap<>();
+        pinnedBySite.forEach((site, count) -> sites.put(site, count.sum()));
+        return sites;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        StringBuilder trace = new StringBuilder();
+        String site = "desconocido";
+        if (event.getStackTrace() != null) {
+            int frames = 0;
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                if (!frame.isJavaFrame()) {
+                    continue;
+                }
+                String location = frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber();
+                if (frames == 0) {
+                    site = location;
+                }
+                if (frames++ < MAX_FRAMES) {
+                    trace.append("\n    at ").append(location);
+                }
+            }
+        }
+        pinnedBySite.computeIfAbsent(site, key -> new LongAdder()).increment();
+        log.warn("Hilo virtual anclado {} ms en {}{}", event.getDuration().toMillis(), site, trace);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.sensor.exceptions;
+
+public class AccessRequestInProgressException extends RuntimeException {
+    public AccessRequestInProgressException(String deviceId, long sequence) {
+        super("El acceso " + sequence + " del dispositivo " + deviceId + " todavía se está procesando");
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.sensor.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class DeviceUnavailableException extends SerialCommunicationException {
+    private final long retryAfterSeconds;
+
+    public DeviceUnavailableException(String deviceId, long retryAfterSeconds) {
+        super("Dispositivo " + deviceId + " fuera de servicio, reintente en " + retryAfterSeconds + " s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.sensor.exceptions;
+
+public class EnrollJobLimitExceededException extends RuntimeException {
+    public EnrollJobLimitExceededException(int maxPendingJobs) {
+        super("Hay " + maxPendingJobs + " trabajos de enroll pendientes, reintente más tarde");
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.sensor.exceptions;
+
+public class EnrollJobNotFoundException extends RuntimeException {
+    public EnrollJobNotFoundException(String jobId) {
+        super("Trabajo de enroll no encontrado: " + jobId);
+    }
+}
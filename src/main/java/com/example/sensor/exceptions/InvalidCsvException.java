@@ -0,0 +1,7 @@
+package com.example.sensor.exceptions;
+
+public class InvalidCsvException extends InvalidRequestException {
+    public InvalidCsvException(String message) {
+        super(message);
+    }
+}
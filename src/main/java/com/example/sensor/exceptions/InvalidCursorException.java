@@ -0,0 +1,7 @@
+package com.example.sensor.exceptions;
+
+public class InvalidCursorException extends InvalidRequestException {
+    public InvalidCursorException(String cursor) {
+        super("Cursor inválido: " + cursor);
+    }
+}
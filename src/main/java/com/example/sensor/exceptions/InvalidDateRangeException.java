@@ -0,0 +1,9 @@
+package com.example.sensor.exceptions;
+
+import java.time.LocalDate;
+
+public class InvalidDateRangeException extends InvalidRequestException {
+    public InvalidDateRangeException(LocalDate from, LocalDate to) {
+        super("El rango de fechas es inválido: " + from + " a " + to);
+    }
+}
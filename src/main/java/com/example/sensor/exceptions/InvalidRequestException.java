@@ -0,0 +1,10 @@
+package com.example.sensor.exceptions;
+
+/**
+ * Parámetros rechazados a propósito por la validación; se responde 400 con el mensaje.
+ */
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
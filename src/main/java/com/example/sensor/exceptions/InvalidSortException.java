@@ -0,0 +1,9 @@
+package com.example.sensor.exceptions;
+
+import java.util.Set;
+
+public class InvalidSortException extends InvalidRequestException {
+    public InvalidSortException(String property, Set<String> allowed) {
+        super("No se puede ordenar por '" + property + "'. Permitidos: " + allowed);
+    }
+}
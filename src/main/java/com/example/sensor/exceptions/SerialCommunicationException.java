@@ -4,4 +4,8 @@ public class SerialCommunicationException extends RuntimeException {
     public SerialCommunicationException(String message) {
         super(message);
     }
+
+    public SerialCommunicationException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
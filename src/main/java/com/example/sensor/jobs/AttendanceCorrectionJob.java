@@ -0,0 +1,36 @@
+package com.example.sensor.jobs;
+
+import com.example.sensor.config.AttendanceRollupConfig;
+import com.example.sensor.service.AttendanceRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Recalcula cada noche el resumen de asistencia de los últimos días cerrados.
+ * El día en curso no se toca para no competir con la actualización incremental.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AttendanceCorrectionJob {
+
+    private final AttendanceRollupService rollupService;
+    private final AttendanceRollupConfig config;
+
+    @Scheduled(cron = "${attendance.rollup.correction-cron:0 30 2 * * *}")
+    public void correct() {
+        if (config.getCorrectionDays() <= 0) {
+            return;
+        }
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            rollupService.rebuild(yesterday.minusDays(config.getCorrectionDays() - 1L), yesterday);
+        } catch (Exception e) {
+            log.error("Error recalculando el resumen de asistencia: {}", e.getMessage());
+        }
+    }
+}
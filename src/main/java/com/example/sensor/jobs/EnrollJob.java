@@ -0,0 +1,48 @@
+package com.example.sensor.jobs;
+
+import com.example.sensor.model.dto.FingerPrintResponseDTO;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estado de un trabajo de enroll en curso o terminado.
+ * Las mutaciones se hacen desde {@link EnrollJobRegistry} bajo {@link #lock}.
+ */
+@Getter
+public class EnrollJob {
+    private final String id = UUID.randomUUID().toString();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<EnrollJob> done = new CompletableFuture<>();
+
+    // ReentrantLock en lugar de synchronized para no anclar hilos virtuales durante el envío SSE
+    final ReentrantLock lock = new ReentrantLock();
+
+    private volatile String status = "PENDING";
+    private volatile FingerPrintResponseDTO fingerprint;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    void setStatus(String status) {
+        this.status = status;
+    }
+
+    void finish(String status, FingerPrintResponseDTO fingerprint, String error) {
+        this.status = status;
+        this.fingerprint = fingerprint;
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.sensor.jobs;
+
+import com.example.sensor.config.EnrollJobConfig;
+import com.example.sensor.exceptions.EnrollJobLimitExceededException;
+import com.example.sensor.exceptions.EnrollJobNotFoundException;
+import com.example.sensor.model.dto.EnrollJobDTO;
+import com.example.sensor.model.dto.EnrollProgressDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registro en memoria de trabajos de enroll.
+ * Guarda el progreso, notifica a los suscriptores SSE y conserva el resultado
+ * final durante enroll.jobs.ttl-minutes para consultas posteriores.
+ * Los trabajos sin terminar no se desalojan, por eso se limitan a enroll.jobs.max-pending-jobs.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EnrollJobRegistry {
+
+    private final EnrollJobConfig config;
+    private final Map<String, EnrollJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public EnrollJob create() {
+        int max = config.getMaxPendingJobs();
+        if (pending.incrementAndGet() > max) {
+            pending.decrementAndGet();
+            log.warn("Trabajo de enroll rechazado: {} pendientes", max);
+            throw new EnrollJobLimitExceededException(max);
+        }
+        EnrollJob job = new EnrollJob();
+        jobs.put(job.getId(), job);
+        log.info("Trabajo de enroll creado: {}", job.getId());
+        return job;
+    }
+
+    public EnrollJob get(String jobId) {
+        EnrollJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new EnrollJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    public void progress(EnrollJob job, String message) {
+        job.lock.lock();
+        try {
+            job.setStatus("PROCESSING");
+            job.getMessages().add(message);
+            broadcast(job, "progress", message);
+        } finally {
+            job.lock.unlock();
+        }
+    }
+
+    public void complete(EnrollJob job, EnrollProgressDTO result) {
+        finish(job, result.getStatus(), result, result.getError());
+    }
+
+    public void fail(EnrollJob job, String error) {
+        finish(job, "ERROR", null, error);
+    }
+
+    /**
+     * Suscripción SSE: reenvía el progreso ya emitido y luego los eventos nuevos
+     */
+    public SseEmitter subscribe(String jobId) {
+        EnrollJob job = get(jobId);
+        SseEmitter emitter = new SseEmitter(config.getSseTimeoutMs());
+
+        job.lock.lock();
+        try {
+            for (String message : job.getMessages()) {
+                emitter.send(SseEmitter.event().name("progress").data(message));
+            }
+            if (job.isFinished()) {
+                emitter.send(SseEmitter.event().name("result").data(toDto(job)));
+                emitter.complete();
+                return emitter;
+            }
+            job.getEmitters().add(emitter);
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        } finally {
+            job.lock.unlock();
+        }
+
+        emitter.onCompletion(() -> job.getEmitters().remove(emitter));
+        emitter.onTimeout(() -> job.getEmitters().remove(emitter));
+        return emitter;
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public EnrollJobDTO toDto(EnrollJob job) {
+        return EnrollJobDTO.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .messages(List.copyOf(job.getMessages()))
+                .fingerprint(job.getFingerprint())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    public long clampWait(Long waitMs) {
+        if (waitMs == null || waitMs < 0) {
+            return 0;
+        }
+        return Math.min(waitMs, config.getMaxWaitMs());
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        LocalDateTime limit = LocalDateTime.now().minusMinutes(config.getTtlMinutes());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(limit));
+    }
+
+    private void finish(EnrollJob job, String status, EnrollProgressDTO result, String error) {
+        job.lock.lock();
+        try {
+            if (job.isFinished()) {
+                return;
+            }
+            pending.decrementAndGet();
+            job.finish(status, result != null ? result.getFingerprint() : null, error);
+            EnrollJobDTO dto = toDto(job);
+            for (SseEmitter emitter : job.getEmitters()) {
+                try {
+                    emitter.send(SseEmitter.event().name("result").data(dto));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+            job.getEmitters().clear();
+        } finally {
+            job.lock.unlock();
+        }
+        job.getDone().complete(job);
+        log.info("Trabajo de enroll {} terminado: {}", job.getId(), status);
+    }
+
+    private void broadcast(EnrollJob job, String event, Object data) {
+        for (SseEmitter emitter : job.getEmitters()) {
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data));
+            } catch (IOException e) {
+                job.getEmitters().remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
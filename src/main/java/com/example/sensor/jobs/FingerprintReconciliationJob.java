@@ -0,0 +1,37 @@
+package com.example.sensor.jobs;
+
+import com.example.sensor.config.FingerprintReconciliationConfig;
+import com.example.sensor.service.FingerprintReconciliationService;
+import com.example.sensor.service.SerialService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recorre los slots del sensor de a un lote por ejecución, así una pasada completa se
+ * reparte en varios minutos y nunca ocupa el lector más que una lectura corta. Si el
+ * dispositivo no está disponible la ejecución se salta sin esperar al timeout.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class FingerprintReconciliationJob {
+
+    private final FingerprintReconciliationService reconciliationService;
+    private final SerialService serialService;
+    private final FingerprintReconciliationConfig config;
+
+    @Scheduled(initialDelayString = "${fingerprint.reconciliation.interval-ms:60000}",
+            fixedDelayString = "${fingerprint.reconciliation.interval-ms:60000}")
+    public void reconcile() {
+        if (!config.isEnabled() || !serialService.isConnected(config.getDeviceId())) {
+            return;
+        }
+        try {
+            reconciliationService.reconcileNextBatch();
+        } catch (Exception e) {
+            log.error("Error en la conciliación de huellas: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.sensor.jobs;
+
+import com.example.sensor.config.WorkTimeConfig;
+import com.example.sensor.service.WorkedHoursService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Mantiene worked_hours_daily al día de forma incremental: durante la jornada solo
+ * recalcula ayer y hoy (ayer por los turnos nocturnos); de madrugada repasa los
+ * últimos días cerrados para incluir eventos offline que llegaron tarde.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class WorkedHoursJob {
+
+    private final WorkedHoursService workedHoursService;
+    private final WorkTimeConfig config;
+
+    @Scheduled(initialDelayString = "${worktime.refresh-interval-ms:900000}",
+            fixedDelayString = "${worktime.refresh-interval-ms:900000}")
+    public void refreshRecent() {
+        LocalDate today = LocalDate.now();
+        try {
+            workedHoursService.recomputeDays(today.minusDays(1), today);
+        } catch (Exception e) {
+            log.error("Error recalculando horas trabajadas recientes: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${worktime.correction-cron:0 45 2 * * *}")
+    public void correctClosedDays() {
+        if (config.getCorrectionDays() <= 0) {
+            return;
+        }
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            workedHoursService.recomputeDays(yesterday.minusDays(config.getCorrectionDays() - 1L), yesterday);
+        } catch (Exception e) {
+            log.error("Error en el recálculo nocturno de horas trabajadas: {}", e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.sensor.mapper;
 
+import com.example.sensor.model.dto.AccessLogExportRow;
 import com.example.sensor.model.dto.AccessLogResponseDTO;
 import com.example.sensor.model.entity.AccessLog;
 import com.example.sensor.model.entity.RfidCard;
@@ -41,4 +42,27 @@ public class AccessLogMapper {
                 .notes(log.getNotes())
                 .build();
     }
+
+    /**
+     * Desde la proyección plana (persona y tarjeta ya resueltas en la consulta)
+     */
+    public AccessLogResponseDTO toResponseDTO(AccessLogExportRow row) {
+        if (row == null)
+            return null;
+
+        return AccessLogResponseDTO.builder()
+                .id(row.getId() != null ? row.getId().longValue() : null)
+                .cardUid(row.getCardUid())
+                .cardId(row.getCardId())
+                .personName(row.getPersonName())
+                .cargo(row.getCargo())
+                .accessType(row.getAccessType())
+                .authenticationMethod(row.getAuthenticationMethod())
+                .authorized(row.getAuthorized())
+                .accessTime(row.getAccessTime())
+                .location(row.getLocation())
+                .deviceId(row.getDeviceId())
+                .notes(row.getNotes())
+                .build();
+    }
 }
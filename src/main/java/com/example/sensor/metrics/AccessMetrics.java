@@ -0,0 +1,56 @@
+package com.example.sensor.metrics;
+
+import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas del camino de decisión de acceso (la latencia que percibe quien está en la puerta).
+ * - access.decision: de la llegada al servicio hasta el commit, por método y resultado
+ *   (authorized, denied, error)
+ * - access.decision.db: el UPDATE ... RETURNING que alterna ENTRADA/SALIDA, único acceso
+ *   síncrono a la BD de la decisión
+ */
+@Component
+@RequiredArgsConstructor
+public class AccessMetrics {
+
+    private final MeterRegistry registry;
+
+    public AccessRegisterResponseDTO timeDecision(AuthenticationMethod method,
+                                                  Supplier<AccessRegisterResponseDTO> decision) {
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            AccessRegisterResponseDTO response = decision.get();
+            result = Boolean.TRUE.equals(response.getAuthorized()) ? "authorized" : "denied";
+            return response;
+        } finally {
+            Timer.builder("access.decision")
+                    .description("Latencia de la decisión de acceso")
+                    .tag("method", method.name())
+                    .tag("result", result)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public <T> T timeDatabase(AuthenticationMethod method, Supplier<T> query) {
+        long start = System.nanoTime();
+        try {
+            return query.get();
+        } finally {
+            Timer.builder("access.decision.db")
+                    .description("Consulta síncrona a la BD dentro de la decisión de acceso")
+                    .tag("method", method.name())
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
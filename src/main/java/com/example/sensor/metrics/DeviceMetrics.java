@@ -0,0 +1,97 @@
+package com.example.sensor.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Métricas de los comandos enviados a cada ESP32.
+ * - esp32.command: duración del comando en el dispositivo (sin la espera en cola),
+ *   por dispositivo, comando y resultado (success, timeout, http_error, connection_error, error)
+ * - esp32.command.retries: reintentos HTTP hechos antes de responder o agotar los intentos
+ * - esp32.command.queue.wait: tiempo en la cola de DeviceCommandScheduler
+ * - esp32.command.dropped: comandos que no llegaron al sensor (cola llena o expirados)
+ * - esp32.command.coalesced: lecturas resueltas con el resultado de otra ya pendiente
+ */
+@Component
+@RequiredArgsConstructor
+public class DeviceMetrics {
+
+    private final MeterRegistry registry;
+
+    public void recordCommand(String deviceId, String command, long startNanos, Throwable error) {
+        Timer.builder("esp32.command")
+                .description("Duración de comandos enviados al ESP32")
+                .tag("device", deviceId)
+                .tag("command", commandName(command))
+                .tag("outcome", error == null ? "success" : outcome(error))
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRetry(String deviceId, String command) {
+        Counter.builder("esp32.command.retries")
+                .description("Reintentos HTTP de comandos al ESP32")
+                .tag("device", deviceId)
+                .tag("command", commandName(command))
+                .register(registry)
+                .increment();
+    }
+
+    public void recordQueueWait(String deviceId, long waitMillis) {
+        Timer.builder("esp32.command.queue.wait")
+                .description("Espera de comandos en la cola del dispositivo")
+                .tag("device", deviceId)
+                .register(registry)
+                .record(waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordDropped(String deviceId, String command, String reason) {
+        Counter.builder("esp32.command.dropped")
+                .description("Comandos descartados por el planificador sin llegar al sensor")
+                .tag("device", deviceId)
+                .tag("command", commandName(command))
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordCoalesced(String deviceId, String command) {
+        Counter.builder("esp32.command.coalesced")
+                .description("Lecturas compartidas con una idéntica ya pendiente")
+                .tag("device", deviceId)
+                .tag("command", commandName(command))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * "DELETE 12" -> "DELETE": el argumento no debe multiplicar las series
+     */
+    private static String commandName(String command) {
+        int space = command.indexOf(' ');
+        return space > 0 ? command.substring(0, space) : command;
+    }
+
+    private static String outcome(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                return "timeout";
+            }
+            if (cause instanceof WebClientResponseException) {
+                return "http_error";
+            }
+            if (cause instanceof WebClientRequestException) {
+                return "connection_error";
+            }
+        }
+        return "error";
+    }
+}
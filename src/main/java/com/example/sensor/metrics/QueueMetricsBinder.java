@@ -0,0 +1,101 @@
+package com.example.sensor.metrics;
+
+import com.example.sensor.cache.AccessTapTracker;
+import com.example.sensor.device.DeviceCommandScheduler;
+import com.example.sensor.device.DeviceHealth;
+import com.example.sensor.device.DeviceHealthMonitor;
+import com.example.sensor.device.Esp32Device;
+import com.example.sensor.device.Esp32DeviceRegistry;
+import com.example.sensor.pipeline.AccessEventBroadcaster;
+import com.example.sensor.pipeline.AccessLogWriter;
+import com.example.sensor.pipeline.AccessRequestDeduplicator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges de las colas internas: escritor diferido de accesos, cola de comandos y salud de cada
+ * ESP32, suscriptores del flujo SSE, respuestas guardadas para reintentos de acceso y marcaciones
+ * recientes por credencial. Se leen al momento del scrape desde los mismos contadores que
+ * exponen los endpoints /health/*.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueueMetricsBinder implements MeterBinder {
+
+    private final AccessLogWriter accessLogWriter;
+    private final DeviceCommandScheduler scheduler;
+    private final Esp32DeviceRegistry deviceRegistry;
+    private final DeviceHealthMonitor healthMonitor;
+    private final AccessEventBroadcaster eventBroadcaster;
+    private final AccessRequestDeduplicator accessDeduplicator;
+    private final AccessTapTracker tapTracker;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("access.log.writer.queue.depth", accessLogWriter, AccessLogWriter::getQueueDepth)
+                .description("Registros de acceso pendientes de persistir")
+                .register(registry);
+        Gauge.builder("access.log.writer.queue.capacity", accessLogWriter, AccessLogWriter::getQueueCapacity)
+                .description("Capacidad de la cola del escritor diferido")
+                .register(registry);
+        FunctionCounter.builder("access.log.writer.written", accessLogWriter, AccessLogWriter::getWrittenCount)
+                .description("Registros de acceso persistidos por el escritor diferido")
+                .register(registry);
+        FunctionCounter.builder("access.log.writer.failed", accessLogWriter, AccessLogWriter::getFailedCount)
+                .description("Registros de acceso que no se pudieron persistir")
+                .register(registry);
+        FunctionCounter.builder("access.log.writer.sync.fallbacks", accessLogWriter,
+                        AccessLogWriter::getSyncFallbackCount)
+                .description("Registros guardados de forma síncrona por cola llena")
+                .register(registry);
+
+        for (Esp32Device device : deviceRegistry.getAll()) {
+            String deviceId = device.getId();
+            Gauge.builder("esp32.command.queue.depth", scheduler, s -> s.getQueueDepth(deviceId))
+                    .description("Comandos en cola por dispositivo")
+                    .tag("device", deviceId)
+                    .register(registry);
+            Gauge.builder("esp32.device.up", healthMonitor, m -> m.get(deviceId).isAvailable() ? 1 : 0)
+                    .description("1 si el dispositivo respondió y su circuito no está abierto")
+                    .tag("device", deviceId)
+                    .register(registry);
+            Gauge.builder("esp32.circuit.open", healthMonitor,
+                            m -> m.get(deviceId).getCircuit() == DeviceHealth.Circuit.OPEN ? 1 : 0)
+                    .description("1 mientras el circuit breaker del dispositivo rechaza comandos")
+                    .tag("device", deviceId)
+                    .register(registry);
+        }
+
+        Gauge.builder("access.stream.subscribers", eventBroadcaster, AccessEventBroadcaster::getSubscriberCount)
+                .description("Suscriptores conectados al flujo SSE de accesos")
+                .register(registry);
+        FunctionCounter.builder("access.stream.resets", eventBroadcaster, AccessEventBroadcaster::getResetCount)
+                .description("Suscriptores SSE reiniciados por cola llena o evento fuera del buffer")
+                .register(registry);
+
+        Gauge.builder("access.dedupe.size", accessDeduplicator, AccessRequestDeduplicator::getSize)
+                .description("Respuestas de acceso guardadas para reintentos")
+                .register(registry);
+        FunctionCounter.builder("access.dedupe.hits", accessDeduplicator, AccessRequestDeduplicator::getHitCount)
+                .description("Reintentos de acceso respondidos sin volver a decidir")
+                .register(registry);
+        FunctionCounter.builder("access.dedupe.evicted", accessDeduplicator,
+                        AccessRequestDeduplicator::getEvictedCount)
+                .description("Respuestas descartadas antes de vencer por superar max-entries")
+                .register(registry);
+
+        Gauge.builder("access.taps.tracked", tapTracker, AccessTapTracker::getSize)
+                .description("Credenciales con marcaciones recientes en memoria")
+                .register(registry);
+        FunctionCounter.builder("access.taps.coalesced", tapTracker, AccessTapTracker::getCoalescedCount)
+                .description("Lecturas repetidas respondidas con la decisión anterior")
+                .register(registry);
+        FunctionCounter.builder("access.taps.passback.rejected", tapTracker, AccessTapTracker::getPassbackRejectedCount)
+                .description("Accesos denegados por anti-passback")
+                .register(registry);
+    }
+}
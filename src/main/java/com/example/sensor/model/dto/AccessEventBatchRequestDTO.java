@@ -0,0 +1,27 @@
+package com.example.sensor.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessEventBatchRequestDTO {
+    @NotBlank(message = "El ID del dispositivo es obligatorio")
+    private String deviceId;
+
+    private String location;
+
+    @NotEmpty(message = "El lote debe contener al menos un evento")
+    @Size(max = 1000, message = "El lote no puede superar 1000 eventos")
+    private List<@Valid AccessEventDTO> events;
+}
@@ -0,0 +1,28 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessEventBatchResponseDTO {
+    private String deviceId;
+    private Integer received;
+    private Integer accepted;
+    private Integer duplicates;
+    private Integer rejected;
+
+    // Mayor secuencia confirmada para el dispositivo (el ESP32 puede descartar hasta aquí)
+    private Long lastSequence;
+
+    // Rangos de secuencias faltantes, ej. "15-18"
+    private List<String> missingSequences;
+
+    private List<String> errors;
+}
@@ -0,0 +1,30 @@
+package com.example.sensor.model.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de acceso almacenado en el ESP32 mientras no tenía conexión
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessEventDTO {
+    @NotNull(message = "La secuencia del evento es obligatoria")
+    private Long sequence;        // Secuencia creciente por dispositivo
+
+    @NotNull(message = "La fecha del evento es obligatoria")
+    private LocalDateTime timestamp; // Hora registrada en el dispositivo
+
+    private String authenticationMethod; // "RFID" o "FINGERPRINT"
+    private String cardUid;
+    private Integer fingerprintId;
+    private Integer confidence;
+    private String location;      // Opcional, por defecto la del lote
+}
@@ -0,0 +1,49 @@
+package com.example.sensor.model.dto;
+
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de exportación de accesos. Se construye directamente en la consulta
+ * JPQL (persona, tarjeta y método ya resueltos por JOIN), de modo que recorrer
+ * millones de registros no carga entidades ni dispara consultas por fila.
+ */
+@Getter
+public class AccessLogExportRow {
+    private final Integer id;
+    private final LocalDateTime accessTime;
+    private final String accessType;
+    private final String authenticationMethod;
+    private final Boolean authorized;
+    private final String personName;
+    private final String cargo;
+    private final Integer cardId;
+    private final String cardUid;
+    private final Integer fingerprintId;
+    private final String location;
+    private final String deviceId;
+    private final String notes;
+
+    public AccessLogExportRow(Integer id, LocalDateTime accessTime, AccessType accessType,
+                              AuthenticationMethod authenticationMethod, Boolean authorized,
+                              String nombres, String apellidoPaterno, String cargo,
+                              Integer cardId, String cardUid, Integer fingerprintId,
+                              String location, String deviceId, String notes) {
+        this.id = id;
+        this.accessTime = accessTime;
+        this.accessType = accessType.name();
+        this.authenticationMethod = authenticationMethod != null ? authenticationMethod.name() : "RFID";
+        this.authorized = authorized;
+        this.personName = nombres != null ? nombres + " " + apellidoPaterno : "Desconocido";
+        this.cargo = cargo;
+        this.cardId = cardId;
+        this.cardUid = cardUid;
+        this.fingerprintId = fingerprintId;
+        this.location = location;
+        this.deviceId = deviceId;
+        this.notes = notes;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.sensor.model.dto;
+
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros de la consulta de accesos. Todos son opcionales; cursor es el valor
+ * nextCursor devuelto por la página anterior.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessLogFilterDTO {
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime start;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime end;
+
+    private Integer userId;
+    private AuthenticationMethod authenticationMethod;
+    private Boolean authorized;
+    private String location;
+    private String deviceId;
+    private AccessType accessType;
+
+    private String cursor;
+
+    @Min(1)
+    @Max(500)
+    @Builder.Default
+    private Integer limit = 50;
+}
@@ -0,0 +1,20 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessLogPageDTO {
+    private List<AccessLogResponseDTO> items;
+    private Integer size;
+    private Boolean hasMore;
+    // Se envía como cursor para pedir la página siguiente; null si no hay más
+    private String nextCursor;
+}
@@ -14,4 +14,5 @@ public class AccessRegisterRequestDTO {
     private String location;
     private String deviceId;
     private String authenticationMethod; // "RFID" or "FINGERPRINT"
+    private Long sequence; // Secuencia del dispositivo: los reintentos repiten el mismo valor
 }
\ No newline at end of file
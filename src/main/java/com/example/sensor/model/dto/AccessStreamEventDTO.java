@@ -0,0 +1,28 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessStreamEventDTO {
+    // Asignado al publicar; es el id SSE usado para reanudar
+    private Long id;
+    private String authenticationMethod;
+    private String cardUid;
+    private Integer fingerprintId;
+    private Boolean authorized;
+    private String accessType;
+    private String personName;
+    private String cargo;
+    private String message;
+    private LocalDateTime accessTime;
+    private String location;
+    private String deviceId;
+}
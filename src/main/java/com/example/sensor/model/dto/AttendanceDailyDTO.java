@@ -0,0 +1,24 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceDailyDTO {
+    private Integer userId;
+    private String personName;
+    private LocalDate day;
+    private String location;
+    private LocalDateTime firstEntry;
+    private LocalDateTime lastExit;
+    private Integer tapCount;
+    private Integer deniedCount;
+}
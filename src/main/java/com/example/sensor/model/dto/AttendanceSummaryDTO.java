@@ -0,0 +1,19 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceSummaryDTO {
+    private LocalDate day;
+    private Long presentUsers;
+    private Long taps;
+    private Long denied;
+}
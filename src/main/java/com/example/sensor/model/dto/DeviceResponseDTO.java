@@ -0,0 +1,19 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceResponseDTO {
+    private String id;
+    private String baseUrl;
+    private String location;
+    private Boolean defaultDevice;
+    private String status;
+    private String circuit;
+}
@@ -0,0 +1,23 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollJobDTO {
+    private String jobId;
+    private String status; // PENDING, PROCESSING, SUCCESS, ERROR
+    private List<String> messages;
+    private FingerPrintResponseDTO fingerprint;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,20 @@
+package com.example.sensor.model.dto;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para la respuesta del ESP32 a GET /api/fingerprint/slots
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Esp32SlotsResponseDTO {
+    private Integer capacity;       // Slots totales del sensor
+    private Integer from;           // Rango consultado (inclusive)
+    private Integer to;
+    private List<Integer> occupied; // Slots con plantilla guardada dentro del rango
+}
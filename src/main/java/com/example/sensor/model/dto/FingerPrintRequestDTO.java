@@ -1,10 +1,14 @@
 package com.example.sensor.model.dto;
 
+import lombok.Data;
+
 /**
- * DTO vacío para FingerPrint.
+ * DTO para FingerPrint.
  * Solo se usa para triggear el proceso de enroll vía ESP32.
  * El ESP32 detecta la huella y retorna el ID.
  */
+@Data
 public class FingerPrintRequestDTO {
-    // Empty DTO - solo usado para llamar al ESP32 a enrollar
-}
\ No newline at end of file
+    // Lector donde se enrolla (opcional, por defecto esp32.default-device-id)
+    private String deviceId;
+}
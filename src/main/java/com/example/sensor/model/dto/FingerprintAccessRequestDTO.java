@@ -15,4 +15,5 @@ public class FingerprintAccessRequestDTO {
     private String location;
     private String deviceId;
     private String authenticationMethod; // "FINGERPRINT"
+    private Long sequence; // Secuencia del dispositivo: los reintentos repiten el mismo valor
 }
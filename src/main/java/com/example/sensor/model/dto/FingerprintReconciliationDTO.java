@@ -0,0 +1,27 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FingerprintReconciliationDTO {
+    private String deviceId;
+    private Integer capacity;
+    private Integer nextSlot;               // Primer slot de la próxima ejecución incremental
+    private String lastRange;               // Último rango revisado, ej. "33-64"
+    private LocalDateTime lastRunAt;
+    private String lastError;
+    private Boolean repairEnabled;
+    private List<Integer> sensorOrphans;    // Plantillas en el sensor sin huella activa en la BD
+    private List<Integer> databaseOrphans;  // Huellas activas en la BD sin plantilla en el sensor
+    private Long repairedSensor;            // Plantillas huérfanas borradas del sensor
+    private Long repairedDatabase;          // Huellas desactivadas por no tener plantilla
+}
@@ -0,0 +1,34 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponseDTO<T> {
+    private List<T> items;
+    private Integer page; // Empieza en 0
+    private Integer size;
+    private Long totalElements;
+    private Integer totalPages;
+    private Boolean hasMore;
+
+    public static <E, T> PageResponseDTO<T> from(Page<E> page, Function<E, T> mapper) {
+        return PageResponseDTO.<T>builder()
+                .items(page.getContent().stream().map(mapper).toList())
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .hasMore(page.hasNext())
+                .build();
+    }
+}
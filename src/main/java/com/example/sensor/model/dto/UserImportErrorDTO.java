@@ -0,0 +1,17 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportErrorDTO {
+    // Línea del archivo (la cabecera es la línea 1)
+    private Long line;
+    private String numeroDocumento;
+    private String error;
+}
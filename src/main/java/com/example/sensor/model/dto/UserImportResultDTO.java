@@ -0,0 +1,25 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDTO {
+    private Long received;
+    private Long imported;
+    private Long rejected;
+    private Long cardsLinked;
+    private Long fingerprintsLinked;
+    private Long durationMs;
+
+    // Solo los primeros users.import.max-reported-errors; errorsTruncated indica que hubo más
+    private List<UserImportErrorDTO> errors;
+    private Boolean errorsTruncated;
+}
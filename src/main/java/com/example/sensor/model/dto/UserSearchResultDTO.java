@@ -0,0 +1,20 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchResultDTO {
+    private Integer id;
+    private String fullName;
+    private String tipoDocumento;
+    private String numeroDocumento;
+    private String cargo;
+    private String areaDepartamento;
+    private Integer score; // Mayor es mejor: palabra exacta > prefijo > con un error de tipeo
+}
@@ -0,0 +1,21 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkSessionDTO {
+    private LocalDateTime entry;
+    private LocalDateTime exit;
+    private String entryLocation;
+    private String exitLocation;
+    private Long minutes;
+    private String status;
+}
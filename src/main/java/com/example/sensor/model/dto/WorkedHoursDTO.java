@@ -0,0 +1,28 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkedHoursDTO {
+    private Integer userId;
+    private String personName;
+    private LocalDate from;
+    private LocalDate to;
+    private Long totalMinutes;
+    private Double totalHours;
+    private Integer daysWorked;
+    private Integer completeSessions;
+    private Integer missingExits;
+    private Integer openSessions;
+    // Solo en la consulta de un usuario
+    private List<WorkSessionDTO> sessions;
+}
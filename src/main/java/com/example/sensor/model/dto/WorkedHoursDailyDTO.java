@@ -0,0 +1,21 @@
+package com.example.sensor.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkedHoursDailyDTO {
+    private Integer userId;
+    private String personName;
+    private LocalDate day;
+    private Integer minutes;
+    private Integer sessions;
+    private Integer missingExits;
+}
@@ -4,8 +4,6 @@ import java.time.LocalDateTime;
 import com.example.sensor.model.enums.AccessType;
 import com.example.sensor.model.enums.AuthenticationMethod;
 
-import org.hibernate.annotations.CreationTimestamp;
-
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+// Tabla particionada por mes: índices y unicidad (dispositivo, secuencia) se definen en db/migration
 @Table(name = "access_logs")
 @Data
 @Builder
@@ -20,8 +19,10 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 
 public class AccessLog {
+    // Secuencia con optimizador pooled: los IDs se asignan en memoria y permiten INSERT en lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "access_logs_seq")
+    @SequenceGenerator(name = "access_logs_seq", sequenceName = "access_logs_seq", allocationSize = 50)
     @Column(name = "access_id_int")
     private Integer id;
 
@@ -32,7 +33,7 @@ public class AccessLog {
     @Column(name = "access_authorized_bol", nullable = false)
     private Boolean authorized;
 
-    @CreationTimestamp
+    // Se asigna al momento de la decisión, no al de la escritura diferida
     @Column(name = "access_time_dt", nullable = false)
     private LocalDateTime accessTime;
 
@@ -42,6 +43,10 @@ public class AccessLog {
     @Column(name = "access_device_id_vac")
     private String deviceId;
 
+    // Secuencia del evento en el dispositivo (solo eventos subidos en lote tras estar offline)
+    @Column(name = "access_device_seq_bint")
+    private Long deviceSequence;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "authentication_method_vac", nullable = false)
     private AuthenticationMethod authenticationMethod;
@@ -56,4 +61,11 @@ public class AccessLog {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fprint_id_int", nullable = true)
     private FingerPrint fingerPrint;
+
+    @PrePersist
+    void prePersist() {
+        if (accessTime == null) {
+            accessTime = LocalDateTime.now();
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.sensor.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de asistencia por usuario, día y ubicación.
+ * Lo mantiene AttendanceRollupService a partir de access_logs; no se edita a mano.
+ */
+@Entity
+@Table(name = "attendance_daily")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceDaily {
+    @EmbeddedId
+    private AttendanceDailyId id;
+
+    @Column(name = "att_first_entry_dt")
+    private LocalDateTime firstEntry;
+
+    @Column(name = "att_last_exit_dt")
+    private LocalDateTime lastExit;
+
+    @Column(name = "att_tap_count_int", nullable = false)
+    private Integer tapCount;
+
+    @Column(name = "att_denied_count_int", nullable = false)
+    private Integer deniedCount;
+
+    @Column(name = "att_upd_dt", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.example.sensor.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceDailyId implements Serializable {
+    @Column(name = "att_usr_id_int", nullable = false)
+    private Integer userId;
+
+    @Column(name = "att_day_dt", nullable = false)
+    private LocalDate day;
+
+    // '' cuando el acceso no indicó ubicación
+    @Column(name = "att_location_vac", nullable = false)
+    private String location;
+}
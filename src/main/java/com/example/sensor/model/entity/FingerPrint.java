@@ -1,5 +1,6 @@
 package com.example.sensor.model.entity;
 
+import com.example.sensor.model.enums.AccessType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -33,6 +34,14 @@ public class FingerPrint {
     @Column(name = "fprint_upd_dt")
     private LocalDateTime updatedAt;
 
+    // Estado de presencia desnormalizado: último tipo de acceso registrado con esta huella
+    @Enumerated(EnumType.STRING)
+    @Column(name = "fprint_last_access_type_enum")
+    private AccessType lastAccessType;
+
+    @Column(name = "fprint_last_access_dt")
+    private LocalDateTime lastAccessTime;
+
     @OneToOne
     @JoinColumn(name = "usr_id_int", nullable = true, unique = true)
     private User user;
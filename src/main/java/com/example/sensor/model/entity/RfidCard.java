@@ -3,6 +3,7 @@ package com.example.sensor.model.entity;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.example.sensor.model.enums.AccessType;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -43,6 +44,14 @@ public class RfidCard {
     @Column(name = "rfid_upd_dt")
     private LocalDateTime updatedAt;
 
+    // Estado de presencia desnormalizado: último tipo de acceso registrado con esta tarjeta
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rfid_last_access_type_enum")
+    private AccessType lastAccessType;
+
+    @Column(name = "rfid_last_access_dt")
+    private LocalDateTime lastAccessTime;
+
     @OneToMany(mappedBy = "rfidCard", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     private List<AccessLog> accessLogs;
 
@@ -0,0 +1,36 @@
+package com.example.sensor.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Horas trabajadas por usuario y día (día de la entrada).
+ * Lo recalcula WorkedHoursService en segundo plano a partir de access_logs.
+ */
+@Entity
+@Table(name = "worked_hours_daily")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkedHoursDaily {
+    @EmbeddedId
+    private WorkedHoursDailyId id;
+
+    @Column(name = "wh_minutes_int", nullable = false)
+    private Integer minutes;
+
+    @Column(name = "wh_sessions_int", nullable = false)
+    private Integer sessions;
+
+    @Column(name = "wh_missing_exits_int", nullable = false)
+    private Integer missingExits;
+
+    @Column(name = "wh_upd_dt", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,22 @@
+package com.example.sensor.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkedHoursDailyId implements Serializable {
+    @Column(name = "wh_usr_id_int", nullable = false)
+    private Integer userId;
+
+    @Column(name = "wh_day_dt", nullable = false)
+    private LocalDate day;
+}
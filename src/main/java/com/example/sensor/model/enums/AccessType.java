@@ -2,5 +2,12 @@ package com.example.sensor.model.enums;
 
 public enum  AccessType {
     ENTRADA, 
-    SALIDA
+    SALIDA;
+
+    /**
+     * Tipo que corresponde después del último acceso (ENTRADA si no hay previo)
+     */
+    public static AccessType after(AccessType last) {
+        return last == ENTRADA ? SALIDA : ENTRADA;
+    }
 }
@@ -0,0 +1,10 @@
+package com.example.sensor.model.enums;
+
+public enum WorkSessionStatus {
+    // Entrada y salida emparejadas
+    COMPLETE,
+    // Entrada sin salida dentro del máximo de jornada: no suma horas
+    MISSING_EXIT,
+    // Entrada reciente que aún puede cerrarse
+    OPEN
+}
@@ -0,0 +1,251 @@
+package com.example.sensor.pipeline;
+
+import com.example.sensor.config.AccessStreamConfig;
+import com.example.sensor.model.dto.AccessStreamEventDTO;
+import com.example.sensor.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Difusión en tiempo real de las decisiones de acceso (SSE).
+ *
+ * <p>Cada decisión se publica una sola vez en un buffer circular con ID creciente y
+ * se reparte a los suscriptores sin tocar la BD. Cada suscriptor tiene su propia
+ * cola acotada que se envía desde el executor de la aplicación: un cliente lento
+ * nunca bloquea la decisión ni a los demás; si su cola se llena se descarta lo
+ * pendiente y recibe un evento "reset" para que recargue por REST.
+ * Con Last-Event-ID se reenvían los eventos que sigan en el buffer.
+ */
+@Component
+@Slf4j
+public class AccessEventBroadcaster {
+
+    private static final Object RESET = new Object();
+    private static final Object HEARTBEAT = new Object();
+
+    private final AccessStreamConfig config;
+    private final AsyncTaskExecutor executor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AccessStreamEventDTO[] ring;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private long nextId = 1;
+    private volatile long lastId;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    public AccessEventBroadcaster(AccessStreamConfig config, AsyncTaskExecutor applicationTaskExecutor) {
+        this.config = config;
+        this.executor = applicationTaskExecutor;
+        this.ring = new AccessStreamEventDTO[config.getBufferSize()];
+    }
+
+    /**
+     * Publica la decisión cuando su transacción confirma
+     */
+    public void publish(AccessStreamEventDTO event) {
+        TransactionUtils.afterCommit(() -> broadcast(event));
+    }
+
+    private void broadcast(AccessStreamEventDTO event) {
+        lock.lock();
+        try {
+            event.setId(nextId);
+            ring[(int) (nextId % ring.length)] = event;
+            lastId = nextId++;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+        published.increment();
+    }
+
+    /**
+     * Nueva suscripción filtrada; si trae lastEventId se reenvía lo que siga en el buffer
+     */
+    public SseEmitter subscribe(String location, String deviceId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(config.getTimeoutMs());
+        Subscriber subscriber = new Subscriber(emitter, blankToNull(location), blankToNull(deviceId));
+
+        lock.lock();
+        try {
+            if (subscribers.size() >= config.getMaxSubscribers()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Límite de suscriptores alcanzado");
+            }
+            replay(subscriber, lastEventId);
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        log.info("Suscriptor SSE conectado (ubicación: {}, dispositivo: {}, desde: {})",
+                location, deviceId, lastEventId);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        lock.lock();
+        try {
+            return subscribers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getResetCount() {
+        return resets.sum();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", getSubscriberCount());
+        stats.put("maxSubscribers", config.getMaxSubscribers());
+        stats.put("published", published.sum());
+        stats.put("lastEventId", lastId);
+        stats.put("bufferSize", ring.length);
+        stats.put("resets", resets.sum());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${access-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        lock.lock();
+        try {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(HEARTBEAT);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Se llama con el lock tomado, antes de registrar al suscriptor
+    private void replay(Subscriber subscriber, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return;
+        }
+        long from;
+        try {
+            from = Long.parseLong(lastEventId.trim()) + 1;
+        } catch (NumberFormatException e) {
+            subscriber.enqueue(RESET);
+            return;
+        }
+        long oldest = Math.max(1, nextId - ring.length);
+        if (from < oldest || from > nextId) {
+            // El cliente perdió eventos que ya salieron del buffer (o viene de otra instancia)
+            subscriber.enqueue(RESET);
+            return;
+        }
+        for (long id = from; id < nextId; id++) {
+            subscriber.offer(ring[(int) (id % ring.length)]);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        lock.lock();
+        try {
+            subscribers.remove(subscriber);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private class Subscriber {
+        final SseEmitter emitter;
+        final String location;
+        final String deviceId;
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(config.getSubscriberQueue());
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, String location, String deviceId) {
+            this.emitter = emitter;
+            this.location = location;
+            this.deviceId = deviceId;
+        }
+
+        void offer(AccessStreamEventDTO event) {
+            if ((location == null || location.equals(event.getLocation()))
+                    && (deviceId == null || deviceId.equals(event.getDeviceId()))) {
+                enqueue(event);
+            }
+        }
+
+        void enqueue(Object item) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(item)) {
+                // Cliente demasiado lento: se descarta lo pendiente y se le pide recargar
+                queue.clear();
+                queue.offer(RESET);
+                resets.increment();
+            }
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                Object item;
+                while (!closed && (item = queue.poll()) != null) {
+                    send(item);
+                }
+            } catch (Exception e) {
+                log.debug("Suscriptor SSE desconectado: {}", e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            // Un evento pudo llegar entre el último poll y liberar la marca
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void send(Object item) throws Exception {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } else if (item == RESET) {
+                emitter.send(SseEmitter.event().id(String.valueOf(lastId)).name("reset").data("lagged"));
+            } else {
+                AccessStreamEventDTO event = (AccessStreamEventDTO) item;
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.getId()))
+                        .name("access")
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.sensor.pipeline;
+
+import com.example.sensor.config.AccessLogPartitionConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantiene creadas por adelantado las particiones mensuales de access_logs,
+ * para que los INSERT del mes siguiente nunca caigan en la partición por defecto.
+ * La lógica de creación vive en la función ensure_access_logs_partitions (migración V2).
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AccessLogPartitionMaintainer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccessLogPartitionConfig config;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensurePartitions();
+    }
+
+    @Scheduled(cron = "${access-log.partitions.cron:0 15 3 * * *}")
+    public void ensurePartitions() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            Integer created = jdbcTemplate.queryForObject("SELECT ensure_access_logs_partitions(?)",
+                    Integer.class, config.getMonthsAhead());
+            if (created != null && created > 0) {
+                log.info("Creadas {} particiones nuevas de access_logs", created);
+            }
+        } catch (Exception e) {
+            log.error("No se pudieron crear las particiones de access_logs: {}", e.getMessage());
+        }
+    }
+}
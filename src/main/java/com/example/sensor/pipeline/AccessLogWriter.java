@@ -0,0 +1,221 @@
+package com.example.sensor.pipeline;
+
+import com.example.sensor.config.AccessLogWriterConfig;
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.repository.AccessLogRepository;
+import com.example.sensor.service.AttendanceRollupService;
+import com.example.sensor.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escritura diferida (write-behind) de AccessLog.
+ * La decisión de acceso encola el registro y responde al ESP32 de inmediato;
+ * un hilo dedicado lo persiste en lotes multi-fila. Si la cola está llena
+ * se aplica contrapresión guardando el registro de forma síncrona.
+ */
+@Component
+@Slf4j
+public class AccessLogWriter implements SmartLifecycle {
+
+    private final AccessLogRepository logRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AccessLogWriterConfig config;
+    private final AttendanceRollupService rollupService;
+    private final BlockingQueue<AccessLog> queue;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong syncFallbacks = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AccessLogWriter(AccessLogRepository logRepository,
+                           PlatformTransactionManager transactionManager,
+                           AccessLogWriterConfig config,
+                           AttendanceRollupService rollupService) {
+        this.logRepository = logRepository;
+        // Transacción propia: el guardado síncrono corre en afterCommit de la decisión, cuya
+        // transacción ya confirmó; con REQUIRED se uniría a ella y el INSERT nunca se confirmaría
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.config = config;
+        this.rollupService = rollupService;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+    }
+
+    /**
+     * Encola el registro cuando la transacción de la decisión confirma
+     */
+    public void submit(AccessLog accessLog) {
+        TransactionUtils.afterCommit(() -> enqueue(accessLog));
+    }
+
+    private void enqueue(AccessLog accessLog) {
+        if (running && config.isEnabled()) {
+            try {
+                if (queue.offer(accessLog, config.getEnqueueTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    enqueued.incrementAndGet();
+                    return;
+                }
+                log.warn("Cola de registros de acceso llena ({}), guardando de forma síncrona", queue.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        syncFallbacks.incrementAndGet();
+        writeBatch(List.of(accessLog));
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return config.getQueueCapacity();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getSyncFallbackCount() {
+        return syncFallbacks.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", config.getQueueCapacity());
+        stats.put("enqueued", enqueued.get());
+        stats.put("written", written.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        stats.put("syncFallbacks", syncFallbacks.get());
+        stats.put("lastFlushMillis", lastFlushMillis);
+        return stats;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "access-log-writer");
+        worker.start();
+        log.info("Escritor diferido de accesos iniciado (lote {}, cola {})",
+                config.getBatchSize(), config.getQueueCapacity());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        try {
+            worker.join(config.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Apagado con {} registros de acceso sin persistir", queue.size());
+        } else {
+            log.info("Cola de registros de acceso vaciada correctamente");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Se detiene después del servidor web para vaciar lo que quede en cola
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<AccessLog> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                AccessLog first = queue.poll(config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.getBatchSize() - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Error inesperado en el escritor de accesos", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<AccessLog> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> logRepository.saveAll(batch));
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+            updateRollup(batch);
+        } catch (Exception e) {
+            log.error("Error guardando lote de {} accesos, reintentando uno por uno: {}",
+                    batch.size(), e.getMessage());
+            // Aislar el registro problemático para no perder el resto del lote
+            List<AccessLog> saved = new ArrayList<>(batch.size());
+            for (AccessLog accessLog : batch) {
+                try {
+                    accessLog.setId(null);
+                    transactionTemplate.executeWithoutResult(status -> logRepository.save(accessLog));
+                    written.incrementAndGet();
+                    saved.add(accessLog);
+                } catch (Exception ex) {
+                    failed.incrementAndGet();
+                    log.error("Registro de acceso descartado ({}): {}", accessLog.getAccessTime(), ex.getMessage());
+                }
+            }
+            updateRollup(saved);
+        }
+        lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * El resumen diario es derivado: si falla se registra y lo corrige el recálculo nocturno
+     */
+    private void updateRollup(List<AccessLog> saved) {
+        try {
+            rollupService.accumulate(saved);
+        } catch (Exception e) {
+            log.warn("No se pudo actualizar el resumen de asistencia ({} accesos): {}", saved.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.sensor.pipeline;
+
+import com.example.sensor.config.AccessDedupeConfig;
+import com.example.sensor.exceptions.AccessRequestInProgressException;
+import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Idempotencia de los POST de acceso que el firmware reintenta.
+ *
+ * <p>El dispositivo manda deviceId + sequence; la primera petición con esa clave decide
+ * (alterna ENTRADA/SALIDA y encola el AccessLog) y las repeticiones dentro de
+ * access.dedupe.window-seconds reciben la misma respuesta desde memoria, sin consultas
+ * ni INSERT. Un reintento que llega mientras la original sigue en curso espera su
+ * resultado en lugar de decidir por segunda vez. Si la decisión falla la clave se
+ * libera, así el siguiente reintento vuelve a intentarlo.
+ *
+ * <p>Las entradas se guardan en orden de llegada: se vencen por tiempo desde la más
+ * antigua y, si se supera access.dedupe.max-entries, se descartan las más antiguas.
+ * Las peticiones sin sequence se deciden siempre.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AccessRequestDeduplicator {
+
+    private final AccessDedupeConfig config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    private record Key(String deviceId, long sequence) {
+    }
+
+    private static final class Entry {
+        final CompletableFuture<AccessRegisterResponseDTO> response = new CompletableFuture<>();
+        final long createdNanos = System.nanoTime();
+    }
+
+    public AccessRegisterResponseDTO execute(String deviceId, Long sequence,
+                                             Supplier<AccessRegisterResponseDTO> decision) {
+        if (!config.isEnabled() || deviceId == null || deviceId.isBlank() || sequence == null) {
+            return decision.get();
+        }
+        Key key = new Key(deviceId, sequence);
+        Entry entry;
+        boolean duplicate;
+        lock.lock();
+        try {
+            evictExpired();
+            entry = entries.get(key);
+            duplicate = entry != null;
+            if (!duplicate) {
+                entry = new Entry();
+                entries.put(key, entry);
+                evictOverflow();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (duplicate) {
+            hits.increment();
+            log.info("Acceso repetido de {} (secuencia {}): se devuelve la respuesta original", deviceId, sequence);
+            return await(key, entry);
+        }
+        try {
+            AccessRegisterResponseDTO response = decision.get();
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            remove(key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int getSize() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    private AccessRegisterResponseDTO await(Key key, Entry entry) {
+        try {
+            return entry.response.get(config.getInFlightWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AccessRequestInProgressException(key.deviceId(), key.sequence());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccessRequestInProgressException(key.deviceId(), key.sequence());
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        lock.lock();
+        try {
+            entries.remove(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictExpired() {
+        long windowNanos = TimeUnit.SECONDS.toNanos(config.getWindowSeconds());
+        long now = System.nanoTime();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().createdNanos < windowNanos) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > config.getMaxEntries() && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evicted.increment();
+        }
+    }
+}
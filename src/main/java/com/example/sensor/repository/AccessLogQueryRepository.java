@@ -0,0 +1,19 @@
+package com.example.sensor.repository;
+
+import com.example.sensor.model.dto.AccessLogExportRow;
+import com.example.sensor.model.dto.AccessLogFilterDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Consultas dinámicas sobre access_logs que no se expresan con métodos derivados
+ */
+public interface AccessLogQueryRepository {
+
+    /**
+     * Página de accesos ordenada por (accessTime, id) descendente.
+     * Si afterTime/afterId no son null se devuelven solo las filas anteriores a esa posición (keyset).
+     */
+    List<AccessLogExportRow> searchPage(AccessLogFilterDTO filter, LocalDateTime afterTime, Integer afterId, int limit);
+}
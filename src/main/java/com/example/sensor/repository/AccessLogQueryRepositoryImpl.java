@@ -0,0 +1,103 @@
+package com.example.sensor.repository;
+
+import com.example.sensor.model.dto.AccessLogExportRow;
+import com.example.sensor.model.dto.AccessLogFilterDTO;
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arma solo los predicados de los filtros presentes, así PostgreSQL planifica
+ * cada combinación con el índice compuesto (columna, access_time_dt, access_id_int)
+ * que corresponde en lugar de un plan genérico con "(:x IS NULL OR ...)".
+ */
+public class AccessLogQueryRepositoryImpl implements AccessLogQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AccessLogExportRow> searchPage(AccessLogFilterDTO filter, LocalDateTime afterTime,
+                                               Integer afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AccessLogExportRow> query = cb.createQuery(AccessLogExportRow.class);
+        Root<AccessLog> a = query.from(AccessLog.class);
+        Join<AccessLog, RfidCard> card = a.join("rfidCard", JoinType.LEFT);
+        Join<RfidCard, User> cardUser = card.join("user", JoinType.LEFT);
+        Join<AccessLog, FingerPrint> fingerprint = a.join("fingerPrint", JoinType.LEFT);
+        Join<FingerPrint, User> fingerprintUser = fingerprint.join("user", JoinType.LEFT);
+
+        query.select(cb.construct(AccessLogExportRow.class,
+                a.get("id"), a.get("accessTime"), a.get("accessType"), a.get("authenticationMethod"),
+                a.get("authorized"),
+                cb.coalesce(cardUser.<String>get("nombres"), fingerprintUser.<String>get("nombres")),
+                cb.coalesce(cardUser.<String>get("apellidoPaterno"), fingerprintUser.<String>get("apellidoPaterno")),
+                cb.coalesce(cardUser.<String>get("cargo"), fingerprintUser.<String>get("cargo")),
+                card.get("id"), card.get("cardUid"), fingerprint.get("fingerprintId"),
+                a.get("location"), a.get("deviceId"), a.get("notes")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getStart() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(a.get("accessTime"), filter.getStart()));
+        }
+        if (filter.getEnd() != null) {
+            predicates.add(cb.lessThanOrEqualTo(a.get("accessTime"), filter.getEnd()));
+        }
+        if (filter.getUserId() != null) {
+            // Por las credenciales del usuario, para usar los índices de rfid_id_int / fprint_id_int
+            Subquery<Integer> cardIds = query.subquery(Integer.class);
+            Root<RfidCard> userCard = cardIds.from(RfidCard.class);
+            cardIds.select(userCard.get("id")).where(cb.equal(userCard.get("user").get("id"), filter.getUserId()));
+
+            Subquery<Integer> fingerprintIds = query.subquery(Integer.class);
+            Root<FingerPrint> userFingerprint = fingerprintIds.from(FingerPrint.class);
+            fingerprintIds.select(userFingerprint.get("fingerprintId"))
+                    .where(cb.equal(userFingerprint.get("user").get("id"), filter.getUserId()));
+
+            predicates.add(cb.or(
+                    a.get("rfidCard").get("id").in(cardIds),
+                    a.get("fingerPrint").get("fingerprintId").in(fingerprintIds)));
+        }
+        if (filter.getAuthenticationMethod() != null) {
+            predicates.add(cb.equal(a.get("authenticationMethod"), filter.getAuthenticationMethod()));
+        }
+        if (filter.getAuthorized() != null) {
+            predicates.add(cb.equal(a.get("authorized"), filter.getAuthorized()));
+        }
+        if (filter.getLocation() != null && !filter.getLocation().isBlank()) {
+            predicates.add(cb.equal(a.get("location"), filter.getLocation()));
+        }
+        if (filter.getDeviceId() != null && !filter.getDeviceId().isBlank()) {
+            predicates.add(cb.equal(a.get("deviceId"), filter.getDeviceId()));
+        }
+        if (filter.getAccessType() != null) {
+            predicates.add(cb.equal(a.get("accessType"), filter.getAccessType()));
+        }
+        if (afterTime != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(a.get("accessTime"), afterTime),
+                    cb.and(cb.equal(a.get("accessTime"), afterTime), cb.lessThan(a.get("id"), afterId))));
+        }
+
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(a.get("accessTime")), cb.desc(a.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
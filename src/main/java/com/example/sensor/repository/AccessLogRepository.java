@@ -1,23 +1,103 @@
 package com.example.sensor.repository;
 
+import com.example.sensor.model.dto.AccessLogExportRow;
 import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.worktime.WorkTap;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AccessLogRepository extends JpaRepository<AccessLog, Integer> {
+public interface AccessLogRepository extends JpaRepository<AccessLog, Integer>, AccessLogQueryRepository {
     List<AccessLog> findByRfidCard_CardUidOrderByAccessTimeDesc(String cardUid);
 
     List<AccessLog> findByAccessTimeBetween(LocalDateTime start, LocalDateTime end);
 
-    @Query("SELECT a FROM AccessLog a WHERE a.rfidCard.id = :cardId ORDER BY a.accessTime DESC LIMIT 1")
-    Optional<AccessLog> findLastAccessByCard(@Param("cardId") Integer cardId);
+    /**
+     * Filas de exportación leídas con cursor: persona, tarjeta y huella se resuelven por JOIN
+     * en la misma consulta y el driver trae las filas por bloques de fetch size.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.sensor.model.dto.AccessLogExportRow(a.id, a.accessTime, a.accessType, " +
+            "a.authenticationMethod, a.authorized, " +
+            "COALESCE(cu.nombres, fu.nombres), COALESCE(cu.apellidoPaterno, fu.apellidoPaterno), " +
+            "COALESCE(cu.cargo, fu.cargo), c.id, c.cardUid, f.fingerprintId, a.location, a.deviceId, a.notes) " +
+            "FROM AccessLog a LEFT JOIN a.rfidCard c LEFT JOIN c.user cu " +
+            "LEFT JOIN a.fingerPrint f LEFT JOIN f.user fu " +
+            "WHERE a.accessTime BETWEEN :start AND :end ORDER BY a.accessTime, a.id")
+    Stream<AccessLogExportRow> streamExportRows(@Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end);
 
-    @Query("SELECT a FROM AccessLog a WHERE a.fingerPrint.fingerprintId = :fingerprintId ORDER BY a.accessTime DESC LIMIT 1")
-    Optional<AccessLog> findLastAccessByFingerprint(@Param("fingerprintId") Integer fingerprintId);
+    String WORK_TAP_SELECT = "SELECT new com.example.sensor.worktime.WorkTap(COALESCE(cu.id, fu.id), " +
+            "COALESCE(cu.nombres, fu.nombres), COALESCE(cu.apellidoPaterno, fu.apellidoPaterno), " +
+            "a.accessTime, a.accessType, a.location) " +
+            "FROM AccessLog a LEFT JOIN a.rfidCard c LEFT JOIN c.user cu " +
+            "LEFT JOIN a.fingerPrint f LEFT JOIN f.user fu " +
+            "WHERE a.authorized = true AND a.accessTime >= :from AND a.accessTime < :to ";
+
+    /**
+     * Marcaciones autorizadas de todos los usuarios (tarjeta y huella unificadas),
+     * ordenadas por usuario y hora para emparejarlas en una sola pasada
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(WORK_TAP_SELECT + "AND COALESCE(cu.id, fu.id) IS NOT NULL " +
+            "ORDER BY COALESCE(cu.id, fu.id), a.accessTime, a.id")
+    Stream<WorkTap> streamWorkTaps(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(WORK_TAP_SELECT + "AND (a.rfidCard.id IN (SELECT rc.id FROM RfidCard rc WHERE rc.user.id = :userId) " +
+            "OR a.fingerPrint.fingerprintId IN (SELECT fp.fingerprintId FROM FingerPrint fp WHERE fp.user.id = :userId)) " +
+            "ORDER BY a.accessTime, a.id")
+    Stream<WorkTap> streamWorkTapsByUser(@Param("userId") Integer userId,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to);
+
+    /**
+     * Tipo del último acceso de la tarjeta anterior a una hora dada, para eventos offline que llegan
+     * después de accesos más nuevos. Usa idx_access_logs_card_time
+     */
+    @Query(value = "SELECT access_type_enum FROM access_logs WHERE rfid_id_int = :cardId AND access_time_dt < :before " +
+            "ORDER BY access_time_dt DESC, access_id_int DESC LIMIT 1", nativeQuery = true)
+    String findCardAccessTypeBefore(@Param("cardId") Integer cardId, @Param("before") LocalDateTime before);
+
+    @Query(value = "SELECT access_type_enum FROM access_logs WHERE fprint_id_int = :fingerprintId " +
+            "AND access_time_dt < :before ORDER BY access_time_dt DESC, access_id_int DESC LIMIT 1", nativeQuery = true)
+    String findFingerprintAccessTypeBefore(@Param("fingerprintId") Integer fingerprintId,
+                                           @Param("before") LocalDateTime before);
+
+    /**
+     * Secuencias ya confirmadas del dispositivo. Se leen de access_log_device_sequences (la alimenta
+     * el trigger de access_logs y su PK es justo (dispositivo, secuencia)) en lugar de recorrer todas
+     * las particiones de access_logs, que no tienen índice por dispositivo
+     */
+    @Query(value = "SELECT access_device_seq_bint FROM access_log_device_sequences " +
+            "WHERE access_device_id_vac = :deviceId AND access_device_seq_bint IN (:sequences)", nativeQuery = true)
+    List<Long> findExistingDeviceSequences(@Param("deviceId") String deviceId,
+                                           @Param("sequences") Collection<Long> sequences);
+
+    @Query(value = "SELECT MAX(access_device_seq_bint) FROM access_log_device_sequences " +
+            "WHERE access_device_id_vac = :deviceId", nativeQuery = true)
+    Long findMaxDeviceSequence(@Param("deviceId") String deviceId);
+
+    /**
+     * Serializa hasta el fin de la transacción las cargas offline de un mismo dispositivo. Sin esto,
+     * dos subidas simultáneas del mismo buffer pasan ambas la consulta de duplicados y la segunda
+     * falla al confirmar contra access_log_device_sequences, aunque sus eventos ya estén guardados
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('access_batch:' || :deviceId))", nativeQuery = true)
+    Integer lockDeviceBatches(@Param("deviceId") String deviceId);
 
     @Query("SELECT COUNT(a) FROM AccessLog a WHERE a.authorized = true")
     Long countAuthorizedAccesses();
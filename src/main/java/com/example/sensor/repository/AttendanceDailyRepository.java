@@ -0,0 +1,95 @@
+package com.example.sensor.repository;
+
+import com.example.sensor.model.dto.AttendanceDailyDTO;
+import com.example.sensor.model.entity.AttendanceDaily;
+import com.example.sensor.model.entity.AttendanceDailyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface AttendanceDailyRepository extends JpaRepository<AttendanceDaily, AttendanceDailyId> {
+
+    String ROLLUP_SELECT = "SELECT COALESCE(c.usr_id_int, f.usr_id_int), CAST(a.access_time_dt AS date), " +
+            "COALESCE(a.access_location_vac, ''), " +
+            "MIN(a.access_time_dt) FILTER (WHERE a.access_authorized_bol AND a.access_type_enum = 'ENTRADA'), " +
+            "MAX(a.access_time_dt) FILTER (WHERE a.access_authorized_bol AND a.access_type_enum = 'SALIDA'), " +
+            "COUNT(*) FILTER (WHERE a.access_authorized_bol), " +
+            "COUNT(*) FILTER (WHERE NOT a.access_authorized_bol), now() " +
+            "FROM access_logs a " +
+            "LEFT JOIN rfid_cards c ON c.rfid_id_int = a.rfid_id_int " +
+            "LEFT JOIN fingerprints f ON f.fprint_id_int = a.fprint_id_int ";
+
+    String ROLLUP_INSERT = "INSERT INTO attendance_daily (att_usr_id_int, att_day_dt, att_location_vac, " +
+            "att_first_entry_dt, att_last_exit_dt, att_tap_count_int, att_denied_count_int, att_upd_dt) ";
+
+    /**
+     * Suma al resumen los accesos indicados (recién insertados).
+     * El rango de tiempo solo sirve para que PostgreSQL descarte particiones.
+     */
+    @Modifying
+    @Query(value = ROLLUP_INSERT + ROLLUP_SELECT +
+            "WHERE a.access_id_int IN (:ids) AND a.access_time_dt BETWEEN :from AND :to " +
+            "AND COALESCE(c.usr_id_int, f.usr_id_int) IS NOT NULL " +
+            "GROUP BY 1, 2, 3 " +
+            "ON CONFLICT (att_usr_id_int, att_day_dt, att_location_vac) DO UPDATE SET " +
+            "att_first_entry_dt = LEAST(attendance_daily.att_first_entry_dt, EXCLUDED.att_first_entry_dt), " +
+            "att_last_exit_dt = GREATEST(attendance_daily.att_last_exit_dt, EXCLUDED.att_last_exit_dt), " +
+            "att_tap_count_int = attendance_daily.att_tap_count_int + EXCLUDED.att_tap_count_int, " +
+            "att_denied_count_int = attendance_daily.att_denied_count_int + EXCLUDED.att_denied_count_int, " +
+            "att_upd_dt = now()", nativeQuery = true)
+    int accumulate(@Param("ids") Collection<Integer> ids,
+                   @Param("from") LocalDateTime from,
+                   @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query(value = "DELETE FROM attendance_daily WHERE att_day_dt BETWEEN :fromDay AND :toDay", nativeQuery = true)
+    int deleteDays(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+    /**
+     * Recalcula desde access_logs los días del rango [from, to)
+     */
+    @Modifying
+    @Query(value = ROLLUP_INSERT + ROLLUP_SELECT +
+            "WHERE a.access_time_dt >= :from AND a.access_time_dt < :to " +
+            "AND COALESCE(c.usr_id_int, f.usr_id_int) IS NOT NULL " +
+            "GROUP BY 1, 2, 3 " +
+            "ON CONFLICT (att_usr_id_int, att_day_dt, att_location_vac) DO UPDATE SET " +
+            "att_first_entry_dt = EXCLUDED.att_first_entry_dt, att_last_exit_dt = EXCLUDED.att_last_exit_dt, " +
+            "att_tap_count_int = EXCLUDED.att_tap_count_int, att_denied_count_int = EXCLUDED.att_denied_count_int, " +
+            "att_upd_dt = now()", nativeQuery = true)
+    int rebuild(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    String DTO_SELECT = "SELECT new com.example.sensor.model.dto.AttendanceDailyDTO(a.id.userId, " +
+            "CONCAT(u.nombres, ' ', u.apellidoPaterno), a.id.day, NULLIF(a.id.location, ''), " +
+            "a.firstEntry, a.lastExit, a.tapCount, a.deniedCount) " +
+            "FROM AttendanceDaily a JOIN User u ON u.id = a.id.userId ";
+
+    @Query(DTO_SELECT + "WHERE a.id.day = :day ORDER BY u.apellidoPaterno, u.nombres, a.id.location")
+    List<AttendanceDailyDTO> findByDay(@Param("day") LocalDate day);
+
+    @Query(DTO_SELECT + "WHERE a.id.day = :day AND a.id.location = :location ORDER BY u.apellidoPaterno, u.nombres")
+    List<AttendanceDailyDTO> findByDayAndLocation(@Param("day") LocalDate day, @Param("location") String location);
+
+    @Query(DTO_SELECT + "WHERE a.id.userId = :userId AND a.id.day BETWEEN :from AND :to ORDER BY a.id.day, a.id.location")
+    List<AttendanceDailyDTO> findByUser(@Param("userId") Integer userId,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
+    @Query("SELECT a.id.day AS day, COUNT(DISTINCT a.id.userId) AS presentUsers, " +
+            "SUM(a.tapCount) AS taps, SUM(a.deniedCount) AS denied " +
+            "FROM AttendanceDaily a WHERE a.id.day BETWEEN :from AND :to GROUP BY a.id.day ORDER BY a.id.day")
+    List<DayTotals> summarize(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    interface DayTotals {
+        LocalDate getDay();
+        Long getPresentUsers();
+        Long getTaps();
+        Long getDenied();
+    }
+}
@@ -1,9 +1,19 @@
 package com.example.sensor.repository;
 
+import com.example.sensor.cache.FingerprintCredential;
 import com.example.sensor.model.entity.FingerPrint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,8 +23,62 @@ public interface FingerPrintRepository extends JpaRepository<FingerPrint,Integer
     boolean existsByFingerprintId(Integer fingerprintId);
     List<FingerPrint> findAllByActiveTrue();
 
+    /**
+     * Huellas activas con el usuario y sus credenciales en un solo SELECT (más el COUNT de la página)
+     */
+    @EntityGraph(attributePaths = {"user", "user.fingerPrint", "user.rfidCard"})
+    Page<FingerPrint> findAllByActiveTrue(Pageable pageable);
+    List<FingerPrint> findAllByFingerprintIdBetween(Integer from, Integer to);
+
     @Query("SELECT COALESCE(MAX(f.fingerprintId), 0) FROM FingerPrint f")
     Integer findMaxFingerprintId();
 
     Integer countByActiveTrue();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FingerPrint f WHERE f.fingerprintId IN :fingerprintIds ORDER BY f.fingerprintId")
+    List<FingerPrint> findAllByFingerprintIdInForUpdate(@Param("fingerprintIds") Collection<Integer> fingerprintIds);
+
+    @Query("SELECT new com.example.sensor.cache.FingerprintCredential(f.fingerprintId, f.active, " +
+            "u.id, u.nombres, u.apellidoPaterno, u.cargo) FROM FingerPrint f LEFT JOIN f.user u")
+    List<FingerprintCredential> findAllCredentials();
+
+    /**
+     * Huellas inactivas referenciadas por access_logs: su slot no se puede volver a enrolar sin que
+     * ese historial pase a la nueva persona. Un EXISTS por huella sobre idx_access_logs_fprint_time
+     */
+    @Query(value = "SELECT f.fprint_id_int FROM fingerprints f WHERE f.fprint_estado_bol = false " +
+            "AND EXISTS (SELECT 1 FROM access_logs a WHERE a.fprint_id_int = f.fprint_id_int)", nativeQuery = true)
+    List<Integer> findInactiveIdsWithAccessHistory();
+
+    @Query("SELECT new com.example.sensor.cache.FingerprintCredential(f.fingerprintId, f.active, " +
+            "u.id, u.nombres, u.apellidoPaterno, u.cargo) FROM FingerPrint f LEFT JOIN f.user u " +
+            "WHERE f.fingerprintId IN :fingerprintIds")
+    List<FingerprintCredential> findCredentialsByFingerprintIdIn(
+            @Param("fingerprintIds") Collection<Integer> fingerprintIds);
+
+    /**
+     * Alterna ENTRADA/SALIDA de la huella en un único UPDATE atómico y devuelve el nuevo tipo.
+     * Si la huella aún no tiene estado (filas previas a la columna), se siembra una sola vez
+     * a partir de su último registro en access_logs.
+     */
+    @Query(value = "UPDATE fingerprints f SET fprint_last_access_type_enum = CASE " +
+            "WHEN f.fprint_last_access_type_enum = 'ENTRADA' THEN 'SALIDA' " +
+            "WHEN f.fprint_last_access_type_enum = 'SALIDA' THEN 'ENTRADA' " +
+            "ELSE COALESCE((SELECT CASE WHEN a.access_type_enum = 'ENTRADA' THEN 'SALIDA' ELSE 'ENTRADA' END " +
+            "FROM access_logs a WHERE a.fprint_id_int = f.fprint_id_int " +
+            "ORDER BY a.access_time_dt DESC LIMIT 1), 'ENTRADA') END, " +
+            "fprint_last_access_dt = :accessTime " +
+            "WHERE f.fprint_id_int = :fingerprintId RETURNING f.fprint_last_access_type_enum", nativeQuery = true)
+    String toggleLastAccessType(@Param("fingerprintId") Integer fingerprintId,
+                                @Param("accessTime") LocalDateTime accessTime);
+
+    /**
+     * Fija ENTRADA/SALIDA de la huella en una puerta de sentido fijo
+     */
+    @Modifying
+    @Query(value = "UPDATE fingerprints SET fprint_last_access_type_enum = :accessType, " +
+            "fprint_last_access_dt = :accessTime WHERE fprint_id_int = :fingerprintId", nativeQuery = true)
+    int updateLastAccessType(@Param("fingerprintId") Integer fingerprintId, @Param("accessType") String accessType,
+                             @Param("accessTime") LocalDateTime accessTime);
 }
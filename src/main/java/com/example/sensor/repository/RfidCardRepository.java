@@ -1,8 +1,19 @@
 package com.example.sensor.repository;
 
+import com.example.sensor.cache.CardCredential;
 import com.example.sensor.model.entity.RfidCard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +23,50 @@ public interface RfidCardRepository extends JpaRepository<RfidCard, Integer> {
     boolean existsByCardUid(String cardUid);
     List<RfidCard> findAllByActiveTrue();
     List<RfidCard> findAllByActiveTrueAndAuthorizedTrue();
+
+    /**
+     * Tarjetas activas con el usuario y sus credenciales en un solo SELECT (más el COUNT de la página)
+     */
+    @EntityGraph(attributePaths = {"user", "user.fingerPrint", "user.rfidCard"})
+    Page<RfidCard> findAllByActiveTrue(Pageable pageable);
     
     @Query("SELECT COUNT(c) FROM RfidCard c WHERE c.active = true")
     Long countActiveCards();
-}
\ No newline at end of file
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RfidCard c WHERE c.cardUid IN :cardUids ORDER BY c.id")
+    List<RfidCard> findAllByCardUidInForUpdate(@Param("cardUids") Collection<String> cardUids);
+
+    @Query("SELECT new com.example.sensor.cache.CardCredential(c.id, c.cardUid, c.active, c.authorized, " +
+            "u.id, u.nombres, u.apellidoPaterno, u.cargo) FROM RfidCard c LEFT JOIN c.user u")
+    List<CardCredential> findAllCredentials();
+
+    @Query("SELECT new com.example.sensor.cache.CardCredential(c.id, c.cardUid, c.active, c.authorized, " +
+            "u.id, u.nombres, u.apellidoPaterno, u.cargo) FROM RfidCard c LEFT JOIN c.user u " +
+            "WHERE c.cardUid IN :cardUids")
+    List<CardCredential> findCredentialsByCardUidIn(@Param("cardUids") Collection<String> cardUids);
+
+    /**
+     * Alterna ENTRADA/SALIDA de la tarjeta en un único UPDATE atómico y devuelve el nuevo tipo.
+     * Si la tarjeta aún no tiene estado (filas previas a la columna), se siembra una sola vez
+     * a partir de su último registro en access_logs.
+     */
+    @Query(value = "UPDATE rfid_cards c SET rfid_last_access_type_enum = CASE " +
+            "WHEN c.rfid_last_access_type_enum = 'ENTRADA' THEN 'SALIDA' " +
+            "WHEN c.rfid_last_access_type_enum = 'SALIDA' THEN 'ENTRADA' " +
+            "ELSE COALESCE((SELECT CASE WHEN a.access_type_enum = 'ENTRADA' THEN 'SALIDA' ELSE 'ENTRADA' END " +
+            "FROM access_logs a WHERE a.rfid_id_int = c.rfid_id_int " +
+            "ORDER BY a.access_time_dt DESC LIMIT 1), 'ENTRADA') END, " +
+            "rfid_last_access_dt = :accessTime " +
+            "WHERE c.rfid_id_int = :cardId RETURNING c.rfid_last_access_type_enum", nativeQuery = true)
+    String toggleLastAccessType(@Param("cardId") Integer cardId, @Param("accessTime") LocalDateTime accessTime);
+
+    /**
+     * Fija ENTRADA/SALIDA de la tarjeta en una puerta de sentido fijo
+     */
+    @Modifying
+    @Query(value = "UPDATE rfid_cards SET rfid_last_access_type_enum = :accessType, " +
+            "rfid_last_access_dt = :accessTime WHERE rfid_id_int = :cardId", nativeQuery = true)
+    int updateLastAccessType(@Param("cardId") Integer cardId, @Param("accessType") String accessType,
+                             @Param("accessTime") LocalDateTime accessTime);
+}
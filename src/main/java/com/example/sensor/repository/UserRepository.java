@@ -1,13 +1,44 @@
 package com.example.sensor.repository;
 
+import com.example.sensor.cache.UserSearchEntry;
 import com.example.sensor.model.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByNumeroDocumento(String numeroDocumento);
     boolean existsByNumeroDocumento(String numeroDocumento);
+
+    /**
+     * Usuarios activos con su huella y tarjeta en un solo SELECT (más el COUNT de la página).
+     * Sin el grafo, cada @OneToOne(mappedBy) se cargaría con un SELECT por usuario.
+     */
+    @EntityGraph(attributePaths = {"fingerPrint", "rfidCard"})
+    Page<User> findAllByActiveTrue(Pageable pageable);
+
+    @Query("SELECT new com.example.sensor.cache.UserSearchEntry(u.id, u.nombres, u.apellidoPaterno, " +
+            "u.apellidoMaterno, u.tipoDocumento, u.numeroDocumento, u.cargo, u.areaDepartamento) " +
+            "FROM User u WHERE u.active = true")
+    List<UserSearchEntry> findAllSearchEntries();
+
+    @Query("SELECT new com.example.sensor.cache.UserSearchEntry(u.id, u.nombres, u.apellidoPaterno, " +
+            "u.apellidoMaterno, u.tipoDocumento, u.numeroDocumento, u.cargo, u.areaDepartamento) " +
+            "FROM User u WHERE u.numeroDocumento IN :numerosDocumento AND u.active = true")
+    List<UserSearchEntry> findSearchEntriesByNumeroDocumentoIn(
+            @Param("numerosDocumento") Collection<String> numerosDocumento);
+
+    // Documentos ya registrados (activos o dados de baja) de un bloque de importación
+    @Query("SELECT u.numeroDocumento FROM User u WHERE u.numeroDocumento IN :numerosDocumento")
+    Set<String> findExistingNumerosDocumento(@Param("numerosDocumento") Collection<String> numerosDocumento);
 }
@@ -0,0 +1,31 @@
+package com.example.sensor.repository;
+
+import com.example.sensor.model.dto.WorkedHoursDailyDTO;
+import com.example.sensor.model.entity.WorkedHoursDaily;
+import com.example.sensor.model.entity.WorkedHoursDailyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface WorkedHoursDailyRepository extends JpaRepository<WorkedHoursDaily, WorkedHoursDailyId> {
+
+    @Modifying
+    @Query("DELETE FROM WorkedHoursDaily w WHERE w.id.day BETWEEN :from AND :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    String DTO_SELECT = "SELECT new com.example.sensor.model.dto.WorkedHoursDailyDTO(w.id.userId, " +
+            "CONCAT(u.nombres, ' ', u.apellidoPaterno), w.id.day, w.minutes, w.sessions, w.missingExits) " +
+            "FROM WorkedHoursDaily w JOIN User u ON u.id = w.id.userId ";
+
+    @Query(DTO_SELECT + "WHERE w.id.day BETWEEN :from AND :to ORDER BY w.id.day, u.apellidoPaterno, u.nombres")
+    List<WorkedHoursDailyDTO> findDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query(DTO_SELECT + "WHERE w.id.userId = :userId AND w.id.day BETWEEN :from AND :to ORDER BY w.id.day")
+    List<WorkedHoursDailyDTO> findDaysByUser(@Param("userId") Integer userId,
+                                             @Param("from") LocalDate from,
+                                             @Param("to") LocalDate to);
+}
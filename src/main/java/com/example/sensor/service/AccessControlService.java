@@ -1,17 +1,22 @@
 package com.example.sensor.service;
 
 import com.example.sensor.model.dto.*;
+import org.springframework.data.domain.Pageable;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
 public interface AccessControlService {
     // Registro de tarjetas RFID
-    RfidCardResponseDTO registerCardWithScan();
+    RfidCardResponseDTO registerCardWithScan(String deviceId);
 
     RfidCardResponseDTO getCardByUid(String cardUid);
 
     List<RfidCardResponseDTO> getAllCards();
 
+    // Tarjetas activas paginadas; sort limitado a columnas de rfid_cards
+    PageResponseDTO<RfidCardResponseDTO> getCardsPage(Pageable pageable);
+
     void deleteCard(Integer id);
 
     void toggleCardAuthorization(Integer id);
@@ -20,9 +25,15 @@ public interface AccessControlService {
 
     AccessRegisterResponseDTO registerAccess(AccessRegisterRequestDTO requestDTO);
 
+    // Carga en lote de eventos almacenados por el ESP32 sin conexión
+    AccessEventBatchResponseDTO registerAccessBatch(AccessEventBatchRequestDTO requestDTO);
+
     List<AccessLogResponseDTO> getAccessLogs(LocalDateTime start, LocalDateTime end);
 
     List<AccessLogResponseDTO> getAccessLogsByCard(String cardUid);
 
     List<AccessLogResponseDTO> getTodayAccesses();
+
+    // Consulta filtrada con paginación por cursor (access_time, id)
+    AccessLogPageDTO searchAccessLogs(AccessLogFilterDTO filter);
 }
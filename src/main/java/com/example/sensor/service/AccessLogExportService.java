@@ -0,0 +1,13 @@
+package com.example.sensor.service;
+
+import com.example.sensor.model.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface AccessLogExportService {
+    // Escribe los accesos del rango directamente en la salida, fila por fila
+    void exportAccessLogs(LocalDateTime start, LocalDateTime end, ExportFormat format, OutputStream out)
+            throws IOException;
+}
@@ -0,0 +1,22 @@
+package com.example.sensor.service;
+
+import com.example.sensor.model.dto.AttendanceDailyDTO;
+import com.example.sensor.model.dto.AttendanceSummaryDTO;
+import com.example.sensor.model.entity.AccessLog;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AttendanceRollupService {
+    // Suma al resumen los accesos ya confirmados en la BD
+    void accumulate(List<AccessLog> logs);
+
+    // Recalcula desde cero los días indicados; devuelve las filas escritas
+    int rebuild(LocalDate from, LocalDate to);
+
+    List<AttendanceDailyDTO> getDay(LocalDate day, String location);
+
+    List<AttendanceDailyDTO> getUserAttendance(Integer userId, LocalDate from, LocalDate to);
+
+    List<AttendanceSummaryDTO> getSummary(LocalDate from, LocalDate to);
+}
@@ -1,28 +1,37 @@
 package com.example.sensor.service;
 
+import com.example.sensor.model.dto.EnrollJobDTO;
 import com.example.sensor.model.dto.EnrollProgressDTO;
 import com.example.sensor.model.dto.FingerPrintRequestDTO;
 import com.example.sensor.model.dto.FingerPrintResponseDTO;
 import com.example.sensor.model.dto.FingerPrintVerifyResponseDTO;
 import com.example.sensor.model.dto.FingerprintAccessRequestDTO;
 import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import com.example.sensor.model.dto.PageResponseDTO;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
 public interface FingerPrintService {
     List<FingerPrintResponseDTO> findAll();
 
+    // Huellas activas paginadas; sort limitado a columnas de fingerprints
+    PageResponseDTO<FingerPrintResponseDTO> findPage(Pageable pageable);
+
     FingerPrintResponseDTO findById(Integer id);
 
     EnrollProgressDTO enrollFingerprint(FingerPrintRequestDTO requestDto);
 
-    void deleteFingerprint(Integer id);
+    // Enroll asíncrono: devuelve el trabajo de inmediato, el progreso se consulta aparte
+    EnrollJobDTO startEnrollJob(String deviceId);
+
+    void deleteFingerprint(Integer id, String deviceId);
 
-    FingerPrintVerifyResponseDTO verifyFingerprint();
+    FingerPrintVerifyResponseDTO verifyFingerprint(String deviceId);
 
     Integer getCount();
 
-    void emptyDatabase();
+    void emptyDatabase(String deviceId);
 
     AccessRegisterResponseDTO registerFingerprintAccess(FingerprintAccessRequestDTO requestDTO);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.sensor.service;
+
+import com.example.sensor.model.dto.FingerprintReconciliationDTO;
+
+public interface FingerprintReconciliationService {
+    // Revisa el siguiente lote de slots (fingerprint.reconciliation.batch-size) y avanza el cursor
+    FingerprintReconciliationDTO reconcileNextBatch();
+
+    // Pasada completa por todos los slots; repair null usa fingerprint.reconciliation.repair
+    FingerprintReconciliationDTO reconcileAll(Boolean repair);
+
+    FingerprintReconciliationDTO getStatus();
+}
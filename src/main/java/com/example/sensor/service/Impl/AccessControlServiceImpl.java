@@ -1,24 +1,46 @@
 package com.example.sensor.service.Impl;
 
+import com.example.sensor.cache.AccessTapTracker;
+import com.example.sensor.cache.CardCredential;
+import com.example.sensor.cache.CredentialIndex;
 import com.example.sensor.exceptions.*;
 import com.example.sensor.mapper.AccessLogMapper;
 import com.example.sensor.mapper.RfidCardMapper;
+import com.example.sensor.metrics.AccessMetrics;
 import com.example.sensor.model.dto.*;
 import com.example.sensor.model.entity.*;
 import com.example.sensor.model.enums.AccessType;
 import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.pipeline.AccessEventBroadcaster;
+import com.example.sensor.pipeline.AccessLogWriter;
 import com.example.sensor.repository.*;
 import com.example.sensor.service.AccessControlService;
+import com.example.sensor.service.AttendanceRollupService;
+import com.example.sensor.util.PageableUtils;
+import com.example.sensor.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,18 +49,30 @@ import java.util.stream.Collectors;
 @Transactional
 public class AccessControlServiceImpl implements AccessControlService {
 
+        private static final int MAX_REPORTED_GAPS = 100;
+        private static final String LATE_EVENT_NOTE = "Registrado tarde: no cambia el estado de la credencial";
+        private static final Set<String> CARD_SORTABLE = Set.of("id", "cardUid", "authorized", "createdAt",
+                        "updatedAt", "lastAccessTime");
+
         private final RfidCardRepository cardRepository;
+        private final FingerPrintRepository fingerPrintRepository;
         private final AccessLogRepository logRepository;
         private final RfidCardMapper rfidCardMapper;
         private final AccessLogMapper accessLogMapper;
         private final Esp32HttpServiceImpl esp32HttpService; // Para escaneo RFID
+        private final CredentialIndex credentialIndex;
+        private final AccessLogWriter accessLogWriter;
+        private final AttendanceRollupService rollupService;
+        private final AccessEventBroadcaster eventBroadcaster;
+        private final AccessMetrics accessMetrics;
+        private final AccessTapTracker tapTracker;
 
         @Override
-        public RfidCardResponseDTO registerCardWithScan() {
-                log.info("Iniciando escaneo de tarjeta RFID desde ESP32...");
+        public RfidCardResponseDTO registerCardWithScan(String deviceId) {
+                log.info("Iniciando escaneo de tarjeta RFID desde ESP32 {}...", deviceId);
 
                 // Llamar al ESP32 para que escanee la tarjeta (espera física)
-                String cardUid = esp32HttpService.scanRfidCard();
+                String cardUid = esp32HttpService.scanRfidCard(deviceId);
 
                 log.info("UID detectado desde ESP32: {}", cardUid);
 
@@ -55,6 +89,7 @@ public class AccessControlServiceImpl implements AccessControlService {
                                 .build();
 
                 RfidCard saved = cardRepository.save(card);
+                credentialIndex.refreshCard(saved);
                 log.info("Tarjeta RFID registrada automáticamente: ID {} - UID: {}",
                                 saved.getId(), saved.getCardUid());
 
@@ -72,12 +107,21 @@ public class AccessControlServiceImpl implements AccessControlService {
         @Override
         @Transactional(readOnly = true)
         public List<RfidCardResponseDTO> getAllCards() {
-                return cardRepository.findAll().stream()
-                                .filter(RfidCard::getActive) // Solo mostrar tarjetas activas
+                // Solo tarjetas activas, filtradas en SQL y con el usuario y sus credenciales en el mismo SELECT
+                return cardRepository.findAllByActiveTrue(Pageable.unpaged(Sort.by("id"))).stream()
                                 .map(rfidCardMapper::toResponseDTO)
                                 .collect(Collectors.toList());
         }
 
+        @Override
+        @Transactional(readOnly = true)
+        public PageResponseDTO<RfidCardResponseDTO> getCardsPage(Pageable pageable) {
+                return PageResponseDTO.from(
+                                cardRepository.findAllByActiveTrue(
+                                                PageableUtils.restrictSort(pageable, CARD_SORTABLE, "id")),
+                                rfidCardMapper::toResponseDTO);
+        }
+
         @Override
         public void deleteCard(Integer id) {
                 RfidCard card = cardRepository.findById(id)
@@ -92,6 +136,7 @@ public class AccessControlServiceImpl implements AccessControlService {
                 }
                 
                 cardRepository.delete(card);
+                credentialIndex.removeCard(card.getCardUid());
                 log.info("Tarjeta ID {} eliminada físicamente", id);
         }
 
@@ -101,6 +146,7 @@ public class AccessControlServiceImpl implements AccessControlService {
                                 .orElseThrow(() -> new FingerPrintNotFoundException(id));
                 card.setAuthorized(!card.getAuthorized());
                 cardRepository.save(card);
+                credentialIndex.refreshCard(card);
                 log.info("Tarjeta ID {} autorización: {}", id, card.getAuthorized());
         }
 
@@ -110,6 +156,7 @@ public class AccessControlServiceImpl implements AccessControlService {
                                 .orElseThrow(() -> new FingerPrintNotFoundException(id));
                 card.setActive(!card.getActive());
                 cardRepository.save(card);
+                credentialIndex.refreshCard(card);
                 log.info("Tarjeta ID {} estado activo: {}", id, card.getActive());
         }
 
@@ -117,25 +164,38 @@ public class AccessControlServiceImpl implements AccessControlService {
         public AccessRegisterResponseDTO registerAccess(AccessRegisterRequestDTO requestDTO) {
                 log.info("Registrando acceso para tarjeta: {}", requestDTO.getCardUid());
 
-                RfidCard card = cardRepository.findByCardUidAndActiveTrue(requestDTO.getCardUid())
+                // Resolución en memoria: sin consultas a la BD para la tarjeta ni su usuario
+                CardCredential card = credentialIndex.findActiveCard(requestDTO.getCardUid())
                                 .orElse(null);
 
-                boolean authorized = card != null && Boolean.TRUE.equals(card.getAuthorized());
+                boolean authorized = card != null && card.isAuthorized();
 
-                // Determinar tipo de acceso (ENTRADA/SALIDA) basado en el último registro
+                // Determinar tipo de acceso (ENTRADA/SALIDA): fijo según la puerta o alternando el estado
+                // guardado en la tarjeta
                 AccessType accessType = AccessType.ENTRADA; // Por defecto es ENTRADA
+                LocalDateTime now = LocalDateTime.now();
+                AccessType doorDirection = tapTracker.doorDirection(requestDTO.getDeviceId(), requestDTO.getLocation());
+                boolean passback = authorized
+                                && tapTracker.isPassback(AuthenticationMethod.RFID, requestDTO.getCardUid(), doorDirection);
 
-                if (card != null) {
-                        // Buscar el último acceso de esta tarjeta
-                        Optional<AccessLog> lastAccess = logRepository.findLastAccessByCard(card.getId());
-
-                        if (lastAccess.isPresent()) {
-                                // Alternar: Si el último fue ENTRADA, ahora es SALIDA y viceversa
-                                accessType = lastAccess.get().getAccessType() == AccessType.ENTRADA
-                                                ? AccessType.SALIDA
-                                                : AccessType.ENTRADA;
+                if (passback) {
+                        // Anti-passback: se registra como denegado sin tocar el estado de la tarjeta
+                        authorized = false;
+                        accessType = doorDirection;
+                } else if (card != null) {
+                        if (doorDirection != null) {
+                                accessType = doorDirection;
+                                accessMetrics.timeDatabase(AuthenticationMethod.RFID,
+                                                () -> cardRepository.updateLastAccessType(card.getCardId(),
+                                                                doorDirection.name(), now));
+                        } else {
+                                // UPDATE ... RETURNING atómico: dos lecturas simultáneas no pueden ver el mismo estado
+                                accessType = AccessType.valueOf(accessMetrics.timeDatabase(AuthenticationMethod.RFID,
+                                                () -> cardRepository.toggleLastAccessType(card.getCardId(), now)));
+                        }
+                        if (authorized) {
+                                tapTracker.recordDirection(AuthenticationMethod.RFID, requestDTO.getCardUid(), accessType);
                         }
-                        // Si no hay acceso previo, se mantiene ENTRADA (default)
                 }
 
                 // Determinar método de autenticación (RFID por defecto para
@@ -153,35 +213,238 @@ public class AccessControlServiceImpl implements AccessControlService {
 
                 // Crear log de acceso
                 AccessLog accessLog = AccessLog.builder()
-                                .rfidCard(card)
+                                .rfidCard(card != null ? cardRepository.getReferenceById(card.getCardId()) : null)
                                 .accessType(accessType)
                                 .authenticationMethod(authMethod)
                                 .authorized(authorized)
                                 .location(requestDTO.getLocation())
                                 .deviceId(requestDTO.getDeviceId())
+                                .accessTime(now)
                                 .build();
 
-                logRepository.save(accessLog);
+                // Escritura diferida: la respuesta al ESP32 no espera al INSERT
+                accessLogWriter.submit(accessLog);
 
-                String personName = card != null && card.getUser() != null
-                                ? card.getUser().getNombres() + " " + card.getUser().getApellidoPaterno()
+                String personName = card != null && card.hasUser()
+                                ? card.getPersonName()
                                 : "Tarjeta no registrada";
-                String cargo = card != null && card.getUser() != null ? card.getUser().getCargo() : null;
-                String message = authorized ? "Acceso autorizado" : "Acceso denegado - Tarjeta no autorizada";
+                String cargo = card != null ? card.getCargo() : null;
+                String message = authorized ? "Acceso autorizado"
+                                : passback ? "Acceso denegado - Anti-passback: ENTRADA sin SALIDA previa"
+                                : "Acceso denegado - Tarjeta no autorizada";
 
                 log.info("Acceso registrado: {} - {} - {}",
                                 requestDTO.getCardUid(), accessType, authorized ? "AUTORIZADO" : "DENEGADO");
 
+                eventBroadcaster.publish(AccessStreamEventDTO.builder()
+                                .authenticationMethod(authMethod.name())
+                                .cardUid(requestDTO.getCardUid())
+                                .authorized(authorized)
+                                .accessType(accessType.name())
+                                .personName(personName)
+                                .cargo(cargo)
+                                .message(message)
+                                .accessTime(now)
+                                .location(requestDTO.getLocation())
+                                .deviceId(requestDTO.getDeviceId())
+                                .build());
+
                 return AccessRegisterResponseDTO.builder()
                                 .authorized(authorized)
                                 .accessType(accessType.name())
                                 .personName(personName)
                                 .cargo(cargo)
                                 .message(message)
-                                .timestamp(LocalDateTime.now())
+                                .timestamp(now)
+                                .build();
+        }
+
+        @Override
+        public AccessEventBatchResponseDTO registerAccessBatch(AccessEventBatchRequestDTO requestDTO) {
+                String deviceId = requestDTO.getDeviceId();
+                List<AccessEventDTO> events = requestDTO.getEvents();
+                List<String> errors = new ArrayList<>();
+
+                // 1. Duplicados: dentro del lote y contra la BD con una sola consulta por conjunto.
+                // Con el lock del dispositivo, un reintento simultáneo ve lo confirmado por el primero
+                logRepository.lockDeviceBatches(deviceId);
+                TreeMap<Long, AccessEventDTO> bySequence = new TreeMap<>();
+                for (AccessEventDTO event : events) {
+                        bySequence.putIfAbsent(event.getSequence(), event);
+                }
+                Long previousMax = logRepository.findMaxDeviceSequence(deviceId);
+                bySequence.keySet().removeAll(logRepository.findExistingDeviceSequences(deviceId, bySequence.keySet()));
+                int duplicates = events.size() - bySequence.size();
+
+                // 2. Validar y separar por método de autenticación
+                List<AccessEventDTO> accepted = new ArrayList<>();
+                Set<String> cardUids = new HashSet<>();
+                Set<Integer> fingerprintIds = new HashSet<>();
+                for (AccessEventDTO event : bySequence.values()) {
+                        AuthenticationMethod method = resolveMethod(event);
+                        if (method == AuthenticationMethod.RFID && event.getCardUid() != null
+                                        && !event.getCardUid().isBlank()) {
+                                cardUids.add(event.getCardUid());
+                        } else if (method == AuthenticationMethod.FINGERPRINT && event.getFingerprintId() != null) {
+                                fingerprintIds.add(event.getFingerprintId());
+                        } else {
+                                errors.add("Secuencia " + event.getSequence() + ": credencial o método inválido");
+                                continue;
+                        }
+                        accepted.add(event);
+                }
+
+                // 3. Bloquear las credenciales involucradas para no competir con accesos en línea
+                Map<String, RfidCard> cards = cardUids.isEmpty() ? Map.of()
+                                : cardRepository.findAllByCardUidInForUpdate(cardUids).stream()
+                                                .collect(Collectors.toMap(RfidCard::getCardUid, Function.identity()));
+                Map<Integer, FingerPrint> fingerprints = fingerprintIds.isEmpty() ? Map.of()
+                                : fingerPrintRepository.findAllByFingerprintIdInForUpdate(fingerprintIds).stream()
+                                                .collect(Collectors.toMap(FingerPrint::getFingerprintId, Function.identity()));
+
+                // 4. Orden cronológico (hora del dispositivo, luego secuencia) antes de alternar ENTRADA/SALIDA
+                accepted.sort(Comparator.comparing(AccessEventDTO::getTimestamp)
+                                .thenComparing(AccessEventDTO::getSequence));
+
+                // Eventos más viejos que el último acceso ya registrado de su credencial (p. ej. un acceso
+                // en línea a las 09:00 y luego la carga offline de uno de las 08:00): se guardan sin tocar
+                // el estado de la credencial, que sigue describiendo su acceso más reciente
+                Map<String, AccessType> lateTypes = new HashMap<>();
+                List<AccessLog> logs = new ArrayList<>(accepted.size());
+                for (AccessEventDTO event : accepted) {
+                        String location = event.getLocation() != null ? event.getLocation() : requestDTO.getLocation();
+                        AccessLog.AccessLogBuilder builder = AccessLog.builder()
+                                        .accessTime(event.getTimestamp())
+                                        .location(location)
+                                        .deviceId(deviceId)
+                                        .deviceSequence(event.getSequence())
+                                        .accessType(AccessType.ENTRADA);
+
+                        if (resolveMethod(event) == AuthenticationMethod.RFID) {
+                                RfidCard card = cards.get(event.getCardUid());
+                                boolean active = card != null && Boolean.TRUE.equals(card.getActive());
+                                builder.authenticationMethod(AuthenticationMethod.RFID)
+                                                .authorized(active && Boolean.TRUE.equals(card.getAuthorized()));
+                                if (active) {
+                                        AccessType accessType;
+                                        if (isLate(card.getLastAccessTime(), event)) {
+                                                accessType = lateAccessType(lateTypes, "RFID:" + card.getId(),
+                                                                () -> logRepository.findCardAccessTypeBefore(
+                                                                                card.getId(), event.getTimestamp()));
+                                                builder.notes(LATE_EVENT_NOTE);
+                                        } else {
+                                                accessType = AccessType.after(card.getLastAccessType());
+                                                card.setLastAccessType(accessType);
+                                                card.setLastAccessTime(event.getTimestamp());
+                                        }
+                                        builder.rfidCard(card).accessType(accessType);
+                                }
+                        } else {
+                                FingerPrint fingerprint = fingerprints.get(event.getFingerprintId());
+                                boolean active = fingerprint != null && Boolean.TRUE.equals(fingerprint.getActive());
+                                builder.authenticationMethod(AuthenticationMethod.FINGERPRINT)
+                                                .authorized(active);
+                                if (active) {
+                                        AccessType accessType;
+                                        if (isLate(fingerprint.getLastAccessTime(), event)) {
+                                                accessType = lateAccessType(lateTypes,
+                                                                "FINGERPRINT:" + fingerprint.getFingerprintId(),
+                                                                () -> logRepository.findFingerprintAccessTypeBefore(
+                                                                                fingerprint.getFingerprintId(),
+                                                                                event.getTimestamp()));
+                                                builder.notes(LATE_EVENT_NOTE);
+                                        } else {
+                                                accessType = AccessType.after(fingerprint.getLastAccessType());
+                                                fingerprint.setLastAccessType(accessType);
+                                                fingerprint.setLastAccessTime(event.getTimestamp());
+                                        }
+                                        builder.fingerPrint(fingerprint).accessType(accessType);
+                                }
+                        }
+                        logs.add(builder.build());
+                }
+
+                // 5. Todo el lote en una transacción con INSERT en lote
+                logRepository.saveAll(logs);
+                TransactionUtils.afterCommit(() -> {
+                        try {
+                                rollupService.accumulate(logs);
+                        } catch (Exception e) {
+                                log.warn("No se pudo actualizar el resumen de asistencia del lote de {}: {}",
+                                                deviceId, e.getMessage());
+                        }
+                });
+
+                Long highest = bySequence.isEmpty() ? null : bySequence.lastKey();
+                Long lastSequence = highest == null ? previousMax
+                                : previousMax == null ? highest : Long.valueOf(Math.max(previousMax, highest));
+
+                log.info("Lote de {} eventos del dispositivo {}: {} aceptados, {} duplicados, {} rechazados",
+                                events.size(), deviceId, logs.size(), duplicates, errors.size());
+
+                return AccessEventBatchResponseDTO.builder()
+                                .deviceId(deviceId)
+                                .received(events.size())
+                                .accepted(logs.size())
+                                .duplicates(duplicates)
+                                .rejected(errors.size())
+                                .lastSequence(lastSequence)
+                                .missingSequences(findGaps(previousMax, events))
+                                .errors(errors)
                                 .build();
         }
 
+        private AuthenticationMethod resolveMethod(AccessEventDTO event) {
+                if (event.getAuthenticationMethod() != null) {
+                        try {
+                                return AuthenticationMethod.valueOf(event.getAuthenticationMethod().toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                                return null;
+                        }
+                }
+                // Sin método explícito se infiere por la credencial enviada
+                return event.getCardUid() != null ? AuthenticationMethod.RFID : AuthenticationMethod.FINGERPRINT;
+        }
+
+        private boolean isLate(LocalDateTime lastAccessTime, AccessEventDTO event) {
+                return lastAccessTime != null && event.getTimestamp().isBefore(lastAccessTime);
+        }
+
+        /**
+         * Tipo de un evento tardío: alterna desde el acceso inmediatamente anterior en access_logs y,
+         * dentro del lote, desde el evento tardío previo de la misma credencial (el lote va en orden)
+         */
+        private AccessType lateAccessType(Map<String, AccessType> lateTypes, String credentialKey,
+                                          Supplier<String> previousInLogs) {
+                AccessType previous = lateTypes.get(credentialKey);
+                if (previous == null) {
+                        String stored = previousInLogs.get();
+                        previous = stored != null ? AccessType.valueOf(stored) : null;
+                }
+                AccessType accessType = AccessType.after(previous);
+                lateTypes.put(credentialKey, accessType);
+                return accessType;
+        }
+
+        /**
+         * Secuencias faltantes entre la última confirmada y la mayor recibida, agrupadas en rangos
+         */
+        private List<String> findGaps(Long previousMax, List<AccessEventDTO> events) {
+                TreeMap<Long, Boolean> received = new TreeMap<>();
+                events.forEach(event -> received.put(event.getSequence(), Boolean.TRUE));
+                long expected = previousMax != null ? previousMax + 1 : received.firstKey();
+
+                List<String> gaps = new ArrayList<>();
+                for (Long sequence : received.tailMap(expected, true).keySet()) {
+                        if (sequence > expected && gaps.size() < MAX_REPORTED_GAPS) {
+                                gaps.add(sequence - 1 == expected ? String.valueOf(expected)
+                                                : expected + "-" + (sequence - 1));
+                        }
+                        expected = sequence + 1;
+                }
+                return gaps;
+        }
+
         @Override
         @Transactional(readOnly = true)
         public List<AccessLogResponseDTO> getAccessLogs(LocalDateTime start, LocalDateTime end) {
@@ -205,4 +468,60 @@ public class AccessControlServiceImpl implements AccessControlService {
                 LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
                 return getAccessLogs(startOfDay, endOfDay);
         }
+
+        @Override
+        @Transactional(readOnly = true)
+        public AccessLogPageDTO searchAccessLogs(AccessLogFilterDTO filter) {
+                int limit = filter.getLimit() != null ? filter.getLimit() : 50;
+                LocalDateTime afterTime = null;
+                Integer afterId = null;
+                if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+                        String[] position = decodeCursor(filter.getCursor());
+                        afterTime = LocalDateTime.parse(position[0]);
+                        afterId = Integer.valueOf(position[1]);
+                }
+
+                // Se pide una fila extra solo para saber si existe página siguiente
+                List<AccessLogExportRow> rows = logRepository.searchPage(filter, afterTime, afterId, limit + 1);
+                boolean hasMore = rows.size() > limit;
+                if (hasMore) {
+                        rows = rows.subList(0, limit);
+                }
+
+                String nextCursor = null;
+                if (hasMore) {
+                        AccessLogExportRow last = rows.get(rows.size() - 1);
+                        nextCursor = encodeCursor(last.getAccessTime(), last.getId());
+                }
+
+                return AccessLogPageDTO.builder()
+                                .items(rows.stream().map(accessLogMapper::toResponseDTO).collect(Collectors.toList()))
+                                .size(rows.size())
+                                .hasMore(hasMore)
+                                .nextCursor(nextCursor)
+                                .build();
+        }
+
+        private String encodeCursor(LocalDateTime accessTime, Integer id) {
+                String position = accessTime + "|" + id;
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private String[] decodeCursor(String cursor) {
+                String[] parts;
+                try {
+                        String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                        parts = position.split("\\|");
+                        if (parts.length == 2) {
+                                LocalDateTime.parse(parts[0]);
+                                Integer.valueOf(parts[1]);
+                        }
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                        throw new InvalidCursorException(cursor);
+                }
+                if (parts.length != 2) {
+                        throw new InvalidCursorException(cursor);
+                }
+                return parts;
+        }
 }
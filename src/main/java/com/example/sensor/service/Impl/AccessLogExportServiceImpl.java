@@ -0,0 +1,113 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.model.dto.AccessLogExportRow;
+import com.example.sensor.model.enums.ExportFormat;
+import com.example.sensor.repository.AccessLogRepository;
+import com.example.sensor.service.AccessLogExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de accesos con memoria constante: las filas se leen de un cursor
+ * JDBC (fetch size) y se escriben en la respuesta a medida que llegan.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AccessLogExportServiceImpl implements AccessLogExportService {
+
+    private static final int FLUSH_EVERY = 1000;
+    private static final String CSV_HEADER = "id,accessTime,accessType,authenticationMethod,authorized," +
+            "personName,cargo,cardUid,fingerprintId,location,deviceId,notes";
+
+    private final AccessLogRepository logRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAccessLogs(LocalDateTime start, LocalDateTime end, ExportFormat format, OutputStream out)
+            throws IOException {
+        long startNanos = System.nanoTime();
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        // El Stream mantiene abierto el cursor: debe cerrarse aunque el cliente corte la descarga
+        try (Stream<AccessLogExportRow> stream = logRepository.streamExportRows(start, end)) {
+            Iterator<AccessLogExportRow> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                AccessLogExportRow row = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                if (++rows % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+
+        log.info("Exportados {} accesos ({}) entre {} y {} en {} ms", rows, format, start, end,
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private void writeCsv(Writer writer, AccessLogExportRow row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getAccessTime()));
+        writer.write(',');
+        writer.write(row.getAccessType());
+        writer.write(',');
+        writer.write(row.getAuthenticationMethod());
+        writer.write(',');
+        writer.write(String.valueOf(row.getAuthorized()));
+        writer.write(',');
+        writer.write(csvField(row.getPersonName()));
+        writer.write(',');
+        writer.write(csvField(row.getCargo()));
+        writer.write(',');
+        writer.write(csvField(row.getCardUid()));
+        writer.write(',');
+        writer.write(row.getFingerprintId() != null ? row.getFingerprintId().toString() : "");
+        writer.write(',');
+        writer.write(csvField(row.getLocation()));
+        writer.write(',');
+        writer.write(csvField(row.getDeviceId()));
+        writer.write(',');
+        writer.write(csvField(row.getNotes()));
+        writer.write('\n');
+    }
+
+    /**
+     * Escapa el valor según RFC 4180 solo cuando contiene separadores, comillas o saltos de línea
+     */
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.config.AttendanceRollupConfig;
+import com.example.sensor.model.dto.AttendanceDailyDTO;
+import com.example.sensor.model.dto.AttendanceSummaryDTO;
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.repository.AttendanceDailyRepository;
+import com.example.sensor.service.AttendanceRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Resumen diario de asistencia (usuario × día × ubicación).
+ * Cada lote de accesos se suma con un único UPSERT agregado; el job nocturno
+ * recalcula los últimos días cerrados para absorber eventos offline tardíos y
+ * cualquier lote cuyo resumen haya fallado.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AttendanceRollupServiceImpl implements AttendanceRollupService {
+
+    private final AttendanceDailyRepository repository;
+    private final AttendanceRollupConfig config;
+
+    /**
+     * Transacción propia: se invoca después del commit de los accesos, y un fallo
+     * aquí no debe deshacerlos (el recálculo nocturno lo corrige)
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void accumulate(List<AccessLog> logs) {
+        if (!config.isEnabled() || logs.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(logs.size());
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (AccessLog accessLog : logs) {
+            if (accessLog.getId() == null) {
+                continue;
+            }
+            ids.add(accessLog.getId());
+            LocalDateTime time = accessLog.getAccessTime();
+            from = from == null || time.isBefore(from) ? time : from;
+            to = to == null || time.isAfter(to) ? time : to;
+        }
+        if (!ids.isEmpty()) {
+            repository.accumulate(ids, from, to);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        repository.deleteDays(from, to);
+        int rows = repository.rebuild(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        log.info("Resumen de asistencia recalculado del {} al {}: {} filas en {} ms",
+                from, to, rows, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceDailyDTO> getDay(LocalDate day, String location) {
+        if (location == null || location.isBlank()) {
+            return repository.findByDay(day);
+        }
+        return repository.findByDayAndLocation(day, location);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceDailyDTO> getUserAttendance(Integer userId, LocalDate from, LocalDate to) {
+        return repository.findByUser(userId, from, to);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceSummaryDTO> getSummary(LocalDate from, LocalDate to) {
+        return repository.summarize(from, to).stream()
+                .map(totals -> AttendanceSummaryDTO.builder()
+                        .day(totals.getDay())
+                        .presentUsers(totals.getPresentUsers())
+                        .taps(totals.getTaps())
+                        .denied(totals.getDenied())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.sensor.service.Impl;
 
 import com.example.sensor.config.Esp32Config;
+import com.example.sensor.device.DeviceCommandScheduler;
+import com.example.sensor.device.DeviceCommandScheduler.Priority;
+import com.example.sensor.device.DeviceHealth;
+import com.example.sensor.device.DeviceHealthMonitor;
+import com.example.sensor.device.Esp32Device;
+import com.example.sensor.device.Esp32DeviceRegistry;
 import com.example.sensor.exceptions.SerialCommunicationException;
+import com.example.sensor.metrics.DeviceMetrics;
 import com.example.sensor.model.dto.Esp32CountResponseDTO;
 import com.example.sensor.model.dto.Esp32EnrollResponseDTO;
+import com.example.sensor.model.dto.Esp32SlotsResponseDTO;
 import com.example.sensor.model.dto.Esp32VerifyResponseDTO;
 import com.example.sensor.service.SerialService;
 
@@ -20,89 +28,157 @@ import reactor.util.retry.Retry;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * Implementación de SerialService que se comunica con el ESP32 vía HTTP.
  * Permite despliegue en la nube usando Cloudflare Tunnel o ngrok.
+ * Cada comando se dirige al dispositivo indicado usando su propio pool de conexiones
+ * y pasa por la cola de ese dispositivo en DeviceCommandScheduler.
+ * La duración, el resultado y los reintentos de cada comando se publican en DeviceMetrics.
+ * DeviceHealthMonitor corta los comandos a un dispositivo caído (circuit breaker) y los
+ * reintentos usan backoff exponencial con jitter, limitados por el presupuesto del dispositivo.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor 
 public class Esp32HttpServiceImpl implements SerialService {
 
-    private final WebClient esp32WebClient;
+    private final Esp32DeviceRegistry deviceRegistry;
     private final Esp32Config config;
+    private final DeviceCommandScheduler scheduler;
+    private final DeviceMetrics deviceMetrics;
+    private final DeviceHealthMonitor healthMonitor;
 
     @Override
-    public String sendCommand(String command) throws Exception {
-        log.debug("Enviando comando simple al ESP32: {}", command);
+    public String sendCommand(String deviceId, String command) throws Exception {
+        Esp32Device device = deviceRegistry.get(deviceId);
+        boolean idempotentRead = command.equals("PING") || command.equals("COUNT");
+        healthMonitor.checkAvailable(device.getId(), command);
+        return scheduler.execute(device.getId(), command, Priority.MAINTENANCE, idempotentRead,
+                () -> timed(device, command, () -> executeCommand(device, command)));
+    }
+
+    @Override
+    public List<String> sendCommandWithProgress(String deviceId, String command) throws Exception {
+        Esp32Device device = deviceRegistry.get(deviceId);
+        healthMonitor.checkAvailable(device.getId(), command);
+        return scheduler.execute(device.getId(), command, Priority.INTERACTIVE, false,
+                () -> timed(device, command, () -> executeCommandWithProgress(device, command)));
+    }
+
+    /**
+     * Estado en memoria del último comando o ping de salud; no espera al ESP32
+     */
+    @Override
+    public boolean isConnected(String deviceId) {
+        return healthMonitor.get(deviceRegistry.get(deviceId).getId()).isAvailable();
+    }
+
+    /**
+     * Tabla de slots ocupados; lectura idempotente de mantenimiento, se comparte si ya hay una igual en cola
+     */
+    @Override
+    public Esp32SlotsResponseDTO readSlots(String deviceId, int from, int to) {
+        Esp32Device device = deviceRegistry.get(deviceId);
+        String command = "SLOTS " + from + "-" + to;
+        healthMonitor.checkAvailable(device.getId(), command);
+        return scheduler.execute(device.getId(), command, Priority.MAINTENANCE, true,
+                () -> timed(device, command, () -> getSlots(device, from, to)));
+    }
+
+    private String executeCommand(Esp32Device device, String command) {
+        log.debug("Enviando comando simple al ESP32 {}: {}", device.getId(), command);
 
         try {
             if (command.equals("PING")) {
-                return ping();
+                return ping(device);
             } else if (command.equals("COUNT")) {
-                return getCount();
+                return getCount(device);
             } else if (command.startsWith("DELETE ")) {
                 String id = command.substring(7).trim();
-                return deleteFingerprint(id);
+                return deleteFingerprint(device, id);
             } else if (command.equals("EMPTY")) {
-                return emptyDatabase();
+                return emptyDatabase(device);
             } else {
                 throw new IllegalArgumentException("Comando no soportado: " + command);
             }
         } catch (WebClientResponseException e) {
             log.error("Error HTTP del ESP32: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new SerialCommunicationException("Error comunicando con ESP32: " + e.getMessage());
+            throw new SerialCommunicationException("Error comunicando con ESP32: " + e.getMessage(), e);
         } catch (Exception e) {
             log.error("Error enviando comando al ESP32: {}", e.getMessage());
-            throw new SerialCommunicationException("Error de comunicación: " + e.getMessage());
+            throw new SerialCommunicationException("Error de comunicación: " + e.getMessage(), e);
         }
     }
 
-    @Override
-    public List<String> sendCommandWithProgress(String command) throws Exception {
-        log.info(">>> Enviando comando con progreso al ESP32: [{}]", command);
+    private List<String> executeCommandWithProgress(Esp32Device device, String command) {
+        log.info(">>> Enviando comando con progreso al ESP32 {}: [{}]", device.getId(), command);
 
         try {
+            WebClient client = device.getWebClient();
             if (command.equals("ENROLL")) {
-                return enrollFingerprint();
+                return enrollFingerprint(client, null);
+            } else if (command.startsWith("ENROLL ")) {
+                return enrollFingerprint(client, Integer.parseInt(command.substring(7).trim()));
             } else if (command.equals("VERIFY")) {
-                return verifyFingerprint();
+                return verifyFingerprint(client);
             } else {
                 throw new IllegalArgumentException("Comando con progreso no soportado: " + command);
             }
         } catch (WebClientResponseException e) {
             log.error("Error HTTP del ESP32: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new SerialCommunicationException("Error comunicando con ESP32: " + e.getMessage());
+            throw new SerialCommunicationException("Error comunicando con ESP32: " + e.getMessage(), e);
         } catch (Exception e) {
             log.error("Error enviando comando al ESP32: {}", e.getMessage());
-            throw new SerialCommunicationException("Error de comunicación: " + e.getMessage());
+            throw new SerialCommunicationException("Error de comunicación: " + e.getMessage(), e);
         }
     }
 
-    @Override
-    public boolean isConnected() {
+    /**
+     * Mide el comando en el dispositivo (sin la espera en cola), clasifica su resultado
+     * y lo informa al circuit breaker del dispositivo
+     */
+    private <T> T timed(Esp32Device device, String command, Supplier<T> action) {
+        long start = System.nanoTime();
         try {
-            ping();
-            return true;
-        } catch (Exception e) {
-            log.warn("ESP32 no responde al ping: {}", e.getMessage());
-            return false;
+            T result = healthMonitor.guard(device.getId(), command, action);
+            deviceMetrics.recordCommand(device.getId(), command, start, null);
+            return result;
+        } catch (RuntimeException e) {
+            deviceMetrics.recordCommand(device.getId(), command, start, e);
+            throw e;
         }
     }
 
+    /**
+     * Reintentos de comandos rápidos con backoff exponencial y jitter. Solo se reintentan fallas
+     * de comunicación y cada reintento consume del presupuesto del dispositivo, así un ESP32
+     * caído no multiplica la espera por max-retries en cada llamada.
+     */
+    private Retry retrySpec(Esp32Device device, String command) {
+        DeviceHealth health = healthMonitor.get(device.getId());
+        return Retry.backoff(config.getMaxRetries(), Duration.ofMillis(config.getRetryBackoffMs()))
+                .maxBackoff(Duration.ofMillis(config.getRetryMaxBackoffMs()))
+                .jitter(config.getRetryJitter())
+                .filter(error -> DeviceHealth.isCommunicationFailure(error) && health.tryAcquireRetry())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure())
+                .doBeforeRetry(signal -> deviceMetrics.recordRetry(device.getId(), command));
+    }
+
     /**
      * Health check del ESP32
      */
-    private String ping() {
+    private String ping(Esp32Device device) {
         log.debug("Haciendo ping al ESP32...");
 
-        String response = esp32WebClient.get()
+        String response = device.getWebClient().get()
                 .uri("/api/fingerprint/ping")
                 .retrieve()
                 .bodyToMono(String.class)
                 .timeout(Duration.ofMillis(config.getQuickTimeout()))
-                .retryWhen(Retry.fixedDelay(config.getMaxRetries(), Duration.ofMillis(500)))
+                .retryWhen(retrySpec(device, "PING"))
                 .block();
 
         log.debug("ESP32 respondió: {}", response);
@@ -112,15 +188,15 @@ public class Esp32HttpServiceImpl implements SerialService {
     /**
      * Obtener conteo de huellas
      */
-    private String getCount() {
+    private String getCount(Esp32Device device) {
         log.info("Consultando conteo de huellas al ESP32...");
 
-        Esp32CountResponseDTO response = esp32WebClient.get()
+        Esp32CountResponseDTO response = device.getWebClient().get()
                 .uri("/api/fingerprint/count")
                 .retrieve()
                 .bodyToMono(Esp32CountResponseDTO.class)
                 .timeout(Duration.ofMillis(config.getQuickTimeout()))
-                .retryWhen(Retry.fixedDelay(config.getMaxRetries(), Duration.ofMillis(500)))
+                .retryWhen(retrySpec(device, "COUNT"))
                 .block();
 
         if (response != null) {
@@ -132,18 +208,48 @@ public class Esp32HttpServiceImpl implements SerialService {
         throw new SerialCommunicationException("No se recibió respuesta del conteo");
     }
 
+    /**
+     * Leer los slots ocupados de un rango (un loadModel por slot en el firmware)
+     */
+    private Esp32SlotsResponseDTO getSlots(Esp32Device device, int from, int to) {
+        log.debug("Leyendo slots {}-{} del ESP32 {}...", from, to, device.getId());
+
+        try {
+            Esp32SlotsResponseDTO response = device.getWebClient().get()
+                    .uri(uri -> uri.path("/api/fingerprint/slots")
+                            .queryParam("from", from)
+                            .queryParam("to", to)
+                            .build())
+                    .retrieve()
+                    .bodyToMono(Esp32SlotsResponseDTO.class)
+                    .timeout(Duration.ofMillis(config.getReadTimeout()))
+                    .retryWhen(retrySpec(device, "SLOTS"))
+                    .block();
+
+            if (response == null || response.getOccupied() == null) {
+                throw new SerialCommunicationException("No se recibió la tabla de slots");
+            }
+            return response;
+        } catch (SerialCommunicationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error leyendo slots del ESP32: {}", e.getMessage());
+            throw new SerialCommunicationException("Error de comunicación: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Eliminar una huella por ID
      */
-    private String deleteFingerprint(String id) {
+    private String deleteFingerprint(Esp32Device device, String id) {
         log.info("Eliminando huella ID {} en el ESP32...", id);
 
-        String response = esp32WebClient.delete()
+        String response = device.getWebClient().delete()
                 .uri("/api/fingerprint/{id}", id)
                 .retrieve()
                 .bodyToMono(String.class)
                 .timeout(Duration.ofMillis(config.getQuickTimeout()))
-                .retryWhen(Retry.fixedDelay(config.getMaxRetries(), Duration.ofMillis(500)))
+                .retryWhen(retrySpec(device, "DELETE"))
                 .block();
 
         log.info("<<< ESP32: {}", response);
@@ -153,15 +259,15 @@ public class Esp32HttpServiceImpl implements SerialService {
     /**
      * Vaciar toda la base de datos del sensor
      */
-    private String emptyDatabase() {
+    private String emptyDatabase(Esp32Device device) {
         log.info("Vaciando base de datos del sensor...");
 
-        String response = esp32WebClient.delete()
+        String response = device.getWebClient().delete()
                 .uri("/api/fingerprint/empty")
                 .retrieve()
                 .bodyToMono(String.class)
                 .timeout(Duration.ofMillis(config.getQuickTimeout()))
-                .retryWhen(Retry.fixedDelay(config.getMaxRetries(), Duration.ofMillis(500)))
+                .retryWhen(retrySpec(device, "EMPTY"))
                 .block();
 
         log.info("<<< ESP32: {}", response);
@@ -169,20 +275,27 @@ public class Esp32HttpServiceImpl implements SerialService {
     }
 
     /**
-     * Enrollar una nueva huella (proceso largo)
+     * Enrollar una nueva huella (proceso largo) en el slot indicado; null deja que el firmware elija
      */
-    private List<String> enrollFingerprint() {
-        log.info("Iniciando proceso de enroll en ESP32...");
+    private List<String> enrollFingerprint(WebClient client, Integer slot) {
+        log.info("Iniciando proceso de enroll en ESP32 (slot {})...", slot);
 
-        Esp32EnrollResponseDTO response = esp32WebClient.post()
-                .uri("/api/fingerprint/enroll")
+        Esp32EnrollResponseDTO response = client.post()
+                .uri(uri -> uri.path("/api/fingerprint/enroll")
+                        .queryParamIfPresent("id", Optional.ofNullable(slot))
+                        .build())
                 .contentType(MediaType.APPLICATION_JSON)
                 .retrieve()
                 .bodyToMono(Esp32EnrollResponseDTO.class)
                 .timeout(Duration.ofMillis(config.getReadTimeout()))
                 .onErrorResume(WebClientResponseException.class, e -> {
+                    // 4xx con cuerpo de enroll (dedo mal puesto, slot ocupado): se procesa como respuesta
+                    Esp32EnrollResponseDTO body = enrollErrorBody(e);
+                    if (body != null) {
+                        return Mono.just(body);
+                    }
                     log.error("Error HTTP enrollando: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-                    return Mono.error(new SerialCommunicationException("Error en enroll: " + e.getMessage()));
+                    return Mono.error(new SerialCommunicationException("Error en enroll: " + e.getMessage(), e));
                 })
                 .block();
 
@@ -210,13 +323,25 @@ public class Esp32HttpServiceImpl implements SerialService {
         return messages;
     }
 
+    private Esp32EnrollResponseDTO enrollErrorBody(WebClientResponseException e) {
+        if (!e.getStatusCode().is4xxClientError()) {
+            return null;
+        }
+        try {
+            Esp32EnrollResponseDTO body = e.getResponseBodyAs(Esp32EnrollResponseDTO.class);
+            return body != null && body.getStatus() != null ? body : null;
+        } catch (Exception decodeError) {
+            return null;
+        }
+    }
+
     /**
      * Verificar una huella
      */
-    private List<String> verifyFingerprint() {
+    private List<String> verifyFingerprint(WebClient client) {
         log.info("Iniciando verificación de huella en ESP32...");
 
-        Esp32VerifyResponseDTO response = esp32WebClient.post()
+        Esp32VerifyResponseDTO response = client.post()
                 .uri("/api/fingerprint/verify")
                 .contentType(MediaType.APPLICATION_JSON)
                 .retrieve()
@@ -224,7 +349,7 @@ public class Esp32HttpServiceImpl implements SerialService {
                 .timeout(Duration.ofMillis(config.getReadTimeout()))
                 .onErrorResume(WebClientResponseException.class, e -> {
                     log.error("Error HTTP verificando: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-                    return Mono.error(new SerialCommunicationException("Error en verify: " + e.getMessage()));
+                    return Mono.error(new SerialCommunicationException("Error en verify: " + e.getMessage(), e));
                 })
                 .block();
 
@@ -252,10 +377,22 @@ public class Esp32HttpServiceImpl implements SerialService {
      * Llama al ESP32 para que espere una tarjeta y devuelve el UID detectado
      */
     public String scanRfidCard() {
-        log.info("Solicitando escaneo de tarjeta RFID al ESP32...");
+        return scanRfidCard(null);
+    }
+
+    public String scanRfidCard(String deviceId) {
+        Esp32Device device = deviceRegistry.get(deviceId);
+        healthMonitor.checkAvailable(device.getId(), "SCAN");
+        return scheduler.execute(device.getId(), "SCAN", Priority.INTERACTIVE, false,
+                () -> timed(device, "SCAN", () -> scanCard(device)));
+    }
+
+    private String scanCard(Esp32Device device) {
+        log.info("Solicitando escaneo de tarjeta RFID al ESP32 {}...", device.getId());
+        WebClient client = device.getWebClient();
 
         // Create DTO simple para la respuesta
-        var response = esp32WebClient.post()
+        var response = client.post()
                 .uri("/api/rfid/scan")
                 .contentType(MediaType.APPLICATION_JSON)
                 .retrieve()
@@ -263,7 +400,7 @@ public class Esp32HttpServiceImpl implements SerialService {
                 .timeout(Duration.ofMillis(config.getReadTimeout()))
                 .onErrorResume(WebClientResponseException.class, e -> {
                     log.error("Error HTTP escaneando RFID: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-                    return Mono.error(new SerialCommunicationException("Error en RFID scan: " + e.getMessage()));
+                    return Mono.error(new SerialCommunicationException("Error en RFID scan: " + e.getMessage(), e));
                 })
                 .block();
 
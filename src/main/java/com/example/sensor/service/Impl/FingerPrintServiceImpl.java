@@ -1,31 +1,52 @@
 package com.example.sensor.service.Impl;
 
+import com.example.sensor.cache.AccessTapTracker;
+import com.example.sensor.cache.CredentialIndex;
+import com.example.sensor.cache.FingerprintCredential;
+import com.example.sensor.cache.SensorSlotAllocator;
+import com.example.sensor.exceptions.DeviceUnavailableException;
 import com.example.sensor.exceptions.FingerPrintException;
 import com.example.sensor.exceptions.FingerPrintNotFoundException;
 import com.example.sensor.mapper.FingerPrintMapper;
+import com.example.sensor.jobs.EnrollJob;
+import com.example.sensor.jobs.EnrollJobRegistry;
+import com.example.sensor.metrics.AccessMetrics;
+import com.example.sensor.model.dto.EnrollJobDTO;
 import com.example.sensor.model.dto.EnrollProgressDTO;
+import com.example.sensor.model.dto.Esp32SlotsResponseDTO;
 import com.example.sensor.model.dto.FingerPrintRequestDTO;
 import com.example.sensor.model.dto.FingerPrintResponseDTO;
 import com.example.sensor.model.dto.FingerPrintVerifyResponseDTO;
 import com.example.sensor.model.dto.FingerprintAccessRequestDTO;
 import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import com.example.sensor.model.dto.AccessStreamEventDTO;
+import com.example.sensor.model.dto.PageResponseDTO;
 import com.example.sensor.model.entity.FingerPrint;
 import com.example.sensor.model.entity.AccessLog;
 import com.example.sensor.model.entity.User;
 import com.example.sensor.model.enums.AccessType;
 import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.pipeline.AccessEventBroadcaster;
+import com.example.sensor.pipeline.AccessLogWriter;
 import com.example.sensor.repository.FingerPrintRepository;
-import com.example.sensor.repository.AccessLogRepository;
 import com.example.sensor.service.FingerPrintService;
 import com.example.sensor.service.SerialService;
+import com.example.sensor.util.PageableUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,20 +54,41 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Transactional
 public class FingerPrintServiceImpl implements FingerPrintService {
+    private static final String SLOT_OCCUPIED = "Error: Slot occupied";
+    private static final int MAX_SLOT_ATTEMPTS = 3;
+    private static final Set<String> SORTABLE = Set.of("fingerprintId", "enrolledAt", "updatedAt", "lastAccessTime");
+
     private final FingerPrintRepository repository;
-    private final AccessLogRepository accessLogRepository;
     private final SerialService serialService;
     private final FingerPrintMapper mapper;
+    private final CredentialIndex credentialIndex;
+    private final AccessLogWriter accessLogWriter;
+    private final AccessEventBroadcaster eventBroadcaster;
+    private final AccessMetrics accessMetrics;
+    private final EnrollJobRegistry enrollJobRegistry;
+    @Qualifier("applicationTaskExecutor")
+    private final AsyncTaskExecutor applicationTaskExecutor;
+    private final SensorSlotAllocator slotAllocator;
+    private final AccessTapTracker tapTracker;
 
     @Override
     @Transactional(readOnly = true)
     public List<FingerPrintResponseDTO> findAll() {
-        return repository.findAllByActiveTrue()
+        // Con el usuario y sus credenciales en el mismo SELECT
+        return repository.findAllByActiveTrue(Pageable.unpaged(Sort.by("fingerprintId")))
                 .stream()
                 .map(mapper::toResponseDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponseDTO<FingerPrintResponseDTO> findPage(Pageable pageable) {
+        return PageResponseDTO.from(
+                repository.findAllByActiveTrue(PageableUtils.restrictSort(pageable, SORTABLE, "fingerprintId")),
+                mapper::toResponseDto);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public FingerPrintResponseDTO findById(Integer id) {
@@ -60,86 +102,115 @@ public class FingerPrintServiceImpl implements FingerPrintService {
 
     @Override
     public EnrollProgressDTO enrollFingerprint(FingerPrintRequestDTO requestDto) {
-        int initialCount = -1;
+        return enroll(requestDto.getDeviceId(), message -> {
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EnrollJobDTO startEnrollJob(String deviceId) {
+        EnrollJob job = enrollJobRegistry.create();
+        // El hilo de la petición se libera; el enroll corre en el executor de la aplicación
+        try {
+            applicationTaskExecutor.execute(() -> runEnrollJob(job, deviceId));
+        } catch (TaskRejectedException e) {
+            // Sin esto el trabajo quedaría pendiente para siempre y ocuparía un cupo del registro
+            enrollJobRegistry.fail(job, "Executor saturado: " + e.getMessage());
+            throw e;
+        }
+        return enrollJobRegistry.toDto(job);
+    }
+
+    private void runEnrollJob(EnrollJob job, String deviceId) {
         try {
-            // Intentar obtener conteo inicial para recuperación en caso de fallo
+            EnrollProgressDTO result = enroll(deviceId, message -> enrollJobRegistry.progress(job, message));
+            enrollJobRegistry.complete(job, result);
+        } catch (Exception e) {
+            enrollJobRegistry.fail(job, e.getMessage());
+        }
+    }
+
+    private EnrollProgressDTO enroll(String deviceId, Consumer<String> progress) {
+        progress.accept("Conectando con el sensor");
+        // El backend elige el slot antes de ir al ESP32: el ID se conoce de antemano, no se pisan
+        // plantillas existentes y no se reutilizan slots con historial en access_logs
+        for (int attempt = 1; ; attempt++) {
+            int slot = slotAllocator.reserve(deviceId);
+            List<String> messages;
             try {
-                String countStr = serialService.sendCommand("COUNT");
-                // Formato esperado: "Sensor contains X templates"
-                initialCount = Integer.parseInt(countStr.replaceAll("\\D+", ""));
+                log.info("Enrollando huella en slot {}...", slot);
+                progress.accept("Coloque el dedo en el sensor");
+                messages = serialService.sendCommandWithProgress(deviceId, "ENROLL " + slot);
             } catch (Exception e) {
-                log.warn("No se pudo obtener conteo inicial: {}", e.getMessage());
+                log.error("Error enrollando: {}", e.getMessage());
+                return recoverEnroll(deviceId, slot, e, progress);
             }
 
-            log.info("Enrollando huella... (Conteo inicial: {})", initialCount);
-
-            List<String> messages = serialService.sendCommandWithProgress("ENROLL");
             String lastMessage = messages.get(messages.size() - 1);
+            // El ESP32 devuelve su progreso al terminar: se reenvía a los suscriptores
+            messages.forEach(progress);
 
-            // Buscar el ID en los mensajes (Arduino imprime "Stored!" seguido del ID)
-            if (lastMessage.matches("\\d+")) {
-                Integer fingerprintId = Integer.parseInt(lastMessage);
-                return saveFingerprintAndReturn(fingerprintId, messages);
-            } else {
-                return EnrollProgressDTO.builder()
-                        .status("ERROR")
-                        .messages(messages)
-                        .build();
+            if (lastMessage.equals(String.valueOf(slot))) {
+                EnrollProgressDTO result = saveFingerprintAndReturn(deviceId, slot, messages);
+                progress.accept("Huella guardada con ID " + slot);
+                return result;
             }
-        } catch (Exception e) {
-            log.error("Error enrollando: {}", e.getMessage());
-
-            // INTENTO DE RECUPERACIÓN: Si falló por timeout (502) pero el sensor sí guardó
-            if (initialCount != -1) {
-                try {
-                    log.info("Intentando recuperación verificando conteo del sensor...");
-                    String countStr = serialService.sendCommand("COUNT");
-                    int finalCount = Integer.parseInt(countStr.replaceAll("\\D+", ""));
-
-                    if (finalCount > initialCount) {
-                        // Asumimos que el nuevo ID es el último (esto funciona porque los IDs son
-                        // secuenciales)
-                        // El sensor AS608 suele asignar el primer ID libre.
-                        // Si el conteo subió, ES MUY PROBABLE que sea el ID = finalCount (si no hubo
-                        // huecos)
-                        // O mejor, asumimos que el ID es finalCount si partimos de 0 o secuencial.
-                        // Riesgo: Si había huecos (borrados), el ID podría ser otro.
-                        // Pero es mejor intentar guardar algo que perderlo.
-                        // En el firmware: id = finger.templateCount + 1; -> Esto confirma que usa
-                        // (count + 1)
-                        // PERO ojo, templateCount se actualiza despues de guardar.
-
-                        // Si el firmware hace: id = templateCount + 1 (antes de guardar)
-                        // Entonces el nuevo ID es efectivamente finalCount.
-
-                        Integer recoveredId = finalCount;
-                        log.info("RECUPERACIÓN EXITOSA: El conteo subió de {} a {}. Asumiendo ID {}.", initialCount,
-                                finalCount, recoveredId);
-
-                        List<String> recoveryMessages = List.of(
-                                "Error de comunicación (Timeout)",
-                                "Pero la huella se guardó en el sensor.",
-                                "Recuperado ID: " + recoveredId);
-
-                        return saveFingerprintAndReturn(recoveredId, recoveryMessages);
-                    }
-                } catch (Exception ex) {
-                    log.error("Fallo la recuperación: {}", ex.getMessage());
-                }
+            if (lastMessage.equals(SLOT_OCCUPIED) && attempt < MAX_SLOT_ATTEMPTS) {
+                // Plantilla que el backend no conocía: el firmware no la pisa, se pide otro slot
+                log.warn("Slot {} ocupado en el sensor sin huella activa en la BD; reintentando", slot);
+                slotAllocator.markOccupied(deviceId, slot);
+                continue;
             }
+            if (lastMessage.equals(SLOT_OCCUPIED)) {
+                slotAllocator.markOccupied(deviceId, slot);
+            } else {
+                slotAllocator.release(slot);
+            }
+            return EnrollProgressDTO.builder()
+                    .status("ERROR")
+                    .messages(messages)
+                    .build();
+        }
+    }
 
-            throw new FingerPrintException("Error: " + e.getMessage());
+    /**
+     * El ESP32 no respondió (timeout, conexión): basta con leer el slot reservado para saber
+     * si la plantilla alcanzó a guardarse
+     */
+    private EnrollProgressDTO recoverEnroll(String deviceId, int slot, Exception error, Consumer<String> progress) {
+        try {
+            log.info("Intentando recuperación leyendo el slot {} del sensor...", slot);
+            Esp32SlotsResponseDTO slots = serialService.readSlots(deviceId, slot, slot);
+            if (slots.getOccupied().contains(slot)) {
+                log.info("RECUPERACIÓN EXITOSA: la plantilla quedó guardada en el slot {}", slot);
+
+                List<String> recoveryMessages = List.of(
+                        "Error de comunicación (Timeout)",
+                        "Pero la huella se guardó en el sensor.",
+                        "Recuperado ID: " + slot);
+
+                recoveryMessages.forEach(progress);
+                return saveFingerprintAndReturn(deviceId, slot, recoveryMessages);
+            }
+            slotAllocator.release(slot);
+        } catch (Exception ex) {
+            // Sin saber si se guardó, el slot queda reservado hasta que la conciliación lo lea
+            log.error("Fallo la recuperación: {}", ex.getMessage());
         }
+        throw new FingerPrintException("Error: " + error.getMessage());
     }
 
-    private EnrollProgressDTO saveFingerprintAndReturn(Integer fingerprintId, List<String> messages) {
-        // Crear FingerPrint solo con el ID del ESP32, sin usuario
+    private EnrollProgressDTO saveFingerprintAndReturn(String deviceId, Integer fingerprintId, List<String> messages) {
+        // Crear FingerPrint solo con el ID del ESP32, sin usuario. Si el slot tuvo una huella borrada,
+        // el allocator ya comprobó que ningún access_log la referencia: la fila se sobrescribe sin heredar historial
         FingerPrint fingerprint = FingerPrint.builder()
                 .fingerprintId(fingerprintId)
                 .active(true)
                 .build();
 
         FingerPrint saved = repository.save(fingerprint);
+        credentialIndex.refreshFingerprint(saved);
+        slotAllocator.confirm(deviceId, fingerprintId);
         log.info("Huella ID:{} guardada en BD", fingerprintId);
 
         return EnrollProgressDTO.builder()
@@ -150,7 +221,7 @@ public class FingerPrintServiceImpl implements FingerPrintService {
     }
 
     @Override
-    public void deleteFingerprint(Integer id) {
+    public void deleteFingerprint(Integer id, String deviceId) {
         try {
             if (id == null) {
                 throw new IllegalArgumentException("El ID no puede ser null");
@@ -170,20 +241,18 @@ public class FingerPrintServiceImpl implements FingerPrintService {
             }
 
             try {
-                List<String> messages = serialService
-                        .sendCommandWithProgress("DELETE " + fingerprint.getFingerprintId());
-                String lastMessage = messages.get(messages.size() - 1);
-
-                if (!lastMessage.equals("Deleted!")) {
-                    log.warn("Error en sensor: {}", lastMessage);
-                }
+                serialService.sendCommand(deviceId, "DELETE " + fingerprint.getFingerprintId());
+                slotAllocator.removedFromSensor(deviceId, fingerprint.getFingerprintId());
             } catch (Exception e) {
+                // La huella queda inactiva igual; la conciliación reporta la plantilla que quedó en el sensor
                 log.warn("Error eliminando del sensor: {}", e.getMessage());
             }
 
             // Marcar como inactiva en lugar de eliminar (para mantener historial)
             fingerprint.setActive(false);
             repository.save(fingerprint);
+            credentialIndex.refreshFingerprint(fingerprint);
+            slotAllocator.deactivated(fingerprint.getFingerprintId());
             log.info("Huella desactivada en la BD");
 
         } catch (FingerPrintNotFoundException e) {
@@ -195,11 +264,11 @@ public class FingerPrintServiceImpl implements FingerPrintService {
     }
 
     @Override
-    public FingerPrintVerifyResponseDTO verifyFingerprint() {
+    public FingerPrintVerifyResponseDTO verifyFingerprint(String deviceId) {
         try {
             log.info("Verificando huella...");
 
-            List<String> messages = serialService.sendCommandWithProgress("VERIFY");
+            List<String> messages = serialService.sendCommandWithProgress(deviceId, "VERIFY");
 
             for (String msg : messages) {
                 // Buscar: "Found ID #X with confidence of Y"
@@ -245,6 +314,8 @@ public class FingerPrintServiceImpl implements FingerPrintService {
                     .message("No se recibió respuesta válida")
                     .build();
 
+        } catch (DeviceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error verificando", e);
             throw new FingerPrintException("Error: " + e.getMessage());
@@ -258,19 +329,21 @@ public class FingerPrintServiceImpl implements FingerPrintService {
     }
 
     @Override
-    public void emptyDatabase() {
+    public void emptyDatabase(String deviceId) {
         log.info("Vaciando base de datos del sensor...");
 
         try {
             // PRIMERO: Vaciar el sensor físico
-            String messages = serialService.sendCommand("EMPTY");
+            String messages = serialService.sendCommand(deviceId, "EMPTY");
 
+            slotAllocator.sensorEmptied(deviceId);
             if (messages.equals("Database emptied!")) {
                 log.info("Base de datos del sensor vaciada exitosamente");
             } else {
                 log.warn("Respuesta inesperada del sensor: {}", messages);
             }
         } catch (Exception e) {
+            // Se vacía la BD igual; la conciliación reporta las plantillas que quedaron en el sensor
             log.error("Error vaciando sensor: {}", e.getMessage());
         }
 
@@ -278,6 +351,8 @@ public class FingerPrintServiceImpl implements FingerPrintService {
             // SEGUNDO: Vaciar BD PostgreSQL
             long deletedCount = repository.count();
             repository.deleteAll();
+            credentialIndex.clearFingerprints();
+            slotAllocator.databaseEmptied();
             log.info("Base de datos PostgreSQL vaciada - {} huellas eliminadas", deletedCount);
         } catch (Exception e) {
             log.error("Error vaciando BD PostgreSQL: {}", e.getMessage());
@@ -293,62 +368,87 @@ public class FingerPrintServiceImpl implements FingerPrintService {
             log.info("Registrando acceso por huella - ID: {}, Confidence: {}",
                     requestDTO.getFingerprintId(), requestDTO.getConfidence());
 
-            // Buscar la huella en la base de datos
-            FingerPrint fingerprint = repository.findByFingerprintIdAndActiveTrue(requestDTO.getFingerprintId())
+            // Resolución en memoria: sin consultas a la BD para la huella ni su usuario
+            FingerprintCredential fingerprint = credentialIndex
+                    .findActiveFingerprint(requestDTO.getFingerprintId())
                     .orElse(null);
 
             boolean authorized = fingerprint != null;
-            User user = fingerprint != null ? fingerprint.getUser() : null;
 
-            // Determinar tipo de acceso (ENTRADA/SALIDA) basado en el último registro de
-            // esta huella
+            // Determinar tipo de acceso (ENTRADA/SALIDA): fijo según la puerta o alternando el estado
+            // guardado en la huella
             AccessType accessType = AccessType.ENTRADA;
-
-            if (fingerprint != null) {
-                // Buscar el último acceso de ESTA huella específica
-                Optional<AccessLog> lastAccess = accessLogRepository
-                        .findLastAccessByFingerprint(fingerprint.getFingerprintId());
-
-                if (lastAccess.isPresent()) {
-                    // Alternar: Si el último fue ENTRADA, ahora es SALIDA y viceversa
-                    accessType = lastAccess.get().getAccessType() == AccessType.ENTRADA
-                            ? AccessType.SALIDA
-                            : AccessType.ENTRADA;
+            LocalDateTime now = LocalDateTime.now();
+            AccessType doorDirection = tapTracker.doorDirection(requestDTO.getDeviceId(), requestDTO.getLocation());
+            boolean passback = authorized && tapTracker.isPassback(AuthenticationMethod.FINGERPRINT,
+                    requestDTO.getFingerprintId(), doorDirection);
+
+            if (passback) {
+                // Anti-passback: se registra como denegado sin tocar el estado de la huella
+                authorized = false;
+                accessType = doorDirection;
+            } else if (fingerprint != null) {
+                if (doorDirection != null) {
+                    accessType = doorDirection;
+                    accessMetrics.timeDatabase(AuthenticationMethod.FINGERPRINT,
+                            () -> repository.updateLastAccessType(fingerprint.getFingerprintId(),
+                                    doorDirection.name(), now));
+                } else {
+                    // UPDATE ... RETURNING atómico: dos lecturas simultáneas no pueden ver el mismo estado
+                    accessType = AccessType.valueOf(accessMetrics.timeDatabase(AuthenticationMethod.FINGERPRINT,
+                            () -> repository.toggleLastAccessType(fingerprint.getFingerprintId(), now)));
                 }
-                // Si no hay acceso previo, se mantiene ENTRADA (default)
+                tapTracker.recordDirection(AuthenticationMethod.FINGERPRINT, requestDTO.getFingerprintId(), accessType);
             }
 
             // Crear log de acceso
             AccessLog accessLog = AccessLog.builder()
                     .rfidCard(null) // No hay tarjeta RFID asociada
-                    .fingerPrint(fingerprint) // Asociar la huella al registro
+                    .fingerPrint(fingerprint != null
+                            ? repository.getReferenceById(fingerprint.getFingerprintId())
+                            : null) // Asociar la huella al registro
                     .accessType(accessType)
                     .authenticationMethod(AuthenticationMethod.FINGERPRINT)
                     .authorized(authorized)
                     .location(requestDTO.getLocation())
                     .deviceId(requestDTO.getDeviceId())
+                    .accessTime(now)
                     .build();
 
-            accessLogRepository.save(accessLog);
+            // Escritura diferida: la respuesta al ESP32 no espera al INSERT
+            accessLogWriter.submit(accessLog);
 
-            String personName = user != null
-                    ? user.getNombres() + " " + user.getApellidoPaterno()
+            String personName = fingerprint != null && fingerprint.hasUser()
+                    ? fingerprint.getPersonName()
                     : "Huella no asignada";
-            String cargo = user != null ? user.getCargo() : null;
-            String message = authorized
-                    ? "Acceso autorizado - Huella válida"
+            String cargo = fingerprint != null ? fingerprint.getCargo() : null;
+            String message = authorized ? "Acceso autorizado - Huella válida"
+                    : passback ? "Acceso denegado - Anti-passback: ENTRADA sin SALIDA previa"
                     : "Acceso denegado - Huella no registrada";
 
             log.info("Acceso por huella registrado: ID {} - {} - {}",
                     requestDTO.getFingerprintId(), accessType, authorized ? "AUTORIZADO" : "DENEGADO");
 
+            eventBroadcaster.publish(AccessStreamEventDTO.builder()
+                    .authenticationMethod(AuthenticationMethod.FINGERPRINT.name())
+                    .fingerprintId(requestDTO.getFingerprintId())
+                    .authorized(authorized)
+                    .accessType(accessType.name())
+                    .personName(personName)
+                    .cargo(cargo)
+                    .message(message)
+                    .accessTime(now)
+                    .location(requestDTO.getLocation())
+                    .deviceId(requestDTO.getDeviceId())
+                    .build());
+
             return AccessRegisterResponseDTO.builder()
                     .authorized(authorized)
                     .accessType(accessType.name())
                     .personName(personName)
                     .cargo(cargo)
                     .message(message)
-                    .timestamp(LocalDateTime.now())
+                    .timestamp(now)
                     .build();
 
         } catch (Exception e) {
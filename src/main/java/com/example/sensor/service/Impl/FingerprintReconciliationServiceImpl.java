@@ -0,0 +1,198 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.cache.CredentialIndex;
+import com.example.sensor.cache.SensorSlotAllocator;
+import com.example.sensor.config.FingerprintReconciliationConfig;
+import com.example.sensor.device.Esp32DeviceRegistry;
+import com.example.sensor.model.dto.Esp32SlotsResponseDTO;
+import com.example.sensor.model.dto.FingerprintReconciliationDTO;
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.service.FingerprintReconciliationService;
+import com.example.sensor.service.SerialService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Concilia los slots del AS608 con la tabla fingerprints.
+ * Cada ejecución lee en una sola petición la tabla de slots ocupados de un rango y la
+ * compara con las filas de ese rango. Una diferencia se corrige recién cuando dos pasadas
+ * seguidas la ven, así no se toca una huella cuyo enroll terminó en el sensor pero aún no
+ * se guardó en la BD. Sin fingerprint.reconciliation.repair las diferencias solo se reportan.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FingerprintReconciliationServiceImpl implements FingerprintReconciliationService {
+
+    private final FingerPrintRepository repository;
+    private final SerialService serialService;
+    private final CredentialIndex credentialIndex;
+    private final SensorSlotAllocator slotAllocator;
+    private final Esp32DeviceRegistry deviceRegistry;
+    private final FingerprintReconciliationConfig config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final NavigableSet<Integer> sensorOrphans = new TreeSet<>();
+    private final NavigableSet<Integer> databaseOrphans = new TreeSet<>();
+    private Integer capacity;
+    private int nextSlot = 1;
+    private String lastRange;
+    private LocalDateTime lastRunAt;
+    private String lastError;
+    private long repairedSensor;
+    private long repairedDatabase;
+
+    @Override
+    public FingerprintReconciliationDTO reconcileNextBatch() {
+        // Si hay una pasada completa en curso, esta ejecución no aporta nada
+        if (!lock.tryLock()) {
+            return getStatus();
+        }
+        try {
+            int from = nextSlot;
+            int to = Math.min(capacity(), from + config.getBatchSize() - 1);
+            reconcileRange(from, to, config.isRepair());
+            nextSlot = to >= capacity() ? 1 : to + 1;
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FingerprintReconciliationDTO reconcileAll(Boolean repair) {
+        boolean apply = repair != null ? repair : config.isRepair();
+        lock.lock();
+        try {
+            // Por lotes: entre lectura y lectura el dispositivo puede atender verify y scan
+            for (int from = 1; from <= capacity(); from += config.getBatchSize()) {
+                reconcileRange(from, Math.min(capacity(), from + config.getBatchSize() - 1), apply);
+            }
+            nextSlot = 1;
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FingerprintReconciliationDTO getStatus() {
+        lock.lock();
+        try {
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reconcileRange(int from, int to, boolean repair) {
+        String deviceId = deviceRegistry.get(config.getDeviceId()).getId();
+        lastRange = from + "-" + to;
+        lastRunAt = LocalDateTime.now();
+        try {
+            Esp32SlotsResponseDTO slots = serialService.readSlots(deviceId, from, to);
+            if (slots.getCapacity() != null && slots.getCapacity() > 0) {
+                capacity = slots.getCapacity();
+            }
+            Set<Integer> occupied = new HashSet<>(slots.getOccupied());
+            slotAllocator.updateFromSensor(deviceId, from, to, occupied, slots.getCapacity());
+            Map<Integer, FingerPrint> rows = repository.findAllByFingerprintIdBetween(from, to).stream()
+                    .collect(Collectors.toMap(FingerPrint::getFingerprintId, Function.identity()));
+
+            Set<Integer> foundOnSensor = new TreeSet<>();
+            for (Integer slot : occupied) {
+                FingerPrint row = rows.get(slot);
+                // Un slot reservado es un enroll en curso: su fila todavía no existe
+                if ((row == null || !Boolean.TRUE.equals(row.getActive())) && !slotAllocator.isReserved(slot)) {
+                    foundOnSensor.add(slot);
+                }
+            }
+            Set<Integer> foundInDatabase = rows.values().stream()
+                    .filter(row -> Boolean.TRUE.equals(row.getActive()))
+                    .map(FingerPrint::getFingerprintId)
+                    .filter(id -> !occupied.contains(id))
+                    .collect(Collectors.toCollection(TreeSet::new));
+
+            Set<Integer> confirmedOnSensor = intersect(sensorOrphans.subSet(from, true, to, true), foundOnSensor);
+            Set<Integer> confirmedInDatabase = intersect(databaseOrphans.subSet(from, true, to, true), foundInDatabase);
+            sensorOrphans.subSet(from, true, to, true).clear();
+            sensorOrphans.addAll(foundOnSensor);
+            databaseOrphans.subSet(from, true, to, true).clear();
+            databaseOrphans.addAll(foundInDatabase);
+
+            if (!foundOnSensor.isEmpty() || !foundInDatabase.isEmpty()) {
+                log.warn("Conciliación {} slots {}: plantillas sin huella activa {}, huellas sin plantilla {}",
+                        deviceId, lastRange, foundOnSensor, foundInDatabase);
+            }
+            if (repair) {
+                confirmedOnSensor.forEach(slot -> deleteTemplate(deviceId, slot));
+                confirmedInDatabase.forEach(id -> deactivate(rows.get(id)));
+            }
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            throw e;
+        }
+    }
+
+    private void deleteTemplate(String deviceId, Integer slot) {
+        try {
+            serialService.sendCommand(deviceId, "DELETE " + slot);
+            slotAllocator.removedFromSensor(deviceId, slot);
+            sensorOrphans.remove(slot);
+            repairedSensor++;
+            log.info("Conciliación: plantilla huérfana {} borrada del sensor {}", slot, deviceId);
+        } catch (Exception e) {
+            log.warn("Conciliación: no se pudo borrar la plantilla {} del sensor {}: {}", slot, deviceId, e.getMessage());
+        }
+    }
+
+    private void deactivate(FingerPrint fingerprint) {
+        fingerprint.setActive(false);
+        repository.save(fingerprint);
+        credentialIndex.refreshFingerprint(fingerprint);
+        slotAllocator.deactivated(fingerprint.getFingerprintId());
+        databaseOrphans.remove(fingerprint.getFingerprintId());
+        repairedDatabase++;
+        log.info("Conciliación: huella {} desactivada, su plantilla no está en el sensor", fingerprint.getFingerprintId());
+    }
+
+    private int capacity() {
+        return capacity != null ? capacity : config.getDefaultCapacity();
+    }
+
+    private static Set<Integer> intersect(Set<Integer> previous, Set<Integer> current) {
+        Set<Integer> confirmed = new TreeSet<>(previous);
+        confirmed.retainAll(current);
+        return confirmed;
+    }
+
+    private FingerprintReconciliationDTO status() {
+        return FingerprintReconciliationDTO.builder()
+                .deviceId(deviceRegistry.get(config.getDeviceId()).getId())
+                .capacity(capacity())
+                .nextSlot(nextSlot)
+                .lastRange(lastRange)
+                .lastRunAt(lastRunAt)
+                .lastError(lastError)
+                .repairEnabled(config.isRepair())
+                .sensorOrphans(new ArrayList<>(sensorOrphans))
+                .databaseOrphans(new ArrayList<>(databaseOrphans))
+                .repairedSensor(repairedSensor)
+                .repairedDatabase(repairedDatabase)
+                .build();
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.cache.CardCredential;
+import com.example.sensor.cache.CredentialIndex;
+import com.example.sensor.cache.FingerprintCredential;
+import com.example.sensor.cache.UserSearchIndex;
+import com.example.sensor.config.UserImportConfig;
+import com.example.sensor.exceptions.InvalidCsvException;
+import com.example.sensor.model.dto.UserImportErrorDTO;
+import com.example.sensor.model.dto.UserImportResultDTO;
+import com.example.sensor.model.dto.UserRequestDTO;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.repository.RfidCardRepository;
+import com.example.sensor.repository.UserRepository;
+import com.example.sensor.service.UserImportService;
+import com.example.sensor.util.CsvReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Alta masiva de usuarios desde CSV, con vinculación de tarjetas y huellas ya registradas.
+ *
+ * <p>El archivo se lee en streaming y se procesa en bloques de users.import.chunk-size filas:
+ * por bloque, tres consultas por conjunto (documentos existentes, tarjetas y huellas), un INSERT
+ * en lote JDBC de los usuarios (users usa IDENTITY, Hibernate no podría agruparlos) y dos UPDATE
+ * en lote que vinculan las credenciales por número de documento. Cada bloque confirma en su propia
+ * transacción, así la memoria y los locks no crecen con el archivo; los duplicados entre bloques
+ * los detectan las consultas del bloque siguiente, porque los anteriores ya están en la BD.
+ *
+ * <p>Las filas con errores se saltan y se informan por línea; si un bloque falla al escribir
+ * (por ejemplo, una tarjeta asignada en paralelo) se revierte entero y sus filas se informan.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of(
+            "nombres", "apellidoPaterno", "tipoDocumento", "numeroDocumento");
+    private static final List<String> COLUMNS = List.of(
+            "nombres", "apellidoPaterno", "apellidoMaterno", "fechaNacimiento", "tipoDocumento",
+            "numeroDocumento", "cargo", "areaDepartamento", "cardUid", "fingerprintId");
+    private static final int MAX_LENGTH = 255;
+    private static final DateTimeFormatter DAY_MONTH_YEAR = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+
+    private static final String INSERT_USER = "INSERT INTO users (usr_nombres_vac, usr_apellido_paterno_vac, " +
+            "usr_apellido_materno_vac, usr_fecha_nacimiento_dt, usr_tipo_documento_vac, usr_nro_documento_vac, " +
+            "usr_cargo_vac, usr_area_departamento_vac, usr_estado_bol, usr_created_at, usr_updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, true, ?, ?)";
+    // "usr_id_int IS NULL": si otra operación asignó la credencial durante la importación, no se pisa
+    private static final String LINK_CARD = "UPDATE rfid_cards SET usr_id_int = " +
+            "(SELECT usr_id_int FROM users WHERE usr_nro_documento_vac = ?), rfid_upd_dt = ? " +
+            "WHERE rfid_uid_vac = ? AND usr_id_int IS NULL";
+    private static final String LINK_FINGERPRINT = "UPDATE fingerprints SET usr_id_int = " +
+            "(SELECT usr_id_int FROM users WHERE usr_nro_documento_vac = ?), fprint_upd_dt = ? " +
+            "WHERE fprint_id_int = ? AND usr_id_int IS NULL";
+
+    private final UserRepository userRepository;
+    private final RfidCardRepository rfidCardRepository;
+    private final FingerPrintRepository fingerPrintRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CredentialIndex credentialIndex;
+    private final UserSearchIndex searchIndex;
+    private final UserImportConfig config;
+
+    private record ImportRow(long line, UserRequestDTO user, String cardUid, Integer fingerprintId) {
+    }
+
+    private record ChunkOutcome(List<ImportRow> imported, List<UserImportErrorDTO> rejected) {
+    }
+
+    /**
+     * Totales de la importación; solo guarda los primeros errores para que la respuesta no crezca con el archivo
+     */
+    private static final class Report {
+        final int maxErrors;
+        final List<UserImportErrorDTO> errors = new ArrayList<>();
+        long received;
+        long imported;
+        long rejected;
+        long cardsLinked;
+        long fingerprintsLinked;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void reject(UserImportErrorDTO error) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            }
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public UserImportResultDTO importUsers(InputStream csv) throws IOException {
+        long startNanos = System.nanoTime();
+        Report report = new Report(config.getMaxReportedErrors());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        CsvReader csvReader = new CsvReader(reader);
+        Map<String, Integer> columns;
+        try {
+            columns = readHeader(csvReader.readRecord());
+        } catch (IllegalArgumentException e) {
+            // Comillas sin cerrar ya en la cabecera
+            throw new InvalidCsvException(e.getMessage());
+        }
+
+        int chunkSize = Math.max(config.getChunkSize(), 1);
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        while (true) {
+            List<String> record;
+            try {
+                record = csvReader.readRecord();
+            } catch (IllegalArgumentException e) {
+                // Comillas sin cerrar: el resto del archivo no se puede separar en filas
+                report.received++;
+                report.reject(error(csvReader.getRecordLine(), null, e.getMessage()));
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            report.received++;
+            ImportRow row = parse(csvReader.getRecordLine(), record, columns, report);
+            if (row != null) {
+                chunk.add(row);
+            }
+            if (chunk.size() >= chunkSize) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+
+        long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("Importación de usuarios: {} filas, {} creados, {} tarjetas y {} huellas vinculadas, {} rechazadas en {} ms",
+                report.received, report.imported, report.cardsLinked, report.fingerprintsLinked,
+                report.rejected, durationMs);
+        return UserImportResultDTO.builder()
+                .received(report.received)
+                .imported(report.imported)
+                .rejected(report.rejected)
+                .cardsLinked(report.cardsLinked)
+                .fingerprintsLinked(report.fingerprintsLinked)
+                .durationMs(durationMs)
+                .errors(report.errors)
+                .errorsTruncated(report.rejected > report.errors.size())
+                .build();
+    }
+
+    /**
+     * Posición de cada columna conocida; sin mayúsculas/minúsculas y en cualquier orden
+     */
+    private Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new InvalidCsvException("El archivo CSV está vacío");
+        }
+        Map<String, String> known = COLUMNS.stream()
+                .collect(Collectors.toMap(column -> column.toLowerCase(Locale.ROOT), Function.identity()));
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = known.get(header.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column != null) {
+                columns.putIfAbsent(column, i);
+            }
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new InvalidCsvException("Faltan columnas obligatorias en la cabecera: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private ImportRow parse(long line, List<String> record, Map<String, Integer> columns, Report report) {
+        List<String> errors = new ArrayList<>();
+        Map<String, String> values = new HashMap<>();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            String value = column.getValue() < record.size() ? record.get(column.getValue()).trim() : "";
+            if (value.length() > MAX_LENGTH) {
+                errors.add(column.getKey() + " supera " + MAX_LENGTH + " caracteres");
+            } else if (!value.isEmpty()) {
+                values.put(column.getKey(), value);
+            }
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!values.containsKey(column)) {
+                errors.add(column + " es obligatorio");
+            }
+        }
+
+        LocalDate fechaNacimiento = null;
+        String fecha = values.get("fechaNacimiento");
+        if (fecha != null) {
+            try {
+                fechaNacimiento = fecha.contains("/") ? LocalDate.parse(fecha, DAY_MONTH_YEAR) : LocalDate.parse(fecha);
+            } catch (DateTimeParseException e) {
+                errors.add("fechaNacimiento inválida (yyyy-MM-dd o dd/MM/yyyy): " + fecha);
+            }
+        }
+        Integer fingerprintId = null;
+        String slot = values.get("fingerprintId");
+        if (slot != null) {
+            try {
+                fingerprintId = Integer.valueOf(slot);
+            } catch (NumberFormatException e) {
+                errors.add("fingerprintId inválido: " + slot);
+            }
+        }
+
+        String numeroDocumento = values.get("numeroDocumento");
+        if (!errors.isEmpty()) {
+            report.reject(error(line, numeroDocumento, String.join("; ", errors)));
+            return null;
+        }
+        UserRequestDTO user = UserRequestDTO.builder()
+                .nombres(values.get("nombres"))
+                .apellidoPaterno(values.get("apellidoPaterno"))
+                .apellidoMaterno(values.get("apellidoMaterno"))
+                .fechaNacimiento(fechaNacimiento)
+                .tipoDocumento(values.get("tipoDocumento"))
+                .numeroDocumento(numeroDocumento)
+                .cargo(values.get("cargo"))
+                .areaDepartamento(values.get("areaDepartamento"))
+                .build();
+        return new ImportRow(line, user, values.get("cardUid"), fingerprintId);
+    }
+
+    private void importChunk(List<ImportRow> chunk, Report report) {
+        // Repetidos dentro del bloque: gana la primera fila
+        Set<String> documents = new HashSet<>();
+        Set<String> cardUids = new HashSet<>();
+        Set<Integer> fingerprintIds = new HashSet<>();
+        List<ImportRow> candidates = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            String numeroDocumento = row.user().getNumeroDocumento();
+            if (!documents.add(numeroDocumento)) {
+                report.reject(error(row.line(), numeroDocumento, "Número de documento repetido en el archivo"));
+            } else if (row.cardUid() != null && !cardUids.add(row.cardUid())) {
+                report.reject(error(row.line(), numeroDocumento, "Tarjeta repetida en el archivo: " + row.cardUid()));
+            } else if (row.fingerprintId() != null && !fingerprintIds.add(row.fingerprintId())) {
+                report.reject(error(row.line(), numeroDocumento, "Huella repetida en el archivo: " + row.fingerprintId()));
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        ChunkOutcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> writeChunk(candidates));
+        } catch (RuntimeException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Bloque de importación revertido (líneas {}-{}): {}",
+                    candidates.get(0).line(), candidates.get(candidates.size() - 1).line(), cause);
+            candidates.forEach(row -> report.reject(
+                    error(row.line(), row.user().getNumeroDocumento(), "Bloque revertido: " + cause)));
+            return;
+        }
+        outcome.rejected().forEach(report::reject);
+        report.imported += outcome.imported().size();
+        for (ImportRow row : outcome.imported()) {
+            if (row.cardUid() != null) {
+                report.cardsLinked++;
+            }
+            if (row.fingerprintId() != null) {
+                report.fingerprintsLinked++;
+            }
+        }
+    }
+
+    /**
+     * Valida el bloque contra la BD con tres consultas por conjunto y escribe las filas válidas en lote
+     */
+    private ChunkOutcome writeChunk(List<ImportRow> candidates) {
+        Set<String> existing = userRepository.findExistingNumerosDocumento(
+                candidates.stream().map(row -> row.user().getNumeroDocumento()).toList());
+        List<String> requestedCards = candidates.stream().map(ImportRow::cardUid).filter(Objects::nonNull).toList();
+        List<Integer> requestedFingerprints = candidates.stream()
+                .map(ImportRow::fingerprintId).filter(Objects::nonNull).toList();
+        Map<String, CardCredential> cards = requestedCards.isEmpty() ? Map.of()
+                : rfidCardRepository.findCredentialsByCardUidIn(requestedCards).stream()
+                .collect(Collectors.toMap(CardCredential::getCardUid, Function.identity()));
+        Map<Integer, FingerprintCredential> fingerprints = requestedFingerprints.isEmpty() ? Map.of()
+                : fingerPrintRepository.findCredentialsByFingerprintIdIn(requestedFingerprints).stream()
+                .collect(Collectors.toMap(FingerprintCredential::getFingerprintId, Function.identity()));
+
+        List<ImportRow> accepted = new ArrayList<>(candidates.size());
+        List<UserImportErrorDTO> rejected = new ArrayList<>();
+        for (ImportRow row : candidates) {
+            String problem = validate(row, existing, cards, fingerprints);
+            if (problem != null) {
+                rejected.add(error(row.line(), row.user().getNumeroDocumento(), problem));
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return new ChunkOutcome(accepted, rejected);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_USER, accepted, accepted.size(), (ps, row) -> {
+            UserRequestDTO user = row.user();
+            ps.setString(1, user.getNombres());
+            ps.setString(2, user.getApellidoPaterno());
+            ps.setString(3, user.getApellidoMaterno());
+            ps.setObject(4, user.getFechaNacimiento());
+            ps.setString(5, user.getTipoDocumento());
+            ps.setString(6, user.getNumeroDocumento());
+            ps.setString(7, user.getCargo());
+            ps.setString(8, user.getAreaDepartamento());
+            ps.setObject(9, now);
+            ps.setObject(10, now);
+        });
+
+        List<ImportRow> withCard = accepted.stream().filter(row -> row.cardUid() != null).toList();
+        if (!withCard.isEmpty()) {
+            int[][] counts = jdbcTemplate.batchUpdate(LINK_CARD, withCard, withCard.size(), (ps, row) -> {
+                ps.setString(1, row.user().getNumeroDocumento());
+                ps.setObject(2, now);
+                ps.setString(3, row.cardUid());
+            });
+            requireAllUpdated(counts, "Una tarjeta del bloque fue asignada por otra operación durante la importación");
+            credentialIndex.refreshCards(rfidCardRepository.findCredentialsByCardUidIn(
+                    withCard.stream().map(ImportRow::cardUid).toList()));
+        }
+        List<ImportRow> withFingerprint = accepted.stream().filter(row -> row.fingerprintId() != null).toList();
+        if (!withFingerprint.isEmpty()) {
+            int[][] counts = jdbcTemplate.batchUpdate(LINK_FINGERPRINT, withFingerprint, withFingerprint.size(),
+                    (ps, row) -> {
+                        ps.setString(1, row.user().getNumeroDocumento());
+                        ps.setObject(2, now);
+                        ps.setInt(3, row.fingerprintId());
+                    });
+            requireAllUpdated(counts, "Una huella del bloque fue asignada por otra operación durante la importación");
+            credentialIndex.refreshFingerprints(fingerPrintRepository.findCredentialsByFingerprintIdIn(
+                    withFingerprint.stream().map(ImportRow::fingerprintId).toList()));
+        }
+        searchIndex.refreshEntries(userRepository.findSearchEntriesByNumeroDocumentoIn(
+                accepted.stream().map(row -> row.user().getNumeroDocumento()).toList()));
+
+        log.debug("Bloque importado: {} usuarios, {} tarjetas, {} huellas",
+                accepted.size(), withCard.size(), withFingerprint.size());
+        return new ChunkOutcome(accepted, rejected);
+    }
+
+    private static String validate(ImportRow row, Set<String> existing, Map<String, CardCredential> cards,
+                                   Map<Integer, FingerprintCredential> fingerprints) {
+        if (existing.contains(row.user().getNumeroDocumento())) {
+            return "Ya existe un usuario con ese número de documento";
+        }
+        if (row.cardUid() != null) {
+            CardCredential card = cards.get(row.cardUid());
+            if (card == null) {
+                return "Tarjeta no encontrada: " + row.cardUid();
+            }
+            if (card.hasUser()) {
+                return "La tarjeta " + row.cardUid() + " ya está asignada a otro usuario";
+            }
+        }
+        if (row.fingerprintId() != null) {
+            FingerprintCredential fingerprint = fingerprints.get(row.fingerprintId());
+            if (fingerprint == null) {
+                return "Huella no encontrada con ID: " + row.fingerprintId();
+            }
+            if (fingerprint.getUserId() != null) {
+                return "La huella " + row.fingerprintId() + " ya está asignada a otro usuario";
+            }
+        }
+        return null;
+    }
+
+    private static void requireAllUpdated(int[][] counts, String message) {
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 1) {
+                    throw new IllegalStateException(message);
+                }
+            }
+        }
+    }
+
+    private static UserImportErrorDTO error(long line, String numeroDocumento, String message) {
+        return UserImportErrorDTO.builder()
+                .line(line)
+                .numeroDocumento(numeroDocumento)
+                .error(message)
+                .build();
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.sensor.service.Impl;
 
+import com.example.sensor.cache.CredentialIndex;
+import com.example.sensor.cache.SensorSlotAllocator;
+import com.example.sensor.cache.UserSearchIndex;
 import com.example.sensor.exceptions.FingerPrintException;
 import com.example.sensor.exceptions.FingerPrintNotFoundException;
+import com.example.sensor.exceptions.InvalidRequestException;
 import com.example.sensor.mapper.UserMapper;
 import com.example.sensor.model.dto.AssignFingerPrintDTO;
 import com.example.sensor.model.dto.AssignRfidCardDTO;
+import com.example.sensor.model.dto.PageResponseDTO;
 import com.example.sensor.model.dto.UserRequestDTO;
 import com.example.sensor.model.dto.UserResponseDTO;
+import com.example.sensor.model.dto.UserSearchResultDTO;
 import com.example.sensor.model.entity.FingerPrint;
 import com.example.sensor.model.entity.RfidCard;
 import com.example.sensor.model.entity.User;
@@ -14,12 +20,17 @@ import com.example.sensor.repository.FingerPrintRepository;
 import com.example.sensor.repository.RfidCardRepository;
 import com.example.sensor.repository.UserRepository;
 import com.example.sensor.service.UserService;
+import com.example.sensor.util.PageableUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,11 +39,17 @@ import java.util.stream.Collectors;
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    private static final Set<String> SORTABLE = Set.of("id", "nombres", "apellidoPaterno", "apellidoMaterno",
+            "numeroDocumento", "cargo", "areaDepartamento", "createdAt", "updatedAt");
+
     private final UserRepository userRepository;
     private final RfidCardRepository rfidCardRepository;
     private final FingerPrintRepository fingerPrintRepository;
     private final UserMapper userMapper;
     private final Esp32HttpServiceImpl esp32HttpService;
+    private final CredentialIndex credentialIndex;
+    private final SensorSlotAllocator slotAllocator;
+    private final UserSearchIndex searchIndex;
 
     @Override
     public UserResponseDTO createUser(UserRequestDTO requestDTO) {
@@ -44,6 +61,7 @@ public class UserServiceImpl implements UserService {
 
         User user = userMapper.toEntity(requestDTO);
         User saved = userRepository.save(user);
+        searchIndex.refresh(saved);
 
         log.info("Usuario creado: ID {}", saved.getId());
         return userMapper.toResponseDTO(saved);
@@ -60,12 +78,40 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public List<UserResponseDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .filter(User::getActive) // Solo mostrar usuarios activos
+        // Solo usuarios activos, filtrados en SQL y con sus credenciales en el mismo SELECT
+        return userRepository.findAllByActiveTrue(Pageable.unpaged(Sort.by("id"))).stream()
                 .map(userMapper::toResponseDTO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponseDTO<UserResponseDTO> getUsersPage(Pageable pageable) {
+        return PageResponseDTO.from(
+                userRepository.findAllByActiveTrue(PageableUtils.restrictSort(pageable, SORTABLE, "id")),
+                userMapper::toResponseDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<UserSearchResultDTO> searchUsers(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("El parámetro q es obligatorio");
+        }
+        // Sin transacción ni consultas: se responde desde el índice en memoria
+        return searchIndex.search(query, limit != null ? limit : 20).stream()
+                .map(hit -> UserSearchResultDTO.builder()
+                        .id(hit.entry().getId())
+                        .fullName(hit.entry().getFullName())
+                        .tipoDocumento(hit.entry().getTipoDocumento())
+                        .numeroDocumento(hit.entry().getNumeroDocumento())
+                        .cargo(hit.entry().getCargo())
+                        .areaDepartamento(hit.entry().getAreaDepartamento())
+                        .score(hit.score())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     @Override
     public UserResponseDTO updateUser(Integer id, UserRequestDTO requestDTO) {
         User user = userRepository.findById(id)
@@ -73,6 +119,15 @@ public class UserServiceImpl implements UserService {
 
         userMapper.updateEntityFromDTO(requestDTO, user);
         User updated = userRepository.save(user);
+        searchIndex.refresh(updated);
+
+        // El nombre y cargo se copian en el índice de credenciales
+        if (updated.getRfidCard() != null) {
+            credentialIndex.refreshCard(updated.getRfidCard());
+        }
+        if (updated.getFingerPrint() != null) {
+            credentialIndex.refreshFingerprint(updated.getFingerPrint());
+        }
 
         log.info("Usuario actualizado: ID {}", id);
         return userMapper.toResponseDTO(updated);
@@ -92,15 +147,18 @@ public class UserServiceImpl implements UserService {
                 // Eliminar huella del sensor ESP32 físico
                 log.info("Eliminando huella ID {} del sensor ESP32...", fingerprintId);
                 esp32HttpService.sendCommand("DELETE " + fingerprintId);
+                slotAllocator.removedFromSensor(null, fingerprintId);
                 log.info("Huella eliminada del sensor físico");
             } catch (Exception e) {
                 log.error("Error eliminando huella del sensor: {}", e.getMessage());
-                // Continuar aunque falle el sensor
+                // Continuar aunque falle el sensor: la conciliación reporta la plantilla huérfana
             }
             
             // Marcar huella como inactiva pero NO eliminarla (para mantener historial)
             fingerPrint.setActive(false);
             fingerPrintRepository.save(fingerPrint);
+            credentialIndex.refreshFingerprint(fingerPrint);
+            slotAllocator.deactivated(fingerprintId);
         }
         
         // Desasociar, deshabilitar y desautorizar tarjeta RFID
@@ -110,12 +168,14 @@ public class UserServiceImpl implements UserService {
             card.setActive(false);
             card.setAuthorized(false);
             rfidCardRepository.save(card);
+            credentialIndex.refreshCard(card);
             log.info("Tarjeta RFID ID {} desasociada, deshabilitada y desautorizada", card.getId());
         }
 
         // Soft delete: solo marcar usuario como inactivo (mantener en BD para historial)
         user.setActive(false);
         userRepository.save(user);
+        searchIndex.refresh(user);
         log.info("Usuario desactivado (soft delete): ID {}", id);
     }
 
@@ -144,6 +204,7 @@ public class UserServiceImpl implements UserService {
         // Asignar
         card.setUser(user);
         rfidCardRepository.save(card);
+        credentialIndex.refreshCard(card);
 
         log.info("Tarjeta asignada exitosamente");
         return userMapper.toResponseDTO(user);
@@ -175,6 +236,7 @@ public class UserServiceImpl implements UserService {
         // Asignar
         fingerPrint.setUser(user);
         fingerPrintRepository.save(fingerPrint);
+        credentialIndex.refreshFingerprint(fingerPrint);
 
         log.info("Huella asignada exitosamente");
         return userMapper.toResponseDTO(user);
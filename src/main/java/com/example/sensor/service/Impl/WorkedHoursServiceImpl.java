@@ -0,0 +1,201 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.model.dto.WorkSessionDTO;
+import com.example.sensor.model.dto.WorkedHoursDTO;
+import com.example.sensor.model.dto.WorkedHoursDailyDTO;
+import com.example.sensor.model.entity.WorkedHoursDaily;
+import com.example.sensor.model.entity.WorkedHoursDailyId;
+import com.example.sensor.model.enums.WorkSessionStatus;
+import com.example.sensor.repository.AccessLogRepository;
+import com.example.sensor.repository.WorkedHoursDailyRepository;
+import com.example.sensor.service.WorkedHoursService;
+import com.example.sensor.worktime.WorkSession;
+import com.example.sensor.worktime.WorkSessionEngine;
+import com.example.sensor.worktime.WorkTap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class WorkedHoursServiceImpl implements WorkedHoursService {
+
+    private final AccessLogRepository logRepository;
+    private final WorkedHoursDailyRepository dailyRepository;
+    private final WorkSessionEngine engine;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkedHoursDTO> calculate(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Duration margin = engine.getMaxSession();
+
+        // Memoria proporcional al número de usuarios, no al de marcaciones
+        Map<Integer, Totals> byUser = new LinkedHashMap<>();
+        try (Stream<WorkTap> taps = logRepository.streamWorkTaps(start.minus(margin), end.plus(margin))) {
+            engine.process(taps.iterator(), start, end,
+                    session -> byUser.computeIfAbsent(session.getUserId(), id -> new Totals(session)).add(session, false));
+        }
+
+        List<WorkedHoursDTO> result = new ArrayList<>(byUser.size());
+        byUser.values().forEach(totals -> result.add(totals.toDto(from, to)));
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public WorkedHoursDTO calculateForUser(Integer userId, LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Duration margin = engine.getMaxSession();
+
+        Totals[] totals = new Totals[1];
+        try (Stream<WorkTap> taps = logRepository.streamWorkTapsByUser(userId, start.minus(margin), end.plus(margin))) {
+            engine.process(taps.iterator(), start, end, session -> {
+                if (totals[0] == null) {
+                    totals[0] = new Totals(session);
+                }
+                totals[0].add(session, true);
+            });
+        }
+
+        if (totals[0] == null) {
+            return WorkedHoursDTO.builder()
+                    .userId(userId).from(from).to(to)
+                    .totalMinutes(0L).totalHours(0.0).daysWorked(0)
+                    .completeSessions(0).missingExits(0).openSessions(0)
+                    .sessions(List.of())
+                    .build();
+        }
+        return totals[0].toDto(from, to);
+    }
+
+    @Override
+    @Transactional
+    public int recomputeDays(LocalDate from, LocalDate to) {
+        long startNanos = System.nanoTime();
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Duration margin = engine.getMaxSession();
+
+        Map<WorkedHoursDailyId, WorkedHoursDaily> rows = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        try (Stream<WorkTap> taps = logRepository.streamWorkTaps(start.minus(margin), end.plus(margin))) {
+            engine.process(taps.iterator(), start, end, session -> {
+                if (session.getStatus() == WorkSessionStatus.OPEN) {
+                    return;
+                }
+                WorkedHoursDaily row = rows.computeIfAbsent(
+                        new WorkedHoursDailyId(session.getUserId(), session.getDay()),
+                        id -> WorkedHoursDaily.builder().id(id).minutes(0).sessions(0).missingExits(0)
+                                .updatedAt(now).build());
+                if (session.getStatus() == WorkSessionStatus.COMPLETE) {
+                    row.setMinutes(row.getMinutes() + (int) session.getMinutes());
+                    row.setSessions(row.getSessions() + 1);
+                } else {
+                    row.setMissingExits(row.getMissingExits() + 1);
+                }
+            });
+        }
+
+        // Filas nuevas con clave asignada: INSERT en lote directo (saveAll haría un SELECT por fila vía merge)
+        dailyRepository.deleteDays(from, to);
+        jdbcTemplate.batchUpdate("INSERT INTO worked_hours_daily (wh_usr_id_int, wh_day_dt, wh_minutes_int, " +
+                        "wh_sessions_int, wh_missing_exits_int, wh_upd_dt) VALUES (?, ?, ?, ?, ?, ?)",
+                new ArrayList<>(rows.values()), 500, (ps, row) -> {
+                    ps.setInt(1, row.getId().getUserId());
+                    ps.setObject(2, row.getId().getDay());
+                    ps.setInt(3, row.getMinutes());
+                    ps.setInt(4, row.getSessions());
+                    ps.setInt(5, row.getMissingExits());
+                    ps.setObject(6, row.getUpdatedAt());
+                });
+
+        log.info("Horas trabajadas recalculadas del {} al {}: {} filas en {} ms",
+                from, to, rows.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        return rows.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkedHoursDailyDTO> getDaily(Integer userId, LocalDate from, LocalDate to) {
+        if (userId != null) {
+            return dailyRepository.findDaysByUser(userId, from, to);
+        }
+        return dailyRepository.findDays(from, to);
+    }
+
+    /**
+     * Acumulador de un usuario
+     */
+    private static class Totals {
+        final Integer userId;
+        final String personName;
+        final Set<LocalDate> days = new HashSet<>();
+        final List<WorkSessionDTO> sessions = new ArrayList<>();
+        long minutes;
+        int complete;
+        int missingExits;
+        int open;
+
+        Totals(WorkSession first) {
+            this.userId = first.getUserId();
+            this.personName = first.getPersonName();
+        }
+
+        Totals add(WorkSession session, boolean keepDetail) {
+            switch (session.getStatus()) {
+                case COMPLETE -> {
+                    complete++;
+                    minutes += session.getMinutes();
+                    days.add(session.getDay());
+                }
+                case MISSING_EXIT -> missingExits++;
+                case OPEN -> open++;
+            }
+            if (keepDetail) {
+                sessions.add(WorkSessionDTO.builder()
+                        .entry(session.getEntry())
+                        .exit(session.getExit())
+                        .entryLocation(session.getEntryLocation())
+                        .exitLocation(session.getExitLocation())
+                        .minutes(session.getMinutes())
+                        .status(session.getStatus().name())
+                        .build());
+            }
+            return this;
+        }
+
+        WorkedHoursDTO toDto(LocalDate from, LocalDate to) {
+            return WorkedHoursDTO.builder()
+                    .userId(userId)
+                    .personName(personName)
+                    .from(from)
+                    .to(to)
+                    .totalMinutes(minutes)
+                    .totalHours(Math.round(minutes / 60.0 * 100) / 100.0)
+                    .daysWorked(days.size())
+                    .completeSessions(complete)
+                    .missingExits(missingExits)
+                    .openSessions(open)
+                    .sessions(sessions.isEmpty() ? null : sessions)
+                    .build();
+        }
+    }
+}
@@ -1,9 +1,26 @@
 package com.example.sensor.service;
 
+import com.example.sensor.model.dto.Esp32SlotsResponseDTO;
+
 import java.util.List;
 
 public interface SerialService {
-    String sendCommand(String command) throws Exception;
-    List<String> sendCommandWithProgress(String command) throws Exception;
-    boolean isConnected();
+    // deviceId null = dispositivo por defecto
+    String sendCommand(String deviceId, String command) throws Exception;
+    List<String> sendCommandWithProgress(String deviceId, String command) throws Exception;
+    boolean isConnected(String deviceId);
+    // Slots ocupados del sensor entre from y to (inclusive), leídos en una sola petición
+    Esp32SlotsResponseDTO readSlots(String deviceId, int from, int to);
+
+    default String sendCommand(String command) throws Exception {
+        return sendCommand(null, command);
+    }
+
+    default List<String> sendCommandWithProgress(String command) throws Exception {
+        return sendCommandWithProgress(null, command);
+    }
+
+    default boolean isConnected() {
+        return isConnected(null);
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.sensor.service;
+
+import com.example.sensor.model.dto.UserImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface UserImportService {
+    // Alta masiva desde CSV (cabecera con los campos de UserRequestDTO + cardUid y fingerprintId opcionales)
+    UserImportResultDTO importUsers(InputStream csv) throws IOException;
+}
@@ -2,8 +2,11 @@ package com.example.sensor.service;
 
 import com.example.sensor.model.dto.AssignFingerPrintDTO;
 import com.example.sensor.model.dto.AssignRfidCardDTO;
+import com.example.sensor.model.dto.PageResponseDTO;
 import com.example.sensor.model.dto.UserRequestDTO;
 import com.example.sensor.model.dto.UserResponseDTO;
+import com.example.sensor.model.dto.UserSearchResultDTO;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -14,6 +17,12 @@ public interface UserService {
 
     List<UserResponseDTO> getAllUsers();
 
+    // Usuarios activos paginados; sort limitado a columnas de users
+    PageResponseDTO<UserResponseDTO> getUsersPage(Pageable pageable);
+
+    // Búsqueda en memoria por nombres, apellidos, documento, cargo y área (prefijo y errores de tipeo)
+    List<UserSearchResultDTO> searchUsers(String query, Integer limit);
+
     UserResponseDTO updateUser(Integer id, UserRequestDTO requestDTO);
 
     void deleteUser(Integer id);
@@ -0,0 +1,21 @@
+package com.example.sensor.service;
+
+import com.example.sensor.model.dto.WorkedHoursDTO;
+import com.example.sensor.model.dto.WorkedHoursDailyDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface WorkedHoursService {
+    // Cálculo en vivo desde access_logs: un resumen por usuario
+    List<WorkedHoursDTO> calculate(LocalDate from, LocalDate to);
+
+    // Cálculo en vivo de un usuario con el detalle de sus jornadas
+    WorkedHoursDTO calculateForUser(Integer userId, LocalDate from, LocalDate to);
+
+    // Recalcula y guarda las horas por día del rango; devuelve las filas escritas
+    int recomputeDays(LocalDate from, LocalDate to);
+
+    // Horas por día ya calculadas en segundo plano (userId opcional)
+    List<WorkedHoursDailyDTO> getDaily(Integer userId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,115 @@
+package com.example.sensor.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV en streaming (RFC 4180): un registro a la vez, con campos entre comillas que pueden
+ * contener separadores, comillas dobles ("") y saltos de línea.
+ *
+ * <p>El separador se deduce de la cabecera: ';' si aparece más que ',' (Excel con configuración
+ * regional en español), si no ','. Se ignora el BOM UTF-8 inicial.
+ */
+public class CsvReader {
+
+    private static final int MAX_HEADER_LENGTH = 8192;
+
+    private final BufferedReader reader;
+    private final char delimiter;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        this.delimiter = detectDelimiter(reader);
+    }
+
+    /**
+     * Siguiente registro, o null al final del archivo. Las líneas vacías se saltan.
+     */
+    public List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = reader.read();
+            }
+        }
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                line++;
+            }
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Comillas sin cerrar en la línea " + recordLine);
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    /**
+     * Línea del archivo (desde 1) donde empieza el último registro leído
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    private static char detectDelimiter(BufferedReader reader) throws IOException {
+        reader.mark(MAX_HEADER_LENGTH);
+        int commas = 0;
+        int semicolons = 0;
+        for (int i = 0, c = reader.read(); i < MAX_HEADER_LENGTH && c != -1 && c != '\n'; i++, c = reader.read()) {
+            if (c == ',') {
+                commas++;
+            } else if (c == ';') {
+                semicolons++;
+            }
+        }
+        reader.reset();
+        return semicolons > commas ? ';' : ',';
+    }
+}
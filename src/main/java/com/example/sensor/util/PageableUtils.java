@@ -0,0 +1,31 @@
+package com.example.sensor.util;
+
+import com.example.sensor.exceptions.InvalidSortException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+public final class PageableUtils {
+
+    private PageableUtils() {
+    }
+
+    /**
+     * Valida el orden pedido contra las columnas permitidas (evita ordenar por relaciones que
+     * agregan JOINs) y aplica el orden por defecto si no se pidió ninguno. El id desempata para
+     * que las páginas sean estables.
+     */
+    public static Pageable restrictSort(Pageable pageable, Set<String> allowed, String idProperty) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!allowed.contains(order.getProperty())) {
+                throw new InvalidSortException(order.getProperty(), allowed);
+            }
+        }
+        Sort sort = pageable.getSort().getOrderFor(idProperty) != null
+                ? pageable.getSort()
+                : pageable.getSort().and(Sort.by(idProperty));
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+}
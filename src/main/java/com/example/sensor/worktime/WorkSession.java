@@ -0,0 +1,33 @@
+package com.example.sensor.worktime;
+
+import com.example.sensor.model.enums.WorkSessionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Jornada emparejada por {@link WorkSessionEngine}. Se atribuye al día de la entrada,
+ * también cuando la salida cae al día siguiente (turno nocturno).
+ */
+@Getter
+@AllArgsConstructor
+public class WorkSession {
+    private final Integer userId;
+    private final String personName;
+    private final LocalDateTime entry;
+    private final LocalDateTime exit;
+    private final String entryLocation;
+    private final String exitLocation;
+    private final WorkSessionStatus status;
+
+    public long getMinutes() {
+        return status == WorkSessionStatus.COMPLETE ? Duration.between(entry, exit).toMinutes() : 0;
+    }
+
+    public LocalDate getDay() {
+        return entry.toLocalDate();
+    }
+}
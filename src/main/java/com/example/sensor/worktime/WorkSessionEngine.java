@@ -0,0 +1,120 @@
+package com.example.sensor.worktime;
+
+import com.example.sensor.config.WorkTimeConfig;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.WorkSessionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Empareja entradas y salidas por usuario en una sola pasada.
+ *
+ * <p>Recibe las marcaciones autorizadas ordenadas por (usuario, hora), mezclando
+ * tarjeta y huella, y solo guarda el estado del usuario en curso, así que la memoria
+ * no depende del volumen de registros. El tipo ENTRADA/SALIDA de access_logs se
+ * alterna por credencial y deja de ser fiable cuando una persona usa ambos métodos
+ * o se salta una marcación; por eso se empareja por alternancia dentro del usuario:
+ * <ul>
+ *   <li>sin jornada abierta, la marcación abre una;</li>
+ *   <li>con jornada abierta, la siguiente marcación la cierra, salvo que llegue después
+ *       de {@code maxSessionHours}: entonces la abierta queda como MISSING_EXIT y la nueva abre otra;</li>
+ *   <li>marcaciones repetidas dentro de {@code duplicateTapSeconds} se ignoran.</li>
+ * </ul>
+ * Las jornadas se emiten solo si su entrada cae en [from, to); la lectura debe empezar
+ * {@code maxSessionHours} antes para emparejar las salidas que cruzan el inicio del rango.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkSessionEngine {
+
+    private final WorkTimeConfig config;
+
+    public Duration getMaxSession() {
+        return Duration.ofHours(config.getMaxSessionHours());
+    }
+
+    public void process(Iterator<WorkTap> taps, LocalDateTime from, LocalDateTime to, Consumer<WorkSession> sink) {
+        Pairing pairing = null;
+        while (taps.hasNext()) {
+            WorkTap tap = taps.next();
+            if (pairing == null || !pairing.userId.equals(tap.getUserId())) {
+                if (pairing != null) {
+                    pairing.finish();
+                }
+                pairing = new Pairing(tap.getUserId(), from, to, sink);
+            }
+            pairing.accept(tap);
+        }
+        if (pairing != null) {
+            pairing.finish();
+        }
+    }
+
+    private class Pairing {
+        final Integer userId;
+        final LocalDateTime from;
+        final LocalDateTime to;
+        final Consumer<WorkSession> sink;
+        final Duration maxSession = getMaxSession();
+        final Duration duplicateWindow = Duration.ofSeconds(config.getDuplicateTapSeconds());
+
+        WorkTap open;
+        LocalDateTime lastTap;
+
+        Pairing(Integer userId, LocalDateTime from, LocalDateTime to, Consumer<WorkSession> sink) {
+            this.userId = userId;
+            this.from = from;
+            this.to = to;
+            this.sink = sink;
+        }
+
+        void accept(WorkTap tap) {
+            if (lastTap != null && Duration.between(lastTap, tap.getAccessTime()).compareTo(duplicateWindow) < 0) {
+                return;
+            }
+            lastTap = tap.getAccessTime();
+
+            if (open == null) {
+                // Antes del rango solo interesa encontrar entradas; una salida ahí cierra algo ya fuera del rango
+                if (tap.getAccessTime().isBefore(from) && tap.getAccessType() == AccessType.SALIDA) {
+                    return;
+                }
+                open = tap;
+                return;
+            }
+
+            if (Duration.between(open.getAccessTime(), tap.getAccessTime()).compareTo(maxSession) > 0) {
+                emit(open, null, WorkSessionStatus.MISSING_EXIT);
+                open = tap;
+                return;
+            }
+
+            emit(open, tap, WorkSessionStatus.COMPLETE);
+            open = null;
+        }
+
+        void finish() {
+            if (open == null) {
+                return;
+            }
+            boolean canStillClose = open.getAccessTime().plus(maxSession).isAfter(LocalDateTime.now());
+            emit(open, null, canStillClose ? WorkSessionStatus.OPEN : WorkSessionStatus.MISSING_EXIT);
+            open = null;
+        }
+
+        private void emit(WorkTap entry, WorkTap exit, WorkSessionStatus status) {
+            LocalDateTime entryTime = entry.getAccessTime();
+            if (entryTime.isBefore(from) || !entryTime.isBefore(to)) {
+                return;
+            }
+            sink.accept(new WorkSession(userId, entry.getPersonName(), entryTime,
+                    exit != null ? exit.getAccessTime() : null,
+                    entry.getLocation(), exit != null ? exit.getLocation() : null, status));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.sensor.worktime;
+
+import com.example.sensor.model.enums.AccessType;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marcación autorizada de un usuario, sin importar si fue con tarjeta o huella.
+ * Se construye en la consulta JPQL que alimenta a {@link WorkSessionEngine}.
+ */
+@Getter
+public class WorkTap {
+    private final Integer userId;
+    private final String personName;
+    private final LocalDateTime accessTime;
+    private final AccessType accessType;
+    private final String location;
+
+    public WorkTap(Integer userId, String nombres, String apellidoPaterno, LocalDateTime accessTime,
+                   AccessType accessType, String location) {
+        this.userId = userId;
+        this.personName = nombres + " " + apellidoPaterno;
+        this.accessTime = accessTime;
+        this.accessType = accessType;
+        this.location = location;
+    }
+}
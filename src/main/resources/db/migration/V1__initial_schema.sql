@@ -0,0 +1,57 @@
+-- Esquema base tal como lo generaba Hibernate (ddl-auto=update).
+-- Es idempotente: en una base existente solo agrega lo que falte, en una nueva crea todo.
+
+CREATE TABLE IF NOT EXISTS users (
+    usr_id_int                integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    usr_nombres_vac           varchar(255) NOT NULL,
+    usr_apellido_paterno_vac  varchar(255) NOT NULL,
+    usr_apellido_materno_vac  varchar(255),
+    usr_fecha_nacimiento_dt   date,
+    usr_tipo_documento_vac    varchar(255) NOT NULL,
+    usr_nro_documento_vac     varchar(255) NOT NULL UNIQUE,
+    usr_cargo_vac             varchar(255),
+    usr_area_departamento_vac varchar(255),
+    usr_estado_bol            boolean      NOT NULL,
+    usr_created_at            timestamp(6),
+    usr_updated_at            timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS rfid_cards (
+    rfid_id_int         integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rfid_uid_vac        varchar(255) NOT NULL UNIQUE,
+    rfid_estado_bol     boolean      NOT NULL,
+    rfid_autorizado_bol boolean      NOT NULL,
+    rfid_cre_dt         timestamp(6),
+    rfid_upd_dt         timestamp(6),
+    usr_id_int          integer UNIQUE REFERENCES users (usr_id_int)
+);
+
+CREATE TABLE IF NOT EXISTS fingerprints (
+    fprint_id_int     integer      NOT NULL PRIMARY KEY,
+    fprint_estado_bol boolean      NOT NULL,
+    fprint_cre_dt     timestamp(6),
+    fprint_upd_dt     timestamp(6),
+    usr_id_int        integer UNIQUE REFERENCES users (usr_id_int)
+);
+
+CREATE TABLE IF NOT EXISTS access_logs (
+    access_id_int             integer      NOT NULL PRIMARY KEY,
+    access_type_enum          varchar(255) NOT NULL,
+    access_authorized_bol     boolean      NOT NULL,
+    access_time_dt            timestamp(6) NOT NULL,
+    access_location_vac       varchar(255),
+    access_device_id_vac      varchar(255),
+    authentication_method_vac varchar(255) NOT NULL,
+    access_notes_vac          varchar(255),
+    rfid_id_int               integer REFERENCES rfid_cards (rfid_id_int),
+    fprint_id_int             integer REFERENCES fingerprints (fprint_id_int)
+);
+
+-- Columnas agregadas después de la creación original
+ALTER TABLE rfid_cards ADD COLUMN IF NOT EXISTS rfid_last_access_type_enum varchar(255);
+ALTER TABLE rfid_cards ADD COLUMN IF NOT EXISTS rfid_last_access_dt timestamp(6);
+ALTER TABLE fingerprints ADD COLUMN IF NOT EXISTS fprint_last_access_type_enum varchar(255);
+ALTER TABLE fingerprints ADD COLUMN IF NOT EXISTS fprint_last_access_dt timestamp(6);
+ALTER TABLE access_logs ADD COLUMN IF NOT EXISTS access_device_seq_bint bigint;
+
+CREATE SEQUENCE IF NOT EXISTS access_logs_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,138 @@
+-- access_logs particionada por mes sobre access_time_dt.
+-- Insertar y consultar un rango solo toca las particiones del periodo, sin importar
+-- cuánta historia acumule la tabla. Las particiones futuras las crea
+-- AccessLogPartitionMaintainer llamando a ensure_access_logs_partitions().
+
+-- Crea (si no existe) la partición mensual que contiene p_month
+CREATE OR REPLACE FUNCTION create_access_logs_partition(p_month date) RETURNS boolean AS $$
+DECLARE
+    v_start date := date_trunc('month', p_month)::date;
+    v_end   date := (date_trunc('month', p_month) + interval '1 month')::date;
+    v_name  text := 'access_logs_' || to_char(v_start, 'YYYY_MM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF access_logs FOR VALUES FROM (%L) TO (%L)',
+                   v_name, v_start, v_end);
+    RETURN true;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Asegura las particiones del mes actual y de los p_months_ahead siguientes; devuelve cuántas creó
+CREATE OR REPLACE FUNCTION ensure_access_logs_partitions(p_months_ahead integer) RETURNS integer AS $$
+DECLARE
+    v_month   date;
+    v_created integer := 0;
+BEGIN
+    -- Varias instancias pueden ejecutarlo a la vez
+    PERFORM pg_advisory_xact_lock(hashtext('access_logs_partitions'));
+    FOR v_month IN
+        SELECT generate_series(date_trunc('month', now()),
+                               date_trunc('month', now()) + make_interval(months => p_months_ahead),
+                               interval '1 month')::date
+    LOOP
+        IF create_access_logs_partition(v_month) THEN
+            v_created := v_created + 1;
+        END IF;
+    END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 1. Apartar la tabla actual liberando los nombres de sus restricciones e índices
+ALTER TABLE access_logs RENAME TO access_logs_legacy;
+ALTER TABLE access_logs_legacy DROP CONSTRAINT IF EXISTS access_logs_pkey;
+ALTER TABLE access_logs_legacy DROP CONSTRAINT IF EXISTS uk_access_logs_device_seq;
+DROP INDEX IF EXISTS idx_access_logs_time;
+DROP INDEX IF EXISTS idx_access_logs_card_time;
+DROP INDEX IF EXISTS idx_access_logs_fprint_time;
+DROP INDEX IF EXISTS idx_access_logs_device_time;
+DROP INDEX IF EXISTS idx_access_logs_location_time;
+DROP INDEX IF EXISTS idx_access_logs_authorized_time;
+
+-- 2. Tabla particionada (la clave primaria debe incluir la columna de partición)
+CREATE TABLE access_logs (
+    access_id_int             integer      NOT NULL,
+    access_type_enum          varchar(255) NOT NULL,
+    access_authorized_bol     boolean      NOT NULL,
+    access_time_dt            timestamp(6) NOT NULL,
+    access_location_vac       varchar(255),
+    access_device_id_vac      varchar(255),
+    access_device_seq_bint    bigint,
+    authentication_method_vac varchar(255) NOT NULL,
+    access_notes_vac          varchar(255),
+    rfid_id_int               integer,
+    fprint_id_int             integer,
+    CONSTRAINT pk_access_logs PRIMARY KEY (access_id_int, access_time_dt),
+    CONSTRAINT fk_access_logs_rfid FOREIGN KEY (rfid_id_int) REFERENCES rfid_cards (rfid_id_int),
+    CONSTRAINT fk_access_logs_fprint FOREIGN KEY (fprint_id_int) REFERENCES fingerprints (fprint_id_int),
+    CONSTRAINT ck_access_logs_type CHECK (access_type_enum IN ('ENTRADA', 'SALIDA')),
+    CONSTRAINT ck_access_logs_method CHECK (authentication_method_vac IN ('RFID', 'FINGERPRINT'))
+) PARTITION BY RANGE (access_time_dt);
+
+-- Eventos fuera de las particiones creadas (p. ej. reloj del ESP32 desfasado en una carga offline)
+CREATE TABLE access_logs_default PARTITION OF access_logs DEFAULT;
+
+SELECT create_access_logs_partition(m::date)
+FROM generate_series(date_trunc('month', COALESCE((SELECT MIN(access_time_dt) FROM access_logs_legacy), now())),
+                     date_trunc('month', now()) + interval '3 months',
+                     interval '1 month') AS m;
+
+-- 3. Índices (se propagan a cada partición).
+-- B-tree (columna, access_time_dt, access_id_int) para la paginación por cursor y los filtros selectivos;
+-- BRIN para barridos de rango (exportación, resúmenes): las filas llegan en orden de tiempo.
+CREATE INDEX idx_access_logs_time ON access_logs (access_time_dt DESC, access_id_int DESC);
+CREATE INDEX idx_access_logs_card_time ON access_logs (rfid_id_int, access_time_dt DESC, access_id_int DESC);
+CREATE INDEX idx_access_logs_fprint_time ON access_logs (fprint_id_int, access_time_dt DESC, access_id_int DESC);
+CREATE INDEX idx_access_logs_device_time ON access_logs (access_device_id_vac, access_time_dt DESC, access_id_int DESC);
+CREATE INDEX idx_access_logs_location_time ON access_logs (access_location_vac, access_time_dt DESC, access_id_int DESC);
+-- Los rechazos son pocos: índice parcial en lugar de indexar el booleano completo
+CREATE INDEX idx_access_logs_denied_time ON access_logs (access_time_dt DESC, access_id_int DESC)
+    WHERE access_authorized_bol = false;
+CREATE INDEX brin_access_logs_time ON access_logs USING brin (access_time_dt) WITH (pages_per_range = 32);
+
+-- 4. Unicidad (dispositivo, secuencia) de las cargas offline.
+-- Una restricción UNIQUE en tabla particionada tendría que incluir access_time_dt,
+-- así que se lleva en una tabla aparte alimentada por trigger.
+CREATE TABLE access_log_device_sequences (
+    access_device_id_vac   varchar(255) NOT NULL,
+    access_device_seq_bint bigint       NOT NULL,
+    CONSTRAINT pk_access_log_device_sequences PRIMARY KEY (access_device_id_vac, access_device_seq_bint)
+);
+
+CREATE OR REPLACE FUNCTION access_logs_register_device_seq() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO access_log_device_sequences (access_device_id_vac, access_device_seq_bint)
+    VALUES (NEW.access_device_id_vac, NEW.access_device_seq_bint);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 5. Copiar la historia y retirar la tabla anterior
+INSERT INTO access_logs (access_id_int, access_type_enum, access_authorized_bol, access_time_dt,
+                         access_location_vac, access_device_id_vac, access_device_seq_bint,
+                         authentication_method_vac, access_notes_vac, rfid_id_int, fprint_id_int)
+SELECT access_id_int, access_type_enum, access_authorized_bol, access_time_dt,
+       access_location_vac, access_device_id_vac, access_device_seq_bint,
+       authentication_method_vac, access_notes_vac, rfid_id_int, fprint_id_int
+FROM access_logs_legacy;
+
+INSERT INTO access_log_device_sequences (access_device_id_vac, access_device_seq_bint)
+SELECT DISTINCT access_device_id_vac, access_device_seq_bint
+FROM access_logs_legacy
+WHERE access_device_id_vac IS NOT NULL AND access_device_seq_bint IS NOT NULL;
+
+DROP TABLE access_logs_legacy;
+
+CREATE TRIGGER trg_access_logs_device_seq
+    AFTER INSERT ON access_logs
+    FOR EACH ROW
+    WHEN (NEW.access_device_id_vac IS NOT NULL AND NEW.access_device_seq_bint IS NOT NULL)
+EXECUTE FUNCTION access_logs_register_device_seq();
+
+-- 6. Las filas antiguas usaban IDENTITY: adelantar la secuencia pooled por encima del MAX actual
+SELECT setval('access_logs_seq', GREATEST((SELECT last_value FROM access_logs_seq),
+                                          (SELECT COALESCE(MAX(access_id_int), 0) FROM access_logs) + 50));
+
+ANALYZE access_logs;
@@ -0,0 +1,33 @@
+-- Resumen diario de asistencia por usuario, día y ubicación.
+-- Se actualiza de forma incremental al escribir accesos y se recalcula cada noche
+-- para absorber eventos offline tardíos (ver AttendanceRollupServiceImpl).
+CREATE TABLE attendance_daily (
+    att_usr_id_int       integer      NOT NULL REFERENCES users (usr_id_int) ON DELETE CASCADE,
+    att_day_dt           date         NOT NULL,
+    -- '' cuando el acceso no indicó ubicación (la columna forma parte de la clave)
+    att_location_vac     varchar(255) NOT NULL DEFAULT '',
+    att_first_entry_dt   timestamp(6),
+    att_last_exit_dt     timestamp(6),
+    att_tap_count_int    integer      NOT NULL DEFAULT 0,
+    att_denied_count_int integer      NOT NULL DEFAULT 0,
+    att_upd_dt           timestamp(6) NOT NULL DEFAULT now(),
+    CONSTRAINT pk_attendance_daily PRIMARY KEY (att_usr_id_int, att_day_dt, att_location_vac)
+);
+
+CREATE INDEX idx_attendance_daily_day ON attendance_daily (att_day_dt, att_location_vac);
+
+-- Carga inicial desde la historia existente
+INSERT INTO attendance_daily (att_usr_id_int, att_day_dt, att_location_vac, att_first_entry_dt,
+                              att_last_exit_dt, att_tap_count_int, att_denied_count_int)
+SELECT COALESCE(c.usr_id_int, f.usr_id_int),
+       a.access_time_dt::date,
+       COALESCE(a.access_location_vac, ''),
+       MIN(a.access_time_dt) FILTER (WHERE a.access_authorized_bol AND a.access_type_enum = 'ENTRADA'),
+       MAX(a.access_time_dt) FILTER (WHERE a.access_authorized_bol AND a.access_type_enum = 'SALIDA'),
+       COUNT(*) FILTER (WHERE a.access_authorized_bol),
+       COUNT(*) FILTER (WHERE NOT a.access_authorized_bol)
+FROM access_logs a
+LEFT JOIN rfid_cards c ON c.rfid_id_int = a.rfid_id_int
+LEFT JOIN fingerprints f ON f.fprint_id_int = a.fprint_id_int
+WHERE COALESCE(c.usr_id_int, f.usr_id_int) IS NOT NULL
+GROUP BY 1, 2, 3;
@@ -0,0 +1,12 @@
+-- Horas trabajadas por usuario y día (día de la entrada), calculadas por WorkSessionEngine
+CREATE TABLE worked_hours_daily (
+    wh_usr_id_int        integer      NOT NULL REFERENCES users (usr_id_int) ON DELETE CASCADE,
+    wh_day_dt            date         NOT NULL,
+    wh_minutes_int       integer      NOT NULL DEFAULT 0,
+    wh_sessions_int      integer      NOT NULL DEFAULT 0,
+    wh_missing_exits_int integer      NOT NULL DEFAULT 0,
+    wh_upd_dt            timestamp(6) NOT NULL DEFAULT now(),
+    CONSTRAINT pk_worked_hours_daily PRIMARY KEY (wh_usr_id_int, wh_day_dt)
+);
+
+CREATE INDEX idx_worked_hours_daily_day ON worked_hours_daily (wh_day_dt);
@@ -0,0 +1,45 @@
+-- access_logs_default recibe los eventos de meses sin partición (p. ej. reloj del ESP32 desfasado).
+-- Con filas de un mes en la partición por defecto, CREATE TABLE ... PARTITION OF de ese mes falla
+-- y ensure_access_logs_partitions aborta en cada ejecución. Ahora la partición se arma como tabla
+-- suelta, recibe las filas del mes que estaban en la partición por defecto y luego se adjunta.
+
+CREATE OR REPLACE FUNCTION create_access_logs_partition(p_month date) RETURNS boolean AS $$
+DECLARE
+    v_start date := date_trunc('month', p_month)::date;
+    v_end   date := (date_trunc('month', p_month) + interval '1 month')::date;
+    v_name  text := 'access_logs_' || to_char(v_start, 'YYYY_MM');
+    v_moved bigint;
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    IF to_regclass('access_logs_default') IS NULL OR NOT EXISTS (
+            SELECT 1 FROM access_logs_default WHERE access_time_dt >= v_start AND access_time_dt < v_end) THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF access_logs FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_start, v_end);
+        RETURN true;
+    END IF;
+
+    -- Tabla suelta: el INSERT no dispara trg_access_logs_device_seq (las secuencias ya están registradas)
+    EXECUTE format('CREATE TABLE %I (LIKE access_logs INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+    EXECUTE format(
+        'WITH moved AS (
+             DELETE FROM access_logs_default WHERE access_time_dt >= %L AND access_time_dt < %L
+             RETURNING access_id_int, access_type_enum, access_authorized_bol, access_time_dt,
+                       access_location_vac, access_device_id_vac, access_device_seq_bint,
+                       authentication_method_vac, access_notes_vac, rfid_id_int, fprint_id_int)
+         INSERT INTO %I (access_id_int, access_type_enum, access_authorized_bol, access_time_dt,
+                         access_location_vac, access_device_id_vac, access_device_seq_bint,
+                         authentication_method_vac, access_notes_vac, rfid_id_int, fprint_id_int)
+         SELECT * FROM moved',
+        v_start, v_end, v_name);
+    GET DIAGNOSTICS v_moved = ROW_COUNT;
+
+    -- Al adjuntarla hereda índices, claves foráneas y el trigger; la partición por defecto
+    -- ya no tiene filas del rango, así que la validación de ATTACH pasa
+    EXECUTE format('ALTER TABLE access_logs ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   v_name, v_start, v_end);
+    RAISE NOTICE 'Partición % creada con % filas movidas desde access_logs_default', v_name, v_moved;
+    RETURN true;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,163 @@
+package com.example.sensor.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.example.sensor.cache.AccessTapTracker;
+import com.example.sensor.cache.CredentialIndex;
+import com.example.sensor.config.AccessLogWriterConfig;
+import com.example.sensor.config.AccessStreamConfig;
+import com.example.sensor.config.AccessTapConfig;
+import com.example.sensor.mapper.AccessLogMapper;
+import com.example.sensor.mapper.FingerPrintMapper;
+import com.example.sensor.mapper.RfidCardMapper;
+import com.example.sensor.mapper.UserMapper;
+import com.example.sensor.metrics.AccessMetrics;
+import com.example.sensor.model.dto.AccessRegisterRequestDTO;
+import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import com.example.sensor.model.dto.FingerprintAccessRequestDTO;
+import com.example.sensor.pipeline.AccessEventBroadcaster;
+import com.example.sensor.pipeline.AccessLogWriter;
+import com.example.sensor.service.Impl.AccessControlServiceImpl;
+import com.example.sensor.service.Impl.FingerPrintServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camino de decisión de registerAccess y registerFingerprintAccess con los repositorios en
+ * memoria (InMemoryRepositories) y sin proxy transaccional: mide la resolución en
+ * CredentialIndex, la construcción del AccessLog, el encolado en AccessLogWriter, la
+ * publicación en AccessEventBroadcaster y el armado de la respuesta. El UPDATE ... RETURNING
+ * y el commit quedan fuera; esos los cubre la métrica access.decision en producción.
+ *
+ * Ejecutar (con -prof gc para las tasas de asignación):
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main AccessDecisionBenchmark -prof gc
+ * </pre>
+ * -p logLevel=INFO incluye el costo de los log.info del camino, como en producción.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccessDecisionBenchmark {
+
+    private static final int CREDENTIALS = 1000;
+
+    @Param({"WARN"})
+    String logLevel;
+
+    private AccessLogWriter accessLogWriter;
+    private AccessControlServiceImpl accessControlService;
+    private FingerPrintServiceImpl fingerPrintService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.toLevel(logLevel));
+
+        InMemoryRepositories repositories = new InMemoryRepositories(CREDENTIALS);
+        CredentialIndex credentialIndex = new CredentialIndex(
+                repositories.cardRepository(), repositories.fingerPrintRepository());
+        credentialIndex.load();
+
+        accessLogWriter = new AccessLogWriter(repositories.accessLogRepository(),
+                repositories.transactionManager(),
+                new AccessLogWriterConfig(), repositories.rollupService());
+        accessLogWriter.start();
+
+        AccessEventBroadcaster eventBroadcaster = new AccessEventBroadcaster(
+                new AccessStreamConfig(), new SimpleAsyncTaskExecutor("bench-sse-"));
+        AccessMetrics accessMetrics = new AccessMetrics(new SimpleMeterRegistry());
+        AccessTapTracker tapTracker = new AccessTapTracker(new AccessTapConfig());
+        UserMapper userMapper = new UserMapper();
+
+        accessControlService = new AccessControlServiceImpl(
+                repositories.cardRepository(), repositories.fingerPrintRepository(),
+                repositories.accessLogRepository(), new RfidCardMapper(userMapper), new AccessLogMapper(),
+                null, credentialIndex, accessLogWriter, repositories.rollupService(),
+                eventBroadcaster, accessMetrics, tapTracker);
+        fingerPrintService = new FingerPrintServiceImpl(
+                repositories.fingerPrintRepository(), null, new FingerPrintMapper(userMapper),
+                credentialIndex, accessLogWriter, eventBroadcaster, accessMetrics, null, null, null, tapTracker);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        accessLogWriter.stop();
+    }
+
+    /**
+     * Solicitudes prearmadas recorriendo todas las credenciales, por hilo
+     */
+    @State(Scope.Thread)
+    public static class Requests {
+        AccessRegisterRequestDTO[] cards;
+        AccessRegisterRequestDTO unknownCard;
+        FingerprintAccessRequestDTO[] fingerprints;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cards = new AccessRegisterRequestDTO[CREDENTIALS];
+            fingerprints = new FingerprintAccessRequestDTO[CREDENTIALS];
+            for (int i = 0; i < CREDENTIALS; i++) {
+                cards[i] = AccessRegisterRequestDTO.builder()
+                        .cardUid(InMemoryRepositories.cardUid(i + 1))
+                        .location("Puerta Principal")
+                        .deviceId("ESP32-001")
+                        .authenticationMethod("RFID")
+                        .build();
+                fingerprints[i] = FingerprintAccessRequestDTO.builder()
+                        .fingerprintId(i + 1)
+                        .confidence(120)
+                        .location("Puerta Principal")
+                        .deviceId("ESP32-001")
+                        .build();
+            }
+            unknownCard = AccessRegisterRequestDTO.builder()
+                    .cardUid("UID-DESCONOCIDO")
+                    .location("Puerta Principal")
+                    .deviceId("ESP32-001")
+                    .build();
+        }
+
+        int nextIndex() {
+            int index = next;
+            next = index + 1 == CREDENTIALS ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public AccessRegisterResponseDTO registerAccess(Requests requests) {
+        return accessControlService.registerAccess(requests.cards[requests.nextIndex()]);
+    }
+
+    @Benchmark
+    public AccessRegisterResponseDTO registerAccessUnknownCard(Requests requests) {
+        return accessControlService.registerAccess(requests.unknownCard);
+    }
+
+    @Benchmark
+    public AccessRegisterResponseDTO registerFingerprintAccess(Requests requests) {
+        return fingerPrintService.registerFingerprintAccess(requests.fingerprints[requests.nextIndex()]);
+    }
+}
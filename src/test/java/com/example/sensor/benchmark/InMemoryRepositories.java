@@ -0,0 +1,164 @@
+package com.example.sensor.benchmark;
+
+import com.example.sensor.cache.CardCredential;
+import com.example.sensor.cache.FingerprintCredential;
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.entity.User;
+import com.example.sensor.repository.AccessLogRepository;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.repository.RfidCardRepository;
+import com.example.sensor.service.AttendanceRollupService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Repositorios en memoria para los benchmarks del camino de decisión.
+ * Implementan vía Proxy solo los métodos que usan registerAccess, registerFingerprintAccess
+ * y el escritor diferido; cualquier otro lanza UnsupportedOperationException para que
+ * un cambio que agregue una consulta al camino caliente no pase desapercibido.
+ */
+final class InMemoryRepositories {
+
+    private final Map<Integer, RfidCard> cards = new ConcurrentHashMap<>();
+    private final Map<Integer, FingerPrint> fingerprints = new ConcurrentHashMap<>();
+    private final Map<Integer, String> cardLastAccess = new ConcurrentHashMap<>();
+    private final Map<Integer, String> fingerprintLastAccess = new ConcurrentHashMap<>();
+
+    /**
+     * Usuarios 1..count, cada uno con tarjeta "UID-n" (id n) y huella en el slot n
+     */
+    InMemoryRepositories(int count) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= count; i++) {
+            User user = User.builder()
+                    .id(i)
+                    .nombres("Nombre" + i)
+                    .apellidoPaterno("Apellido" + i)
+                    .apellidoMaterno("Materno" + i)
+                    .fechaNacimiento(LocalDate.of(1990, 1, 1).plusDays(i))
+                    .tipoDocumento("DNI")
+                    .numeroDocumento(String.format("%08d", i))
+                    .cargo("Operario")
+                    .areaDepartamento("Planta")
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            RfidCard card = RfidCard.builder()
+                    .id(i)
+                    .cardUid(cardUid(i))
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .user(user)
+                    .build();
+            FingerPrint fingerPrint = FingerPrint.builder()
+                    .fingerprintId(i)
+                    .enrolledAt(now)
+                    .updatedAt(now)
+                    .user(user)
+                    .build();
+            user.setRfidCard(card);
+            user.setFingerPrint(fingerPrint);
+            cards.put(i, card);
+            fingerprints.put(i, fingerPrint);
+        }
+    }
+
+    static String cardUid(int id) {
+        return "UID-" + id;
+    }
+
+    RfidCard card(int id) {
+        return cards.get(id);
+    }
+
+    RfidCardRepository cardRepository() {
+        return stub(RfidCardRepository.class, Map.of(
+                "findAllCredentials", args -> {
+                    List<CardCredential> credentials = new ArrayList<>();
+                    cards.values().forEach(card -> credentials.add(CardCredential.from(card)));
+                    return credentials;
+                },
+                "toggleLastAccessType", args -> cardLastAccess.compute((Integer) args[0], InMemoryRepositories::toggle),
+                "getReferenceById", args -> cards.get((Integer) args[0])));
+    }
+
+    FingerPrintRepository fingerPrintRepository() {
+        return stub(FingerPrintRepository.class, Map.of(
+                "findAllCredentials", args -> {
+                    List<FingerprintCredential> credentials = new ArrayList<>();
+                    fingerprints.values().forEach(fp -> credentials.add(FingerprintCredential.from(fp)));
+                    return credentials;
+                },
+                "toggleLastAccessType", args ->
+                        fingerprintLastAccess.compute((Integer) args[0], InMemoryRepositories::toggle),
+                "getReferenceById", args -> fingerprints.get((Integer) args[0])));
+    }
+
+    /**
+     * saveAll/save sin persistir: el benchmark mide la decisión, no el INSERT
+     */
+    AccessLogRepository accessLogRepository() {
+        return stub(AccessLogRepository.class, Map.of(
+                "saveAll", args -> args[0],
+                "save", args -> args[0]));
+    }
+
+    AttendanceRollupService rollupService() {
+        return stub(AttendanceRollupService.class, Map.of(
+                "accumulate", args -> null));
+    }
+
+    PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    private static String toggle(Integer id, String last) {
+        return "ENTRADA".equals(last) ? "SALIDA" : "ENTRADA";
+    }
+
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Function<Object[], Object> implementation = methods.get(method.getName());
+                    if (implementation != null) {
+                        return implementation.apply(args);
+                    }
+                    switch (method.getName()) {
+                        case "toString":
+                            return "InMemory" + type.getSimpleName();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(
+                                    type.getSimpleName() + "." + method.getName() + " no disponible en el benchmark");
+                    }
+                }));
+    }
+}
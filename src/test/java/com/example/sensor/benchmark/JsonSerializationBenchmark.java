@@ -0,0 +1,111 @@
+package com.example.sensor.benchmark;
+
+import com.example.sensor.mapper.RfidCardMapper;
+import com.example.sensor.mapper.UserMapper;
+import com.example.sensor.model.dto.AccessLogResponseDTO;
+import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import com.example.sensor.model.dto.RfidCardResponseDTO;
+import com.example.sensor.model.dto.UserResponseDTO;
+import com.example.sensor.model.entity.RfidCard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de los DTO de respuesta con un ObjectMapper armado como el de Spring Boot
+ * (Jackson2ObjectMapperBuilder: JavaTimeModule, fechas ISO-8601). Cada operación produce el
+ * byte[] que escribiría MappingJackson2HttpMessageConverter.
+ *
+ * Ejecutar:
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main JsonSerializationBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ObjectWriter writer;
+    private AccessRegisterResponseDTO accessResponse;
+    private List<AccessLogResponseDTO> accessLogPage;
+    private UserResponseDTO user;
+    private RfidCardResponseDTO rfidCard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        writer = objectMapper.writer();
+        LocalDateTime now = LocalDateTime.now();
+        accessResponse = AccessRegisterResponseDTO.builder()
+                .authorized(true)
+                .accessType("ENTRADA")
+                .personName("Nombre1 Apellido1")
+                .cargo("Operario")
+                .message("Acceso autorizado")
+                .timestamp(now)
+                .build();
+        accessLogPage = new ArrayList<>(PAGE_SIZE);
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            accessLogPage.add(AccessLogResponseDTO.builder()
+                    .id((long) i)
+                    .cardUid(InMemoryRepositories.cardUid(i))
+                    .cardId(i)
+                    .personName("Nombre" + i + " Apellido" + i)
+                    .cargo("Operario")
+                    .accessType(i % 2 == 0 ? "SALIDA" : "ENTRADA")
+                    .authenticationMethod("RFID")
+                    .authorized(true)
+                    .accessTime(now.minusMinutes(i))
+                    .location("Puerta Principal")
+                    .deviceId("ESP32-001")
+                    .build());
+        }
+        RfidCard card = new InMemoryRepositories(1).card(1);
+        UserMapper userMapper = new UserMapper();
+        user = userMapper.toResponseDTO(card.getUser());
+        rfidCard = new RfidCardMapper(userMapper).toResponseDTO(card);
+    }
+
+    @Benchmark
+    public byte[] accessRegisterResponse() throws Exception {
+        return writer.writeValueAsBytes(accessResponse);
+    }
+
+    @Benchmark
+    public byte[] accessLogPage() throws Exception {
+        return writer.writeValueAsBytes(accessLogPage);
+    }
+
+    @Benchmark
+    public byte[] user() throws Exception {
+        return writer.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] rfidCard() throws Exception {
+        return writer.writeValueAsBytes(rfidCard);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.sensor.benchmark;
+
+import com.example.sensor.mapper.AccessLogMapper;
+import com.example.sensor.mapper.RfidCardMapper;
+import com.example.sensor.mapper.UserMapper;
+import com.example.sensor.model.dto.AccessLogExportRow;
+import com.example.sensor.model.dto.AccessLogResponseDTO;
+import com.example.sensor.model.dto.RfidCardResponseDTO;
+import com.example.sensor.model.dto.UserResponseDTO;
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mappers de entidad/proyección a DTO (AccessLogMapper, UserMapper, RfidCardMapper),
+ * por registro y para una página de 50 registros como la de /access/logs/search.
+ *
+ * Ejecutar:
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main MapperBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final UserMapper userMapper = new UserMapper();
+    private final RfidCardMapper rfidCardMapper = new RfidCardMapper(userMapper);
+    private final AccessLogMapper accessLogMapper = new AccessLogMapper();
+
+    private RfidCard card;
+    private AccessLog cardLog;
+    private AccessLog fingerprintLog;
+    private List<AccessLogExportRow> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRepositories repositories = new InMemoryRepositories(PAGE_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        card = repositories.card(1);
+        cardLog = AccessLog.builder()
+                .id(1)
+                .rfidCard(card)
+                .accessType(AccessType.ENTRADA)
+                .authenticationMethod(AuthenticationMethod.RFID)
+                .authorized(true)
+                .accessTime(now)
+                .location("Puerta Principal")
+                .deviceId("ESP32-001")
+                .build();
+        fingerprintLog = AccessLog.builder()
+                .id(2)
+                .fingerPrint(card.getUser().getFingerPrint())
+                .accessType(AccessType.SALIDA)
+                .authenticationMethod(AuthenticationMethod.FINGERPRINT)
+                .authorized(true)
+                .accessTime(now)
+                .location("Puerta Principal")
+                .deviceId("ESP32-001")
+                .build();
+        rows = new ArrayList<>(PAGE_SIZE);
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            RfidCard rowCard = repositories.card(i);
+            rows.add(new AccessLogExportRow(i, now.minusMinutes(i),
+                    i % 2 == 0 ? AccessType.SALIDA : AccessType.ENTRADA, AuthenticationMethod.RFID, true,
+                    rowCard.getUser().getNombres(), rowCard.getUser().getApellidoPaterno(),
+                    rowCard.getUser().getCargo(), rowCard.getId(), rowCard.getCardUid(), null,
+                    "Puerta Principal", "ESP32-001", null));
+        }
+    }
+
+    @Benchmark
+    public AccessLogResponseDTO accessLogFromEntity() {
+        return accessLogMapper.toResponseDTO(cardLog);
+    }
+
+    @Benchmark
+    public AccessLogResponseDTO accessLogFromFingerprintEntity() {
+        return accessLogMapper.toResponseDTO(fingerprintLog);
+    }
+
+    @Benchmark
+    public AccessLogResponseDTO accessLogFromRow() {
+        return accessLogMapper.toResponseDTO(rows.get(0));
+    }
+
+    @Benchmark
+    public List<AccessLogResponseDTO> accessLogPage() {
+        return rows.stream().map(accessLogMapper::toResponseDTO).toList();
+    }
+
+    @Benchmark
+    public UserResponseDTO user() {
+        return userMapper.toResponseDTO(card.getUser());
+    }
+
+    @Benchmark
+    public RfidCardResponseDTO rfidCard() {
+        return rfidCardMapper.toResponseDTO(card);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.sensor.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Comparación hilos de plataforma vs. hilos virtuales para el patrón de Esp32HttpServiceImpl
+ * (WebClient + .block() contra un dispositivo lento).
+ * Simula N peticiones concurrentes: en modo plataforma compiten por un pool del tamaño
+ * del de Tomcat (200 por defecto); en modo virtual cada petición tiene su propio hilo.
+ *
+ * Ejecutar con Java 21 (el modo virtual se omite en versiones anteriores):
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:$(cat target/cp.txt) com.example.sensor.benchmark.ThreadingModeBenchmark [peticiones] [latenciaMs] [pool]
+ * </pre>
+ */
+public class ThreadingModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int latencyMs = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        HttpServer device = startSlowDevice(latencyMs);
+        String baseUrl = "http://localhost:" + device.getAddress().getPort();
+        WebClient client = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create()
+                        .responseTimeout(Duration.ofSeconds(30))))
+                .build();
+
+        System.out.printf("Peticiones: %d, latencia del dispositivo: %d ms, pool de plataforma: %d%n",
+                requests, latencyMs, poolSize);
+
+        // Calentamiento de conexiones y JIT
+        ExecutorService warmup = Executors.newFixedThreadPool(poolSize);
+        run("calentamiento", warmup, client, Math.min(requests, poolSize), false);
+        warmup.shutdown();
+
+        ExecutorService platform = Executors.newFixedThreadPool(poolSize);
+        run("plataforma", platform, client, requests, true);
+        platform.shutdown();
+
+        if (Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("bench-vt-");
+            virtual.setVirtualThreads(true);
+            run("virtual", virtual, client, requests, true);
+        } else {
+            System.out.println("Modo virtual omitido: requiere Java 21+");
+        }
+
+        device.stop(0);
+        // Los hilos de reactor-netty no son daemon
+        System.exit(0);
+    }
+
+    private static HttpServer startSlowDevice(int latencyMs) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(0), 1024);
+        server.createContext("/api/fingerprint/count", exchange -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"count\":10}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static void run(String mode, Executor executor, WebClient client, int requests, boolean report)
+            throws InterruptedException {
+        long[] latencies = new long[requests];
+        CountDownLatch done = new CountDownLatch(requests);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    client.get().uri("/api/fingerprint/count").retrieve().bodyToMono(String.class).block();
+                } catch (Exception e) {
+                    System.err.println("Error: " + e.getMessage());
+                } finally {
+                    // Incluye la espera en cola del pool, como vería el cliente HTTP
+                    latencies[index] = System.nanoTime() - submitted;
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        if (report) {
+            Arrays.sort(latencies);
+            System.out.printf("%-11s total %6d ms | %8.1f req/s | p50 %6d ms | p99 %6d ms | max %6d ms%n",
+                    mode,
+                    elapsed / 1_000_000,
+                    requests / (elapsed / 1e9),
+                    latencies[(int) (requests * 0.50)] / 1_000_000,
+                    latencies[Math.min(requests - 1, (int) (requests * 0.99))] / 1_000_000,
+                    latencies[requests - 1] / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.config.AccessTapConfig;
+import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.support.NoOpTransactionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccessTapTrackerTest {
+
+    private static final AuthenticationMethod RFID = AuthenticationMethod.RFID;
+
+    private final AccessTapConfig config = new AccessTapConfig();
+    private final AtomicInteger decisions = new AtomicInteger();
+    private final TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+
+    @Test
+    void repeatedReadsAtTheSameDoorReuseTheFirstDecision() {
+        AccessTapTracker tracker = new AccessTapTracker(config);
+
+        AccessRegisterResponseDTO first = tracker.coalesce(RFID, "UID-1", "esp-1", null, this::decide);
+        AccessRegisterResponseDTO second = tracker.coalesce(RFID, "UID-1", "esp-1", null, this::decide);
+
+        assertThat(second).isSameAs(first);
+        assertThat(decisions).hasValue(1);
+        assertThat(tracker.getCoalescedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void otherDoorOrCredentialDecidesAgain() {
+        AccessTapTracker tracker = new AccessTapTracker(config);
+
+        tracker.coalesce(RFID, "UID-1", "esp-1", null, this::decide);
+        tracker.coalesce(RFID, "UID-1", "esp-2", null, this::decide);
+        tracker.coalesce(RFID, "UID-2", "esp-2", null, this::decide);
+        tracker.coalesce(AuthenticationMethod.FINGERPRINT, "UID-2", "esp-2", null, this::decide);
+        // Sin deviceId la puerta es la ubicación
+        tracker.coalesce(RFID, "UID-3", null, "Puerta A", this::decide);
+        tracker.coalesce(RFID, "UID-3", null, "Puerta A", this::decide);
+
+        assertThat(decisions).hasValue(5);
+    }
+
+    @Test
+    void disabledCoalescingAlwaysDecides() {
+        config.setCoalesceSeconds(0);
+        AccessTapTracker tracker = new AccessTapTracker(config);
+
+        tracker.coalesce(RFID, "UID-1", "esp-1", null, this::decide);
+        tracker.coalesce(RFID, "UID-1", "esp-1", null, this::decide);
+
+        assertThat(decisions).hasValue(2);
+        assertThat(tracker.getSize()).isZero();
+    }
+
+    @Test
+    void failedDecisionIsNotReused() {
+        AccessTapTracker tracker = new AccessTapTracker(config);
+
+        assertThatThrownBy(() -> tracker.coalesce(RFID, "UID-1", "esp-1", null, () -> {
+            throw new IllegalStateException("BD caída");
+        })).isInstanceOf(IllegalStateException.class);
+        tracker.coalesce(RFID, "UID-1", "esp-1", null, this::decide);
+
+        assertThat(decisions).hasValue(1);
+    }
+
+    @Test
+    void antiPassbackRejectsASecondEntryUntilAnExitIsCommitted() {
+        config.setAntiPassback(true);
+        AccessTapTracker tracker = new AccessTapTracker(config);
+        assertThat(tracker.isPassback(RFID, "UID-1", AccessType.ENTRADA)).isFalse();
+
+        tx.executeWithoutResult(status -> tracker.recordDirection(RFID, "UID-1", AccessType.ENTRADA));
+        assertThat(tracker.isPassback(RFID, "UID-1", AccessType.ENTRADA)).isTrue();
+        assertThat(tracker.isPassback(RFID, "UID-1", AccessType.SALIDA)).isFalse();
+        assertThat(tracker.isPassback(RFID, "UID-2", AccessType.ENTRADA)).isFalse();
+
+        // Una salida revertida no cuenta
+        tx.executeWithoutResult(status -> {
+            tracker.recordDirection(RFID, "UID-1", AccessType.SALIDA);
+            status.setRollbackOnly();
+        });
+        assertThat(tracker.isPassback(RFID, "UID-1", AccessType.ENTRADA)).isTrue();
+
+        tx.executeWithoutResult(status -> tracker.recordDirection(RFID, "UID-1", AccessType.SALIDA));
+        assertThat(tracker.isPassback(RFID, "UID-1", AccessType.ENTRADA)).isFalse();
+        assertThat(tracker.getPassbackRejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void antiPassbackIsOffByDefaultAndForgetsAfterItsWindow() {
+        AccessTapTracker tracker = new AccessTapTracker(config);
+        tracker.recordDirection(RFID, "UID-1", AccessType.ENTRADA);
+        assertThat(tracker.isPassback(RFID, "UID-1", AccessType.ENTRADA)).isFalse();
+
+        config.setAntiPassback(true);
+        config.setAntiPassbackHours(0);
+        tracker.recordDirection(RFID, "UID-1", AccessType.ENTRADA);
+        assertThat(tracker.isPassback(RFID, "UID-1", AccessType.ENTRADA)).isFalse();
+    }
+
+    @Test
+    void doorDirectionPrefersTheDeviceOverTheLocation() {
+        config.setDoorDirections(Map.of("esp-in", AccessType.ENTRADA, "Salida Norte", AccessType.SALIDA));
+        AccessTapTracker tracker = new AccessTapTracker(config);
+
+        assertThat(tracker.doorDirection("esp-in", "Salida Norte")).isEqualTo(AccessType.ENTRADA);
+        assertThat(tracker.doorDirection("esp-x", "Salida Norte")).isEqualTo(AccessType.SALIDA);
+        assertThat(tracker.doorDirection(null, "Salida Norte")).isEqualTo(AccessType.SALIDA);
+        assertThat(tracker.doorDirection("esp-x", "Puerta A")).isNull();
+    }
+
+    private AccessRegisterResponseDTO decide() {
+        decisions.incrementAndGet();
+        return AccessRegisterResponseDTO.builder().authorized(true).accessType("ENTRADA").build();
+    }
+}
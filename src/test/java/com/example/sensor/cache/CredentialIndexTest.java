@@ -0,0 +1,104 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.entity.User;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.repository.RfidCardRepository;
+import com.example.sensor.support.NoOpTransactionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CredentialIndexTest {
+
+    private final RfidCardRepository cardRepository = mock(RfidCardRepository.class);
+    private final FingerPrintRepository fingerPrintRepository = mock(FingerPrintRepository.class);
+    private final TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+    private CredentialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(cardRepository.findAllCredentials()).thenReturn(List.of(
+                new CardCredential(1, "UID-1", true, true, 10, "Ana", "Rojas", "Operaria"),
+                new CardCredential(2, "UID-2", false, true, null, null, null, null)));
+        when(fingerPrintRepository.findAllCredentials()).thenReturn(List.of(
+                new FingerprintCredential(5, true, 10, "Ana", "Rojas", "Operaria")));
+        index = new CredentialIndex(cardRepository, fingerPrintRepository);
+        index.load();
+    }
+
+    @Test
+    void loadIndexesOnlyActiveCredentialsForLookups() {
+        assertThat(index.findActiveCard("UID-1")).get()
+                .satisfies(card -> assertThat(card.getPersonName()).isEqualTo("Ana Rojas"));
+        assertThat(index.findActiveCard("UID-2")).isEmpty();
+        assertThat(index.findActiveCard("UID-404")).isEmpty();
+        assertThat(index.findActiveCard(null)).isEmpty();
+        assertThat(index.findActiveFingerprint(5)).isPresent();
+        assertThat(index.findActiveFingerprint(6)).isEmpty();
+    }
+
+    @Test
+    void refreshedCardIsVisibleOnlyAfterCommit() {
+        tx.executeWithoutResult(status -> {
+            index.refreshCard(card(3, "UID-3", true, user(11, "Luis")));
+            assertThat(index.findActiveCard("UID-3")).isEmpty();
+        });
+
+        assertThat(index.findActiveCard("UID-3")).get()
+                .satisfies(card -> assertThat(card.getUserId()).isEqualTo(11));
+    }
+
+    @Test
+    void rolledBackRefreshLeavesPreviousSnapshot() {
+        tx.executeWithoutResult(status -> {
+            index.refreshCard(card(1, "UID-1", false, null));
+            index.refreshFingerprint(FingerPrint.builder().fingerprintId(5).active(false).build());
+            status.setRollbackOnly();
+        });
+
+        assertThat(index.findActiveCard("UID-1")).get()
+                .satisfies(card -> assertThat(card.getUserId()).isEqualTo(10));
+        assertThat(index.findActiveFingerprint(5)).isPresent();
+    }
+
+    @Test
+    void removeAndClearApplyAfterCommitOnly() {
+        tx.executeWithoutResult(status -> {
+            index.removeCard("UID-1");
+            index.clearFingerprints();
+            status.setRollbackOnly();
+        });
+        assertThat(index.findActiveCard("UID-1")).isPresent();
+        assertThat(index.findActiveFingerprint(5)).isPresent();
+
+        tx.executeWithoutResult(status -> {
+            index.removeCard("UID-1");
+            index.clearFingerprints();
+        });
+        assertThat(index.findActiveCard("UID-1")).isEmpty();
+        assertThat(index.findActiveFingerprint(5)).isEmpty();
+    }
+
+    @Test
+    void refreshOutsideTransactionAppliesImmediately() {
+        index.refreshCard(card(1, "UID-1", false, null));
+
+        assertThat(index.findActiveCard("UID-1")).isEmpty();
+    }
+
+    private static RfidCard card(int id, String uid, boolean active, User user) {
+        return RfidCard.builder().id(id).cardUid(uid).active(active).authorized(true).user(user).build();
+    }
+
+    private static User user(int id, String nombres) {
+        return User.builder().id(id).nombres(nombres).apellidoPaterno("Test").cargo("Operario").build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.config.FingerprintReconciliationConfig;
+import com.example.sensor.device.Esp32Device;
+import com.example.sensor.device.Esp32DeviceRegistry;
+import com.example.sensor.exceptions.FingerPrintException;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.support.NoOpTransactionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SensorSlotAllocatorTest {
+
+    private static final String DEVICE = "esp-1";
+
+    private final FingerPrintRepository fingerPrintRepository = mock(FingerPrintRepository.class);
+    private final FingerprintReconciliationConfig config = new FingerprintReconciliationConfig();
+    private SensorSlotAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        Esp32Device device = mock(Esp32Device.class);
+        when(device.getId()).thenReturn(DEVICE);
+        Esp32DeviceRegistry deviceRegistry = mock(Esp32DeviceRegistry.class);
+        when(deviceRegistry.get(any())).thenReturn(device);
+        // Slots 1 y 2 activos; 3 borrado sin accesos; 4 borrado con registros en access_logs
+        when(fingerPrintRepository.findAllCredentials()).thenReturn(List.of(
+                new FingerprintCredential(1, true, 10, "Ana", "Rojas", null),
+                new FingerprintCredential(2, true, 11, "Luis", "Paz", null),
+                new FingerprintCredential(3, false, null, null, null, null),
+                new FingerprintCredential(4, false, null, null, null, null)));
+        when(fingerPrintRepository.findInactiveIdsWithAccessHistory()).thenReturn(List.of(4));
+        config.setDefaultCapacity(6);
+        allocator = new SensorSlotAllocator(fingerPrintRepository, deviceRegistry, config);
+        allocator.load();
+    }
+
+    @Test
+    void prefersNeverUsedSlotsThenGapsWithoutHistory() {
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(5);
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(6);
+        // Sin slots nuevos se reutiliza el hueco del slot 3, que no tiene accesos
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(3);
+        // El slot 4 nunca: sus registros pasarían a la nueva persona
+        assertThatThrownBy(() -> allocator.reserve(DEVICE))
+                .isInstanceOf(FingerPrintException.class)
+                .hasMessageStartingWith("Sensor lleno");
+    }
+
+    @Test
+    void releasedSlotIsOfferedAgainAndConfirmedSlotIsNot() {
+        int first = allocator.reserve(DEVICE);
+        allocator.release(first);
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(first);
+
+        allocator.confirm(DEVICE, first);
+        assertThat(allocator.isReserved(first)).isFalse();
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(6);
+    }
+
+    @Test
+    void slotOccupiedOnTheSensorIsSkipped() {
+        allocator.markOccupied(DEVICE, allocator.reserve(DEVICE));
+
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(6);
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(3);
+    }
+
+    @Test
+    void deactivatedSlotIsRetiredOnlyAfterCommit() {
+        reserveNewSlots();
+        TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+        tx.executeWithoutResult(status -> {
+            allocator.deactivated(2);
+            status.setRollbackOnly();
+        });
+        allocator.removedFromSensor(DEVICE, 2);
+        // Tras el rollback el slot 2 sigue activo en la BD
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(3);
+
+        // Confirmada la baja, sus accesos (aunque sigan en cola) impiden reutilizarlo
+        tx.executeWithoutResult(status -> allocator.deactivated(2));
+        assertThatThrownBy(() -> allocator.reserve(DEVICE)).isInstanceOf(FingerPrintException.class);
+    }
+
+    @Test
+    void reloadOffersDeactivatedSlotsThatNeverLoggedAnAccess() {
+        when(fingerPrintRepository.findAllCredentials()).thenReturn(List.of(
+                new FingerprintCredential(1, true, 10, "Ana", "Rojas", null),
+                new FingerprintCredential(2, false, null, null, null, null),
+                new FingerprintCredential(3, true, 12, "Eva", "Soto", null),
+                new FingerprintCredential(4, false, null, null, null, null),
+                new FingerprintCredential(5, true, 13, "Raúl", "Vega", null),
+                new FingerprintCredential(6, true, 14, "Iris", "Luna", null)));
+        allocator.load();
+
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(2);
+        assertThatThrownBy(() -> allocator.reserve(DEVICE)).isInstanceOf(FingerPrintException.class);
+    }
+
+    @Test
+    void sensorReadingsReplaceTheAssumedState() {
+        // El sensor informa más capacidad y que el slot 1 quedó vacío
+        allocator.updateFromSensor(DEVICE, 1, 6, List.of(2), 7);
+        reserveNewSlots();
+
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(7);
+        // El slot 1 sigue activo en la BD: no se ofrece aunque el sensor lo tenga libre
+        assertThat(allocator.reserve(DEVICE)).isEqualTo(3);
+        assertThatThrownBy(() -> allocator.reserve(DEVICE)).isInstanceOf(FingerPrintException.class);
+    }
+
+    private void reserveNewSlots() {
+        allocator.confirm(DEVICE, allocator.reserve(DEVICE));
+        allocator.confirm(DEVICE, allocator.reserve(DEVICE));
+    }
+}
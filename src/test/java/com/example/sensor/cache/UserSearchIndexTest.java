@@ -0,0 +1,127 @@
+package com.example.sensor.cache;
+
+import com.example.sensor.model.entity.User;
+import com.example.sensor.repository.UserRepository;
+import com.example.sensor.support.NoOpTransactionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserSearchIndexTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findAllSearchEntries()).thenReturn(List.of(
+                entry(1, "José", "Martínez", "Operario", "Producción"),
+                entry(2, "Josefina", "Rojas", "Supervisora", "Calidad"),
+                entry(3, "Marta", "Gonzales", "Operaria", "Producción"),
+                entry(4, "Luis", "Martin", "Chofer", "Logística")));
+        index = new UserSearchIndex(userRepository);
+        index.load();
+    }
+
+    @Test
+    void matchesWithoutAccentsOrCaseAndRanksExactAbovePrefix() {
+        assertThat(ids("JOSE")).containsExactly(1, 2);
+        assertThat(ids("martinez")).containsExactly(1);
+        assertThat(ids("mart")).containsExactlyInAnyOrder(1, 3, 4);
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        assertThat(ids("jose produccion")).containsExactly(1);
+        assertThat(ids("jose logistica")).isEmpty();
+        assertThat(ids("  ")).isEmpty();
+        // Documento como prefijo
+        assertThat(ids("1000000")).containsExactlyInAnyOrder(1, 2, 3, 4);
+    }
+
+    @Test
+    void toleratesOneTypoFromFourLetters() {
+        assertThat(ids("gonzalez")).containsExactly(3);     // letra cambiada
+        assertThat(ids("rojjas")).containsExactly(2);       // letra de más
+        assertThat(ids("supervisra")).containsExactly(2);   // letra de menos
+        assertThat(ids("cohfer")).containsExactly(4);       // letras invertidas
+        assertThat(ids("gnzalex")).isEmpty();               // dos errores
+        assertThat(ids("lus")).isEmpty();                   // muy corta para tolerar errores
+    }
+
+    @Test
+    void typoMatchesRankBelowExactOnes() {
+        // El documento de 3 es exacto; los de los demás están a un dígito de distancia
+        assertThat(index.search("10000003", 20)).extracting(hit -> hit.entry().getId(), UserSearchIndex.Hit::score)
+                .containsExactly(tuple(3, 3), tuple(4, 1), tuple(1, 1), tuple(2, 1));
+    }
+
+    @Test
+    void limitKeepsTheBestMatches() {
+        assertThat(index.search("mart", 1)).singleElement()
+                .satisfies(hit -> assertThat(hit.score()).isEqualTo(2));
+        assertThat(index.search("jose", 1)).extracting(hit -> hit.entry().getId()).containsExactly(1);
+    }
+
+    @Test
+    void refreshAppliesAfterCommitAndDropsInactiveUsers() {
+        User renamed = User.builder().id(4).nombres("Luis").apellidoPaterno("Quispe").cargo("Chofer")
+                .numeroDocumento("10000004").active(true).build();
+        tx.executeWithoutResult(status -> {
+            index.refresh(renamed);
+            index.refresh(User.builder().id(2).nombres("Josefina").apellidoPaterno("Rojas").active(false).build());
+            assertThat(ids("quispe")).isEmpty();
+        });
+
+        assertThat(ids("quispe")).containsExactly(4);
+        assertThat(ids("martin")).containsExactly(1);
+        assertThat(ids("josefina")).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void searchesKeepAnsweringDuringABulkRefresh() throws Exception {
+        List<UserSearchEntry> imported = new ArrayList<>();
+        for (int i = 100; i < 3100; i++) {
+            imported.add(entry(i, "Importado", "Apellido" + i, "Operario", "Almacén"));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> refresh = executor.submit(() ->
+                    tx.executeWithoutResult(status -> index.refreshEntries(imported)));
+            List<Future<List<Integer>>> searches = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                searches.add(executor.submit(() -> ids("gonzales operaria")));
+            }
+            for (Future<List<Integer>> search : searches) {
+                assertThat(search.get(10, TimeUnit.SECONDS)).containsExactly(3);
+            }
+            refresh.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(index.size()).isEqualTo(3004);
+        assertThat(ids("apellido2999")).first().isEqualTo(2999);
+    }
+
+    private List<Integer> ids(String query) {
+        return index.search(query, 20).stream().map(hit -> hit.entry().getId()).toList();
+    }
+
+    private static UserSearchEntry entry(int id, String nombres, String apellido, String cargo, String area) {
+        return new UserSearchEntry(id, nombres, apellido, null, "DNI", String.valueOf(10_000_000 + id), cargo, area);
+    }
+}
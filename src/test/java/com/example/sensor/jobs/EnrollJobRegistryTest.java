@@ -0,0 +1,43 @@
+package com.example.sensor.jobs;
+
+import com.example.sensor.config.EnrollJobConfig;
+import com.example.sensor.exceptions.EnrollJobLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EnrollJobRegistryTest {
+
+    private EnrollJobRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        EnrollJobConfig config = new EnrollJobConfig();
+        config.setMaxPendingJobs(2);
+        registry = new EnrollJobRegistry(config);
+    }
+
+    @Test
+    void rejectsJobsPastThePendingCap() {
+        registry.create();
+        registry.create();
+
+        assertThatThrownBy(registry::create).isInstanceOf(EnrollJobLimitExceededException.class);
+        assertThat(registry.getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    void finishedJobsFreeTheirSlotOnce() {
+        EnrollJob first = registry.create();
+        registry.create();
+
+        registry.fail(first, "Sensor desconectado");
+        registry.fail(first, "Sensor desconectado");
+
+        assertThat(registry.getPendingCount()).isEqualTo(1);
+        assertThat(registry.create()).isNotNull();
+        assertThatThrownBy(registry::create).isInstanceOf(EnrollJobLimitExceededException.class);
+    }
+}
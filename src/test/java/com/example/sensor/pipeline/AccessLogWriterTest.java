@@ -0,0 +1,138 @@
+package com.example.sensor.pipeline;
+
+import com.example.sensor.config.AccessLogWriterConfig;
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.repository.AccessLogRepository;
+import com.example.sensor.service.AttendanceRollupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Guardado síncrono del escritor diferido (deshabilitado, detenido o con la cola llena).
+ * submit() se llama dentro de una transacción como la de la decisión de acceso: el registro
+ * se guarda en su afterCommit y debe quedar confirmado en la BD.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccessLogWriterTest {
+
+    @Autowired
+    private AccessLogRepository logRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String deviceId = "TEST-" + UUID.randomUUID();
+    private final AttendanceRollupService rollupService = mock(AttendanceRollupService.class);
+    private AccessLogWriter writer;
+
+    @AfterEach
+    void cleanUp() {
+        if (writer != null && writer.isRunning()) {
+            writer.stop();
+        }
+        jdbcTemplate.update("DELETE FROM access_logs WHERE access_device_id_vac = ?", deviceId);
+    }
+
+    @Test
+    void disabledWriterPersistsSynchronouslyAfterTheDecisionCommits() {
+        AccessLogWriterConfig config = new AccessLogWriterConfig();
+        config.setEnabled(false);
+        writer = new AccessLogWriter(logRepository, transactionManager, config, rollupService);
+        writer.start();
+
+        submitInDecisionTransaction(accessLog());
+
+        assertThat(persistedRows()).isEqualTo(1);
+        assertThat(writer.getSyncFallbackCount()).isEqualTo(1);
+        verify(rollupService).accumulate(anyList());
+    }
+
+    @Test
+    void stoppedWriterPersistsSynchronously() {
+        writer = new AccessLogWriter(logRepository, transactionManager, new AccessLogWriterConfig(), rollupService);
+
+        submitInDecisionTransaction(accessLog());
+
+        assertThat(persistedRows()).isEqualTo(1);
+    }
+
+    @Test
+    void fullQueueFallsBackToSynchronousWriteThatCommits() throws Exception {
+        AccessLogWriterConfig config = new AccessLogWriterConfig();
+        config.setQueueCapacity(1);
+        config.setEnqueueTimeoutMs(0);
+        writer = new AccessLogWriter(logRepository, transactionManager, config, rollupService);
+
+        // El hilo del escritor queda ocupado en el resumen del primer lote hasta que se libere
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("access-log-writer")) {
+                workerBusy.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(rollupService).accumulate(anyList());
+        writer.start();
+
+        submitInDecisionTransaction(accessLog());
+        assertThat(workerBusy.await(10, TimeUnit.SECONDS)).isTrue();
+        submitInDecisionTransaction(accessLog());   // ocupa el único lugar de la cola
+        submitInDecisionTransaction(accessLog());   // cola llena: guardado síncrono
+
+        assertThat(writer.getSyncFallbackCount()).isEqualTo(1);
+        assertThat(persistedRows()).isEqualTo(2);
+
+        release.countDown();
+        writer.stop();
+        assertThat(persistedRows()).isEqualTo(3);
+        verify(rollupService, atLeastOnce()).accumulate(anyList());
+    }
+
+    private void submitInDecisionTransaction(AccessLog accessLog) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> writer.submit(accessLog));
+    }
+
+    private int persistedRows() {
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM access_logs WHERE access_device_id_vac = ?", Integer.class, deviceId);
+        return rows != null ? rows : 0;
+    }
+
+    private AccessLog accessLog() {
+        return AccessLog.builder()
+                .accessType(AccessType.ENTRADA)
+                .authorized(false)
+                .accessTime(LocalDateTime.now())
+                .authenticationMethod(AuthenticationMethod.RFID)
+                .deviceId(deviceId)
+                .notes("AccessLogWriterTest")
+                .build();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.sensor.pipeline;
+
+import com.example.sensor.config.AccessDedupeConfig;
+import com.example.sensor.exceptions.AccessRequestInProgressException;
+import com.example.sensor.model.dto.AccessRegisterResponseDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccessRequestDeduplicatorTest {
+
+    private final AccessDedupeConfig config = new AccessDedupeConfig();
+    private final AtomicInteger decisions = new AtomicInteger();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void repeatedSequenceGetsTheOriginalResponseWithoutDecidingAgain() {
+        AccessRequestDeduplicator deduplicator = new AccessRequestDeduplicator(config);
+
+        AccessRegisterResponseDTO first = deduplicator.execute("esp-1", 7L, this::decide);
+        AccessRegisterResponseDTO retry = deduplicator.execute("esp-1", 7L, this::decide);
+
+        assertThat(retry).isSameAs(first);
+        assertThat(decisions).hasValue(1);
+        assertThat(deduplicator.getHitCount()).isEqualTo(1);
+        // Otra secuencia, otro dispositivo o sin secuencia: se decide
+        deduplicator.execute("esp-1", 8L, this::decide);
+        deduplicator.execute("esp-2", 7L, this::decide);
+        deduplicator.execute("esp-1", null, this::decide);
+        assertThat(decisions).hasValue(4);
+    }
+
+    @Test
+    void retryWhileTheOriginalIsInFlightWaitsForItsResult() throws Exception {
+        AccessRequestDeduplicator deduplicator = new AccessRequestDeduplicator(config);
+        CountDownLatch deciding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<AccessRegisterResponseDTO> original = executor.submit(() ->
+                deduplicator.execute("esp-1", 7L, blockingDecision(deciding, release)));
+        assertThat(deciding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread releaser = new Thread(() -> {
+            sleep(100);
+            release.countDown();
+        });
+        releaser.start();
+        AccessRegisterResponseDTO retry = deduplicator.execute("esp-1", 7L, this::decide);
+
+        assertThat(retry).isSameAs(original.get(5, TimeUnit.SECONDS));
+        assertThat(decisions).hasValue(1);
+        releaser.join();
+    }
+
+    @Test
+    void retryGivesUpWith409WhenTheOriginalTakesTooLong() throws Exception {
+        config.setInFlightWaitMs(50);
+        AccessRequestDeduplicator deduplicator = new AccessRequestDeduplicator(config);
+        CountDownLatch deciding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<AccessRegisterResponseDTO> original = executor.submit(() ->
+                deduplicator.execute("esp-1", 7L, blockingDecision(deciding, release)));
+        assertThat(deciding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> deduplicator.execute("esp-1", 7L, this::decide))
+                .isInstanceOf(AccessRequestInProgressException.class);
+
+        release.countDown();
+        original.get(5, TimeUnit.SECONDS);
+        assertThat(decisions).hasValue(1);
+    }
+
+    @Test
+    void failedDecisionReleasesTheKey() {
+        AccessRequestDeduplicator deduplicator = new AccessRequestDeduplicator(config);
+
+        assertThatThrownBy(() -> deduplicator.execute("esp-1", 7L, () -> {
+            throw new IllegalStateException("BD caída");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(deduplicator.getSize()).isZero();
+        deduplicator.execute("esp-1", 7L, this::decide);
+        assertThat(decisions).hasValue(1);
+    }
+
+    @Test
+    void expiredEntriesAreDecidedAgain() {
+        config.setWindowSeconds(0);
+        AccessRequestDeduplicator deduplicator = new AccessRequestDeduplicator(config);
+
+        deduplicator.execute("esp-1", 7L, this::decide);
+        deduplicator.execute("esp-1", 7L, this::decide);
+
+        assertThat(decisions).hasValue(2);
+        assertThat(deduplicator.getHitCount()).isZero();
+    }
+
+    @Test
+    void overflowDropsTheOldestEntries() {
+        config.setMaxEntries(2);
+        AccessRequestDeduplicator deduplicator = new AccessRequestDeduplicator(config);
+
+        deduplicator.execute("esp-1", 1L, this::decide);
+        deduplicator.execute("esp-1", 2L, this::decide);
+        deduplicator.execute("esp-1", 3L, this::decide);
+        assertThat(deduplicator.getSize()).isEqualTo(2);
+        assertThat(deduplicator.getEvictedCount()).isEqualTo(1);
+
+        deduplicator.execute("esp-1", 3L, this::decide);
+        assertThat(decisions).hasValue(3);
+        deduplicator.execute("esp-1", 1L, this::decide);
+        assertThat(decisions).hasValue(4);
+    }
+
+    private AccessRegisterResponseDTO decide() {
+        return AccessRegisterResponseDTO.builder()
+                .authorized(true)
+                .accessType(decisions.incrementAndGet() % 2 == 1 ? "ENTRADA" : "SALIDA")
+                .build();
+    }
+
+    private Supplier<AccessRegisterResponseDTO> blockingDecision(CountDownLatch deciding, CountDownLatch release) {
+        return () -> {
+            deciding.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return decide();
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
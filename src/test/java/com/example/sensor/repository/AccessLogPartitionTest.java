@@ -0,0 +1,113 @@
+package com.example.sensor.repository;
+
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * create_access_logs_partition contra PostgreSQL cuando access_logs_default ya tiene filas del mes.
+ * Usa un mes lejano que el mantenimiento nunca crea y lo elimina al terminar.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccessLogPartitionTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2099, 3, 1);
+    private static final String PARTITION = "access_logs_2099_03";
+
+    @Autowired
+    private AccessLogRepository logRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String deviceId = "TEST-" + UUID.randomUUID();
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM access_logs WHERE access_device_id_vac = ?", deviceId);
+        jdbcTemplate.update("DELETE FROM access_log_device_sequences WHERE access_device_id_vac = ?", deviceId);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + PARTITION);
+    }
+
+    @Test
+    void rowsInTheDefaultPartitionMoveToTheNewMonth() {
+        save(accessLog(1, MONTH.atTime(8, 0)), accessLog(2, MONTH.plusDays(20).atTime(18, 30)));
+        assertThat(partitionsOfDevice()).containsOnly("access_logs_default");
+
+        assertThat(createPartition()).isTrue();
+
+        assertThat(partitionsOfDevice()).containsOnly(PARTITION);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM access_logs_default " +
+                "WHERE access_device_id_vac = ?", Integer.class, deviceId)).isZero();
+        assertThat(deviceSequences()).isEqualTo(2);
+        // La partición quedó adjunta con el trigger e índices del padre
+        save(accessLog(3, MONTH.plusDays(5).atTime(9, 0)));
+        assertThat(partitionsOfDevice()).containsOnly(PARTITION);
+        assertThat(deviceSequences()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_indexes WHERE tablename = ?",
+                Integer.class, PARTITION)).isGreaterThanOrEqualTo(6);
+    }
+
+    @Test
+    void emptyMonthIsCreatedOnceAndMaintenanceKeepsSucceeding() {
+        assertThat(createPartition()).isTrue();
+        assertThat(createPartition()).isFalse();
+
+        save(accessLog(1, MONTH.plusDays(1).atStartOfDay()));
+        assertThat(partitionsOfDevice()).containsOnly(PARTITION);
+        assertThat(jdbcTemplate.queryForObject("SELECT ensure_access_logs_partitions(3)", Integer.class))
+                .isNotNull();
+    }
+
+    private Boolean createPartition() {
+        return new TransactionTemplate(transactionManager).execute(status -> jdbcTemplate.queryForObject(
+                "SELECT create_access_logs_partition(?)", Boolean.class, Date.valueOf(MONTH)));
+    }
+
+    private void save(AccessLog... logs) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> logRepository.saveAll(List.of(logs)));
+    }
+
+    private List<String> partitionsOfDevice() {
+        return jdbcTemplate.queryForList("SELECT tableoid::regclass::text FROM access_logs " +
+                "WHERE access_device_id_vac = ?", String.class, deviceId);
+    }
+
+    private int deviceSequences() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM access_log_device_sequences " +
+                "WHERE access_device_id_vac = ?", Integer.class, deviceId);
+        return count != null ? count : 0;
+    }
+
+    private AccessLog accessLog(long sequence, LocalDateTime time) {
+        return AccessLog.builder()
+                .accessType(AccessType.ENTRADA)
+                .authorized(true)
+                .accessTime(time)
+                .authenticationMethod(AuthenticationMethod.RFID)
+                .deviceId(deviceId)
+                .deviceSequence(sequence)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.sensor.repository;
+
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Slots de huellas borradas que SensorSlotAllocator no puede volver a enrolar: los que access_logs
+ * referencia. Si se reutilizaran, esos registros quedarían a nombre de la nueva persona.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FingerprintSlotHistoryTest {
+
+    @Autowired
+    private FingerPrintRepository fingerPrintRepository;
+    @Autowired
+    private AccessLogRepository logRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Integer> slots = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        slots.forEach(slot -> {
+            jdbcTemplate.update("DELETE FROM access_logs WHERE fprint_id_int = ?", slot);
+            jdbcTemplate.update("DELETE FROM fingerprints WHERE fprint_id_int = ?", slot);
+        });
+    }
+
+    @Test
+    void onlyDeletedFingerprintsWithAccessLogsAreReportedAsHavingHistory() {
+        int base = 900_000 + ThreadLocalRandom.current().nextInt(90_000);
+        int deletedWithLogs = newFingerprint(base, false);
+        int deletedWithoutLogs = newFingerprint(base + 1, false);
+        int activeWithLogs = newFingerprint(base + 2, true);
+        inTransaction(() -> logRepository.saveAll(List.of(
+                log(deletedWithLogs, LocalDateTime.now().minusDays(40)),
+                log(activeWithLogs, LocalDateTime.now()))));
+
+        assertThat(fingerPrintRepository.findInactiveIdsWithAccessHistory())
+                .contains(deletedWithLogs)
+                .doesNotContain(deletedWithoutLogs, activeWithLogs);
+    }
+
+    private int newFingerprint(int slot, boolean active) {
+        inTransaction(() -> fingerPrintRepository.save(FingerPrint.builder().fingerprintId(slot).active(active).build()));
+        slots.add(slot);
+        return slot;
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private AccessLog log(int slot, LocalDateTime time) {
+        return AccessLog.builder()
+                .fingerPrint(fingerPrintRepository.getReferenceById(slot))
+                .accessType(AccessType.ENTRADA)
+                .authorized(true)
+                .accessTime(time)
+                .authenticationMethod(AuthenticationMethod.FINGERPRINT)
+                .build();
+    }
+}
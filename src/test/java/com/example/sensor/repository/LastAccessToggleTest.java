@@ -0,0 +1,147 @@
+package com.example.sensor.repository;
+
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * UPDATE ... RETURNING de rfid_cards/fingerprints contra PostgreSQL (DATABASE_URL, como SensorApplicationTests).
+ * Sin transacción de prueba: cada toggle confirma como en producción y los datos se borran al final.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LastAccessToggleTest {
+
+    @Autowired
+    private RfidCardRepository cardRepository;
+    @Autowired
+    private FingerPrintRepository fingerPrintRepository;
+    @Autowired
+    private AccessLogRepository logRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Integer> cardIds = new ArrayList<>();
+    private final List<Integer> fingerprintIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        cardIds.forEach(id -> {
+            jdbcTemplate.update("DELETE FROM access_logs WHERE rfid_id_int = ?", id);
+            jdbcTemplate.update("DELETE FROM rfid_cards WHERE rfid_id_int = ?", id);
+        });
+        fingerprintIds.forEach(id -> {
+            jdbcTemplate.update("DELETE FROM access_logs WHERE fprint_id_int = ?", id);
+            jdbcTemplate.update("DELETE FROM fingerprints WHERE fprint_id_int = ?", id);
+        });
+    }
+
+    @Test
+    void cardWithoutHistoryAlternatesStartingWithEntrada() {
+        Integer cardId = newCard();
+
+        assertThat(List.of(toggleCard(cardId), toggleCard(cardId), toggleCard(cardId)))
+                .containsExactly("ENTRADA", "SALIDA", "ENTRADA");
+        assertThat(cardRepository.findById(cardId)).get()
+                .satisfies(card -> assertThat(card.getLastAccessType()).isEqualTo(AccessType.ENTRADA));
+    }
+
+    @Test
+    void cardWithoutStateIsSeededFromItsLastAccessLog() {
+        Integer cardId = newCard();
+        LocalDateTime now = LocalDateTime.now();
+        inTransaction(() -> logRepository.saveAll(List.of(
+                log(cardId, AccessType.SALIDA, now.minusHours(2)),
+                log(cardId, AccessType.ENTRADA, now.minusHours(1)))));
+
+        assertThat(toggleCard(cardId)).isEqualTo("SALIDA");
+    }
+
+    @Test
+    void concurrentTogglesNeverReturnTheSameStateTwiceInARow() throws Exception {
+        Integer cardId = newCard();
+        int taps = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> calls = new ArrayList<>();
+            for (int i = 0; i < taps; i++) {
+                calls.add(() -> toggleCard(cardId));
+            }
+            List<String> results = new ArrayList<>();
+            for (Future<String> future : executor.invokeAll(calls)) {
+                results.add(future.get());
+            }
+            // Cada UPDATE ve el estado confirmado por el anterior: mitad ENTRADA, mitad SALIDA
+            assertThat(results).filteredOn("ENTRADA"::equals).hasSize(taps / 2);
+            assertThat(results).filteredOn("SALIDA"::equals).hasSize(taps / 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void fingerprintAlternatesLikeCards() {
+        int slot = 900_000 + ThreadLocalRandom.current().nextInt(90_000);
+        inTransaction(() -> fingerPrintRepository.save(FingerPrint.builder().fingerprintId(slot).build()));
+        fingerprintIds.add(slot);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        assertThat(List.of(
+                tx.execute(status -> fingerPrintRepository.toggleLastAccessType(slot, LocalDateTime.now())),
+                tx.execute(status -> fingerPrintRepository.toggleLastAccessType(slot, LocalDateTime.now()))))
+                .containsExactly("ENTRADA", "SALIDA");
+    }
+
+    private Integer newCard() {
+        RfidCard card = new TransactionTemplate(transactionManager).execute(status -> cardRepository.save(
+                RfidCard.builder().cardUid("TEST-" + UUID.randomUUID()).build()));
+        cardIds.add(card.getId());
+        return card.getId();
+    }
+
+    private String toggleCard(Integer cardId) {
+        return new TransactionTemplate(transactionManager)
+                .execute(status -> cardRepository.toggleLastAccessType(cardId, LocalDateTime.now()));
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private AccessLog log(Integer cardId, AccessType type, LocalDateTime time) {
+        return AccessLog.builder()
+                .rfidCard(cardRepository.getReferenceById(cardId))
+                .accessType(type)
+                .authorized(true)
+                .accessTime(time)
+                .authenticationMethod(AuthenticationMethod.RFID)
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.model.dto.AccessEventBatchRequestDTO;
+import com.example.sensor.model.dto.AccessEventBatchResponseDTO;
+import com.example.sensor.model.dto.AccessEventDTO;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.repository.AccessLogRepository;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.repository.RfidCardRepository;
+import com.example.sensor.service.AttendanceRollupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * registerAccessBatch contra PostgreSQL: duplicados, huecos de secuencia, orden por hora del
+ * dispositivo y reintentos simultáneos del mismo buffer offline. Cada llamada confirma en su
+ * propia transacción, como la del proxy @Transactional del servicio.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccessEventBatchTest {
+
+    @Autowired
+    private RfidCardRepository cardRepository;
+    @Autowired
+    private FingerPrintRepository fingerPrintRepository;
+    @Autowired
+    private AccessLogRepository logRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String deviceId = "TEST-" + UUID.randomUUID();
+    private final String cardUid = "TEST-" + UUID.randomUUID();
+    private final LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(3);
+    private AccessControlServiceImpl service;
+    private Integer cardId;
+
+    @BeforeEach
+    void setUp() {
+        service = new AccessControlServiceImpl(cardRepository, fingerPrintRepository, logRepository,
+                null, null, null, null, null, mock(AttendanceRollupService.class), null, null, null);
+        cardId = new TransactionTemplate(transactionManager)
+                .execute(status -> cardRepository.save(RfidCard.builder().cardUid(cardUid).build()).getId());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM access_logs WHERE access_device_id_vac = ?", deviceId);
+        jdbcTemplate.update("DELETE FROM access_log_device_sequences WHERE access_device_id_vac = ?", deviceId);
+        jdbcTemplate.update("DELETE FROM rfid_cards WHERE rfid_id_int = ?", cardId);
+    }
+
+    @Test
+    void repeatedSequencesAreDuplicatesWithinTheBatchAndAcrossUploads() {
+        AccessEventBatchResponseDTO first = upload(event(1, 0), event(2, 1), event(2, 1), event(3, 2));
+
+        assertThat(first.getAccepted()).isEqualTo(3);
+        assertThat(first.getDuplicates()).isEqualTo(1);
+
+        AccessEventBatchResponseDTO retry = upload(event(2, 1), event(3, 2), event(4, 3));
+
+        assertThat(retry.getAccepted()).isEqualTo(1);
+        assertThat(retry.getDuplicates()).isEqualTo(2);
+        assertThat(retry.getLastSequence()).isEqualTo(4L);
+        assertThat(storedSequences()).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void gapsAfterTheLastConfirmedSequenceAreReportedAsRanges() {
+        upload(event(1, 0), event(2, 1), event(3, 2));
+
+        AccessEventBatchResponseDTO response = upload(event(5, 3), event(6, 4), event(9, 5));
+
+        assertThat(response.getMissingSequences()).containsExactly("4", "7-8");
+        assertThat(response.getLastSequence()).isEqualTo(9L);
+    }
+
+    @Test
+    void eventsAlternateInDeviceTimeOrderNotArrivalOrder() {
+        // La secuencia 1 se registró después que la 2 (reloj del dispositivo)
+        upload(event(1, 10), event(2, 5), event(3, 20));
+
+        assertThat(typesBySequence()).containsExactly("SALIDA", "ENTRADA", "ENTRADA");
+    }
+
+    @Test
+    void eventsOlderThanTheLastAccessAreLoggedWithoutChangingTheCardState() {
+        upload(event(1, 60));
+
+        // Carga tardía de accesos anteriores a la 1: alternan entre ellos, no desde el estado actual
+        upload(event(2, 0), event(3, 30));
+
+        RfidCard card = cardRepository.findById(cardId).orElseThrow();
+        assertThat(card.getLastAccessType()).isEqualTo(AccessType.ENTRADA);
+        assertThat(card.getLastAccessTime()).isEqualTo(base.plusMinutes(60));
+        assertThat(typesBySequence()).containsExactly("ENTRADA", "ENTRADA", "SALIDA");
+
+        upload(event(4, 120));
+
+        assertThat(typesBySequence()).containsExactly("ENTRADA", "ENTRADA", "SALIDA", "SALIDA");
+        assertThat(cardRepository.findById(cardId).orElseThrow().getLastAccessType()).isEqualTo(AccessType.SALIDA);
+    }
+
+    @Test
+    void concurrentUploadsOfTheSameBufferStoreEachEventOnceWithoutFailing() throws Exception {
+        AccessEventDTO[] events = new AccessEventDTO[50];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = event(i + 1, i);
+        }
+        int uploads = 4;
+        CyclicBarrier start = new CyclicBarrier(uploads);
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        try {
+            List<Future<AccessEventBatchResponseDTO>> futures = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await(10, TimeUnit.SECONDS);
+                    return upload(events);
+                }));
+            }
+            int accepted = 0;
+            int duplicates = 0;
+            for (Future<AccessEventBatchResponseDTO> future : futures) {
+                AccessEventBatchResponseDTO response = future.get(60, TimeUnit.SECONDS);
+                accepted += response.getAccepted();
+                duplicates += response.getDuplicates();
+                assertThat(response.getLastSequence()).isEqualTo(50L);
+            }
+            assertThat(accepted).isEqualTo(events.length);
+            assertThat(duplicates).isEqualTo(events.length * (uploads - 1));
+            assertThat(storedSequences()).hasSize(events.length);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private AccessEventBatchResponseDTO upload(AccessEventDTO... events) {
+        AccessEventBatchRequestDTO request = AccessEventBatchRequestDTO.builder()
+                .deviceId(deviceId)
+                .location("Puerta de prueba")
+                .events(List.of(events))
+                .build();
+        return new TransactionTemplate(transactionManager).execute(status -> service.registerAccessBatch(request));
+    }
+
+    private AccessEventDTO event(long sequence, int minute) {
+        return AccessEventDTO.builder()
+                .sequence(sequence)
+                .timestamp(base.plusMinutes(minute))
+                .authenticationMethod("RFID")
+                .cardUid(cardUid)
+                .build();
+    }
+
+    private List<String> typesBySequence() {
+        return jdbcTemplate.queryForList("SELECT access_type_enum FROM access_logs " +
+                "WHERE access_device_id_vac = ? ORDER BY access_device_seq_bint", String.class, deviceId);
+    }
+
+    private List<Long> storedSequences() {
+        return jdbcTemplate.queryForList("SELECT access_device_seq_bint FROM access_logs " +
+                "WHERE access_device_id_vac = ? ORDER BY access_device_seq_bint", Long.class, deviceId);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.exceptions.InvalidCursorException;
+import com.example.sensor.mapper.AccessLogMapper;
+import com.example.sensor.model.dto.AccessLogFilterDTO;
+import com.example.sensor.model.dto.AccessLogPageDTO;
+import com.example.sensor.model.dto.AccessLogResponseDTO;
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.repository.AccessLogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Paginación por cursor de searchAccessLogs contra PostgreSQL: recorrer todas las páginas
+ * devuelve cada registro una sola vez y en orden, también con horas repetidas.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccessLogCursorTest {
+
+    @Autowired
+    private AccessLogRepository logRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String deviceId = "TEST-" + UUID.randomUUID();
+    private AccessControlServiceImpl service;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        service = new AccessControlServiceImpl(null, null, logRepository, null, new AccessLogMapper(),
+                null, null, null, null, null, null, null);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM access_logs WHERE access_device_id_vac = ?", deviceId);
+    }
+
+    @Test
+    void pagesCoverEveryRowOnceInDescendingOrderAcrossTies() {
+        // Microsegundos para comprobar que el cursor conserva la precisión de access_time_dt
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(1).plusNanos(123_456_000);
+        List<AccessLog> logs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // Tres accesos comparten cada hora: el id desempata dentro de la misma hora
+            logs.add(accessLog(base.plusSeconds(i / 3)));
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> logRepository.saveAll(logs));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AccessLogPageDTO page = page(cursor, 3);
+            page.getItems().stream().map(AccessLogResponseDTO::getId).forEach(seen::add);
+            assertThat(page.getHasMore()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = jdbcTemplate.queryForList("SELECT access_id_int FROM access_logs " +
+                "WHERE access_device_id_vac = ? ORDER BY access_time_dt DESC, access_id_int DESC", Long.class, deviceId);
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(8).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void malformedCursorsAreRejectedAsInvalidCursor() {
+        String wrongParts = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2024-01-01T00:00".getBytes(StandardCharsets.UTF_8));
+        String wrongTime = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("ayer|15".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of("%%%", wrongParts, wrongTime)) {
+            assertThatThrownBy(() -> page(cursor, 3)).isInstanceOf(InvalidCursorException.class);
+        }
+    }
+
+    private AccessLogPageDTO page(String cursor, int limit) {
+        AccessLogFilterDTO filter = AccessLogFilterDTO.builder().deviceId(deviceId).cursor(cursor).limit(limit).build();
+        return readOnly.execute(status -> service.searchAccessLogs(filter));
+    }
+
+    private AccessLog accessLog(LocalDateTime time) {
+        return AccessLog.builder()
+                .accessType(AccessType.ENTRADA)
+                .authorized(true)
+                .accessTime(time)
+                .authenticationMethod(AuthenticationMethod.RFID)
+                .deviceId(deviceId)
+                .build();
+    }
+}
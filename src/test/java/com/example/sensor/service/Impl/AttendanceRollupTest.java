@@ -0,0 +1,166 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.config.AttendanceRollupConfig;
+import com.example.sensor.model.entity.AccessLog;
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.entity.User;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.AuthenticationMethod;
+import com.example.sensor.repository.AccessLogRepository;
+import com.example.sensor.repository.AttendanceDailyRepository;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.repository.RfidCardRepository;
+import com.example.sensor.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El resumen sumado lote a lote debe coincidir con el recalculado desde access_logs.
+ * Usa días de 1999 (partición por defecto) para no tocar resúmenes reales al recalcular.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttendanceRollupTest {
+
+    private static final LocalDate DAY = LocalDate.of(1999, 6, 10);
+
+    @Autowired
+    private AttendanceDailyRepository attendanceRepository;
+    @Autowired
+    private AccessLogRepository logRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RfidCardRepository cardRepository;
+    @Autowired
+    private FingerPrintRepository fingerPrintRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String deviceId = "TEST-" + UUID.randomUUID();
+    private AttendanceRollupServiceImpl service;
+    private TransactionTemplate tx;
+    private User user;
+    private RfidCard card;
+    private FingerPrint fingerprint;
+
+    @BeforeEach
+    void setUp() {
+        service = new AttendanceRollupServiceImpl(attendanceRepository, new AttendanceRollupConfig());
+        tx = new TransactionTemplate(transactionManager);
+        int slot = 900_000 + ThreadLocalRandom.current().nextInt(90_000);
+        tx.executeWithoutResult(status -> {
+            user = userRepository.save(User.builder().nombres("Test").apellidoPaterno("Resumen")
+                    .tipoDocumento("DNI").numeroDocumento("TEST-" + UUID.randomUUID()).build());
+            card = cardRepository.save(RfidCard.builder().cardUid("TEST-" + UUID.randomUUID()).user(user).build());
+            fingerprint = fingerPrintRepository.save(FingerPrint.builder().fingerprintId(slot).user(user).build());
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM access_logs WHERE access_device_id_vac = ?", deviceId);
+        jdbcTemplate.update("DELETE FROM rfid_cards WHERE rfid_id_int = ?", card.getId());
+        jdbcTemplate.update("DELETE FROM fingerprints WHERE fprint_id_int = ?", fingerprint.getFingerprintId());
+        // attendance_daily se borra en cascada
+        jdbcTemplate.update("DELETE FROM users WHERE usr_id_int = ?", user.getId());
+    }
+
+    @Test
+    void accumulatedBatchesMatchTheRebuiltRollup() {
+        LocalDateTime morning = DAY.atTime(8, 0);
+        accumulate(
+                rfid(AccessType.ENTRADA, true, morning.plusMinutes(5), "Puerta A"),
+                fingerprint(AccessType.ENTRADA, false, morning, "Puerta A"),
+                rfid(AccessType.SALIDA, true, morning.plusHours(4), "Puerta A"));
+        // Lote tardío con una entrada más temprana y una salida más tardía del mismo día
+        accumulate(
+                fingerprint(AccessType.ENTRADA, true, morning.minusMinutes(30), "Puerta A"),
+                rfid(AccessType.SALIDA, true, morning.plusHours(9), "Puerta A"),
+                rfid(AccessType.ENTRADA, true, morning.plusHours(1), null),
+                rfid(AccessType.SALIDA, false, morning.plusDays(1).plusHours(2), "Puerta B"));
+        accumulate(fingerprint(AccessType.SALIDA, true, morning.plusDays(1).plusHours(10), "Puerta B"));
+
+        List<Map<String, Object>> accumulated = rollup();
+        assertThat(accumulated).hasSize(3);
+        assertThat(accumulated.get(1))
+                .containsEntry("att_location_vac", "Puerta A")
+                .containsEntry("att_first_entry_dt", Timestamp.valueOf(morning.minusMinutes(30)))
+                .containsEntry("att_last_exit_dt", Timestamp.valueOf(morning.plusHours(9)))
+                .containsEntry("att_tap_count_int", 4)
+                .containsEntry("att_denied_count_int", 1);
+
+        tx.executeWithoutResult(status -> service.rebuild(DAY, DAY.plusDays(1)));
+
+        assertThat(rollup()).isEqualTo(accumulated);
+    }
+
+    @Test
+    void logsWithoutUserAreLeftOutOfBothPaths() {
+        AccessLog anonymous = AccessLog.builder().accessType(AccessType.ENTRADA).authorized(false)
+                .accessTime(DAY.atTime(7, 0)).authenticationMethod(AuthenticationMethod.RFID)
+                .deviceId(deviceId).build();
+        accumulate(anonymous, rfid(AccessType.ENTRADA, true, DAY.atTime(7, 1), "Puerta A"));
+        List<Map<String, Object>> accumulated = rollup();
+
+        tx.executeWithoutResult(status -> service.rebuild(DAY, DAY));
+
+        assertThat(accumulated).hasSize(1);
+        assertThat(rollup()).isEqualTo(accumulated);
+    }
+
+    private void accumulate(AccessLog... logs) {
+        List<AccessLog> saved = tx.execute(status -> logRepository.saveAll(List.of(logs)));
+        tx.executeWithoutResult(status -> service.accumulate(new ArrayList<>(saved)));
+    }
+
+    private List<Map<String, Object>> rollup() {
+        return jdbcTemplate.queryForList("SELECT att_day_dt, att_location_vac, att_first_entry_dt, att_last_exit_dt, " +
+                "att_tap_count_int, att_denied_count_int FROM attendance_daily WHERE att_usr_id_int = ? " +
+                "ORDER BY att_day_dt, att_location_vac", user.getId());
+    }
+
+    private AccessLog rfid(AccessType type, boolean authorized, LocalDateTime time, String location) {
+        return accessLog(type, authorized, time, location, AuthenticationMethod.RFID).rfidCard(card).build();
+    }
+
+    private AccessLog fingerprint(AccessType type, boolean authorized, LocalDateTime time, String location) {
+        return accessLog(type, authorized, time, location, AuthenticationMethod.FINGERPRINT)
+                .fingerPrint(fingerprint).build();
+    }
+
+    private AccessLog.AccessLogBuilder accessLog(AccessType type, boolean authorized, LocalDateTime time,
+                                                 String location, AuthenticationMethod method) {
+        return AccessLog.builder()
+                .accessType(type)
+                .authorized(authorized)
+                .accessTime(time)
+                .authenticationMethod(method)
+                .location(location)
+                .deviceId(deviceId);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.sensor.service.Impl;
+
+import com.example.sensor.cache.CredentialIndex;
+import com.example.sensor.cache.UserSearchIndex;
+import com.example.sensor.config.UserImportConfig;
+import com.example.sensor.exceptions.InvalidCsvException;
+import com.example.sensor.model.dto.UserImportErrorDTO;
+import com.example.sensor.model.dto.UserImportResultDTO;
+import com.example.sensor.model.entity.FingerPrint;
+import com.example.sensor.model.entity.RfidCard;
+import com.example.sensor.model.entity.User;
+import com.example.sensor.repository.FingerPrintRepository;
+import com.example.sensor.repository.RfidCardRepository;
+import com.example.sensor.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Importación por bloques contra PostgreSQL: un bloque cuya huella se asigna en paralelo se
+ * revierte entero (usuarios, tarjetas e índice de credenciales) y los demás bloques se confirman.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportChunkTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RfidCardRepository cardRepository;
+    @Autowired
+    private FingerPrintRepository fingerPrintRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String prefix = "TEST-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    private final String firstCard = prefix + "C1";
+    private final String secondCard = prefix + "C2";
+    private final int slot = 900_000 + ThreadLocalRandom.current().nextInt(90_000);
+    private CredentialIndex credentialIndex;
+    private User holder;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            cardRepository.save(RfidCard.builder().cardUid(firstCard).build());
+            cardRepository.save(RfidCard.builder().cardUid(secondCard).build());
+            fingerPrintRepository.save(FingerPrint.builder().fingerprintId(slot).build());
+            holder = userRepository.save(User.builder().nombres("Otro").apellidoPaterno("Usuario")
+                    .tipoDocumento("DNI").numeroDocumento(prefix + "HOLDER").build());
+        });
+        credentialIndex = new CredentialIndex(mock(RfidCardRepository.class), mock(FingerPrintRepository.class));
+        credentialIndex.load();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM rfid_cards WHERE rfid_uid_vac LIKE ?", prefix + "%");
+        jdbcTemplate.update("DELETE FROM fingerprints WHERE fprint_id_int = ?", slot);
+        jdbcTemplate.update("DELETE FROM users WHERE usr_nro_documento_vac LIKE ?", prefix + "%");
+    }
+
+    @Test
+    void chunkWithACredentialAssignedConcurrentlyRollsBackAsAWhole() throws IOException {
+        // El primer bloque vincula la tarjeta y luego encuentra la huella ya asignada por otra operación
+        UserImportServiceImpl service = service(assignFingerprintBeforeLinking());
+        String csv = "nombres;apellidoPaterno;tipoDocumento;numeroDocumento;cardUid;fingerprintId\n" +
+                "Ana;Rojas;DNI;" + prefix + "1;" + firstCard + ";\n" +
+                "Luis;Paz;DNI;" + prefix + "2;;" + slot + "\n" +
+                "Marta;\"Gonzales; Vda.\";DNI;" + prefix + "3;" + secondCard + ";\n" +
+                "Jose;Quispe;DNI;" + prefix + "4;;\n";
+
+        UserImportResultDTO result = service.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getReceived()).isEqualTo(4);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getCardsLinked()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(UserImportErrorDTO::getLine).containsExactly(2L, 3L);
+        assertThat(result.getErrors()).allSatisfy(error -> assertThat(error.getError()).startsWith("Bloque revertido"));
+
+        assertThat(documents()).containsExactly(prefix + "3", prefix + "4", prefix + "HOLDER");
+        assertThat(cardOwner(firstCard)).isNull();
+        assertThat(cardOwner(secondCard)).isNotNull();
+        // El índice solo recibe las tarjetas de bloques confirmados
+        assertThat(credentialIndex.findActiveCard(firstCard)).isEmpty();
+        assertThat(credentialIndex.findActiveCard(secondCard)).get()
+                .satisfies(card -> assertThat(card.getPersonName()).isEqualTo("Marta Gonzales; Vda."));
+    }
+
+    @Test
+    void headerWithoutRequiredColumnsIsRejected() {
+        UserImportServiceImpl service = service(jdbcTemplate);
+        byte[] csv = "nombres,cargo\nAna,Operaria\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> service.importUsers(new ByteArrayInputStream(csv)))
+                .isInstanceOf(InvalidCsvException.class)
+                .hasMessageContaining("apellidoPaterno");
+    }
+
+    private UserImportServiceImpl service(JdbcTemplate importJdbcTemplate) {
+        UserImportConfig config = new UserImportConfig();
+        config.setChunkSize(2);
+        return new UserImportServiceImpl(userRepository, cardRepository, fingerPrintRepository, importJdbcTemplate,
+                new TransactionTemplate(transactionManager), credentialIndex, mock(UserSearchIndex.class), config);
+    }
+
+    /**
+     * JdbcTemplate de la importación que, justo antes del UPDATE de huellas, asigna la huella desde
+     * otra conexión, como lo haría un enroll o una asignación manual confirmada en paralelo
+     */
+    private JdbcTemplate assignFingerprintBeforeLinking() {
+        return new JdbcTemplate(dataSource) {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                if (sql.startsWith("UPDATE fingerprints")) {
+                    CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                            "UPDATE fingerprints SET usr_id_int = ? WHERE fprint_id_int = ?", holder.getId(), slot))
+                            .orTimeout(10, TimeUnit.SECONDS)
+                            .join();
+                }
+                return super.batchUpdate(sql, batchArgs, batchSize, pss);
+            }
+        };
+    }
+
+    private List<String> documents() {
+        return jdbcTemplate.queryForList("SELECT usr_nro_documento_vac FROM users " +
+                "WHERE usr_nro_documento_vac LIKE ? ORDER BY usr_nro_documento_vac", String.class, prefix + "%");
+    }
+
+    private Integer cardOwner(String cardUid) {
+        return jdbcTemplate.queryForObject("SELECT usr_id_int FROM rfid_cards WHERE rfid_uid_vac = ?",
+                Integer.class, cardUid);
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.sensor.simulator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Generador de carga que se comporta como una flota de N puertas contra el backend.
+ * Cada puerta es un hilo que, como el firmware, envía un acceso a la vez (POST /access/register
+ * o POST /fingerprints/access) con llegadas de Poisson a --rate accesos por segundo. Opcionalmente
+ * una fracción --verify-ratio pasa por POST /fingerprints/verify, que el backend reenvía al
+ * ESP32 (o a Esp32Simulator) y ejercita la cola por dispositivo, los timeouts y los reintentos.
+ *
+ * La latencia se mide desde el instante programado de cada acceso, no desde que la puerta
+ * quedó libre: si el backend se atrasa, la espera acumulada cuenta (sin omisión coordinada).
+ *
+ * Ejecutar:
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.sensor.simulator.AccessLoadGenerator \
+ *     --base-url=http://localhost:8080/api/v1 --doors=50 --rate=2 --duration-s=60 --fingerprint-ratio=0.5
+ * </pre>
+ * Tarjetas: --cards-file con un UID por línea (las que existan en la BD darán accesos autorizados);
+ * sin archivo se usan SIM00001..SIM{--cards}, los UID que entrega Esp32Simulator.
+ */
+public class AccessLoadGenerator {
+
+    private static final String[] OPERATIONS = {"rfid", "fingerprint", "verify"};
+
+    private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder authorized = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Esp32Simulator.parseOptions(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080/api/v1");
+        int doors = Integer.parseInt(options.getOrDefault("doors", "20"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "1"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration-s", "60"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup-s", "10"));
+        double fingerprintRatio = Double.parseDouble(options.getOrDefault("fingerprint-ratio", "0.5"));
+        double verifyRatio = Double.parseDouble(options.getOrDefault("verify-ratio", "0"));
+        int fingerprints = Integer.parseInt(options.getOrDefault("fingerprints", "127"));
+        String devicePrefix = options.getOrDefault("device-prefix", "SIM-");
+        int devices = Integer.parseInt(options.getOrDefault("devices", "1"));
+
+        List<String> cardUids = new ArrayList<>();
+        if (options.containsKey("cards-file")) {
+            Files.readAllLines(Path.of(options.get("cards-file"))).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .forEach(cardUids::add);
+        } else {
+            int cards = Integer.parseInt(options.getOrDefault("cards", "50"));
+            for (int i = 1; i <= cards; i++) {
+                cardUids.add(String.format("SIM%05d", i));
+            }
+        }
+
+        System.out.printf("Backend %s | puertas %d | %.2f accesos/s por puerta | huella %.0f%% | verify %.0f%% | "
+                        + "%d s + %d s de calentamiento%n",
+                baseUrl, doors, rate, fingerprintRatio * 100, verifyRatio * 100, durationSeconds, warmupSeconds);
+
+        AccessLoadGenerator generator = new AccessLoadGenerator();
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Door[] fleet = new Door[doors];
+        for (int i = 0; i < doors; i++) {
+            fleet[i] = new Door(generator, client, baseUrl, "Puerta " + (i + 1),
+                    devicePrefix + (i % devices + 1), rate, fingerprintRatio, verifyRatio, cardUids, fingerprints);
+        }
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        CountDownLatch done = new CountDownLatch(doors);
+        for (Door door : fleet) {
+            Thread thread = new Thread(() -> {
+                try {
+                    door.run(warmupEnd, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "door-" + door.location);
+            thread.start();
+        }
+
+        while (!done.await(5, TimeUnit.SECONDS)) {
+            long sent = Arrays.stream(fleet).mapToLong(door -> door.sent).sum();
+            System.out.printf("... %d accesos enviados, estados %s%n", sent, generator.statusCounts());
+        }
+
+        generator.report(fleet, durationSeconds);
+    }
+
+    private Map<String, Long> statusCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        statuses.forEach((status, adder) -> counts.put(status, adder.sum()));
+        return counts;
+    }
+
+    private void record(String status) {
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    private void report(Door[] fleet, int durationSeconds) {
+        System.out.println();
+        System.out.printf("%-12s %9s %9s %9s %9s %9s %9s %9s%n",
+                "operación", "accesos", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errores");
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            int index = operation;
+            long[] latencies = merge(fleet, door -> door.latencies[index]);
+            long errors = Arrays.stream(fleet).mapToLong(door -> door.errors[index]).sum();
+            if (latencies.length > 0) {
+                printRow(OPERATIONS[operation], latencies, errors, durationSeconds);
+            }
+        }
+        long[] all = merge(fleet, door -> door.allLatencies());
+        long errors = Arrays.stream(fleet).mapToLong(door -> Arrays.stream(door.errors).sum()).sum();
+        printRow("total", all, errors, durationSeconds);
+        System.out.printf("%nAutorizados %d, denegados %d, estados HTTP %s%n",
+                authorized.sum(), denied.sum(), statusCounts());
+    }
+
+    private static void printRow(String name, long[] latencies, long errors, int durationSeconds) {
+        Arrays.sort(latencies);
+        System.out.printf("%-12s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9d%n",
+                name,
+                latencies.length,
+                latencies.length / (double) durationSeconds,
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                percentile(latencies, 0.999),
+                latencies.length > 0 ? latencies[latencies.length - 1] / 1000.0 : 0,
+                errors);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * quantile) - 1);
+        return sorted[Math.max(index, 0)] / 1000.0;
+    }
+
+    private static long[] merge(Door[] fleet, Function<Door, LatencyLog> selector) {
+        int size = Arrays.stream(fleet).mapToInt(door -> selector.apply(door).size).sum();
+        long[] merged = new long[size];
+        int offset = 0;
+        for (Door door : fleet) {
+            LatencyLog log = selector.apply(door);
+            System.arraycopy(log.values, 0, merged, offset, log.size);
+            offset += log.size;
+        }
+        return merged;
+    }
+
+    /**
+     * Latencias en microsegundos de una puerta; solo la escribe su propio hilo
+     */
+    private static class LatencyLog {
+        long[] values = new long[1024];
+        int size;
+
+        void add(long micros) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = micros;
+        }
+    }
+
+    private static class Door {
+        final AccessLoadGenerator generator;
+        final HttpClient client;
+        final String baseUrl;
+        final String location;
+        final String deviceId;
+        final double rate;
+        final double fingerprintRatio;
+        final double verifyRatio;
+        final List<String> cardUids;
+        final int fingerprints;
+        final LatencyLog[] latencies = {new LatencyLog(), new LatencyLog(), new LatencyLog()};
+        final long[] errors = new long[OPERATIONS.length];
+        volatile long sent;
+
+        Door(AccessLoadGenerator generator, HttpClient client, String baseUrl, String location, String deviceId,
+             double rate, double fingerprintRatio, double verifyRatio, List<String> cardUids, int fingerprints) {
+            this.generator = generator;
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.location = location;
+            this.deviceId = deviceId;
+            this.rate = rate;
+            this.fingerprintRatio = fingerprintRatio;
+            this.verifyRatio = verifyRatio;
+            this.cardUids = cardUids;
+            this.fingerprints = fingerprints;
+        }
+
+        void run(long warmupEnd, long end) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long intended = System.nanoTime() + nextInterval(random);
+            while (intended < end) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+
+                int operation = random.nextDouble() < verifyRatio ? 2
+                        : random.nextDouble() < fingerprintRatio ? 1 : 0;
+                boolean ok = send(operation, random);
+                long latency = System.nanoTime() - intended;
+                if (intended >= warmupEnd) {
+                    latencies[operation].add(TimeUnit.NANOSECONDS.toMicros(latency));
+                    if (!ok) {
+                        errors[operation]++;
+                    }
+                }
+                sent++;
+                intended += nextInterval(random);
+            }
+        }
+
+        LatencyLog allLatencies() {
+            LatencyLog all = new LatencyLog();
+            for (LatencyLog log : latencies) {
+                for (int i = 0; i < log.size; i++) {
+                    all.add(log.values[i]);
+                }
+            }
+            return all;
+        }
+
+        private long nextInterval(ThreadLocalRandom random) {
+            double seconds = -Math.log(1 - random.nextDouble()) / rate;
+            return (long) (seconds * 1_000_000_000L);
+        }
+
+        private boolean send(int operation, ThreadLocalRandom random) {
+            HttpRequest request = switch (operation) {
+                case 0 -> post("/access/register", String.format(
+                        "{\"cardUid\":\"%s\",\"location\":\"%s\",\"deviceId\":\"%s\",\"authenticationMethod\":\"RFID\"}",
+                        cardUids.get(random.nextInt(cardUids.size())), location, deviceId));
+                case 1 -> post("/fingerprints/access", String.format(
+                        "{\"fingerprintId\":%d,\"confidence\":%d,\"location\":\"%s\",\"deviceId\":\"%s\","
+                                + "\"authenticationMethod\":\"FINGERPRINT\"}",
+                        1 + random.nextInt(fingerprints), 50 + random.nextInt(200), location, deviceId));
+                default -> post("/fingerprints/verify?deviceId=" + deviceId, "");
+            };
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                generator.record(String.valueOf(response.statusCode()));
+                if (response.statusCode() / 100 != 2) {
+                    return false;
+                }
+                if (operation != 2) {
+                    if (response.body().contains("\"authorized\":true")) {
+                        generator.authorized.increment();
+                    } else {
+                        generator.denied.increment();
+                    }
+                }
+                return true;
+            } catch (Exception e) {
+                generator.record(e.getClass().getSimpleName());
+                return false;
+            }
+        }
+
+        private HttpRequest post(String path, String json) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                    .build();
+        }
+    }
+}
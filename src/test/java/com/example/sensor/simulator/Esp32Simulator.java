@@ -0,0 +1,352 @@
+package com.example.sensor.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Simulador de la API HTTP del firmware (esp32_fingerprint_rfid_server.ino) para pruebas
+ * sin hardware: mismas rutas, códigos y cuerpos JSON, con latencia, fallos y cuelgues
+ * inyectables. Como el WebServer del ESP32, cada dispositivo atiende una petición de la API
+ * a la vez; /sim/faults queda fuera de esa cola para poder cambiar las fallas en plena prueba.
+ *
+ * Fallas configurables por argumento y, en caliente, con GET/POST /sim/faults?clave=valor:
+ * <ul>
+ *   <li>latency-ms / jitter-ms: tiempo de respuesta base más una variación uniforme</li>
+ *   <li>sensor-ms: espera de dedo o tarjeta en enroll, verify y scan</li>
+ *   <li>failure-rate: fracción de respuestas 500</li>
+ *   <li>timeout-rate / hang-ms: fracción de peticiones que no responden durante hang-ms</li>
+ *   <li>match-rate: fracción de verify/scan que detectan una huella o tarjeta</li>
+ * </ul>
+ *
+ * Ejecutar (N dispositivos en puertos consecutivos desde --port):
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.sensor.simulator.Esp32Simulator \
+ *     --port=8081 --devices=2 --latency-ms=40 --failure-rate=0.02 --timeout-rate=0.01
+ * </pre>
+ * y en el backend: esp32.devices[0].id=SIM-1, esp32.devices[0].base-url=http://localhost:8081, ...
+ */
+public class Esp32Simulator {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final int SENSOR_CAPACITY = 127;
+
+    private final String deviceId;
+    private final Faults faults;
+    private final NavigableSet<Integer> templates = new ConcurrentSkipListSet<>();
+    private final List<String> cardUids;
+    private final Map<String, LongAdder> requests = new ConcurrentSkipListMap<>();
+    private final ReentrantLock sensor = new ReentrantLock(true);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public Esp32Simulator(String deviceId, Faults faults, int initialTemplates, List<String> cardUids) {
+        this.deviceId = deviceId;
+        this.faults = faults;
+        this.cardUids = cardUids;
+        for (int id = 1; id <= Math.min(initialTemplates, SENSOR_CAPACITY); id++) {
+            templates.add(id);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "8081"));
+        int devices = Integer.parseInt(options.getOrDefault("devices", "1"));
+        int initialTemplates = Integer.parseInt(options.getOrDefault("templates", "20"));
+        int cards = Integer.parseInt(options.getOrDefault("cards", "50"));
+
+        List<String> cardUids = new ArrayList<>();
+        for (int i = 1; i <= cards; i++) {
+            cardUids.add(String.format("SIM%05d", i));
+        }
+
+        for (int i = 0; i < devices; i++) {
+            Faults faults = new Faults();
+            faults.apply(options);
+            Esp32Simulator simulator = new Esp32Simulator("SIM-" + (i + 1), faults, initialTemplates, cardUids);
+            simulator.start(port + i);
+            System.out.printf("%s escuchando en http://localhost:%d (%s)%n",
+                    simulator.deviceId, port + i, faults);
+        }
+    }
+
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 64);
+        server.createContext("/api/fingerprint/", exchange -> serially(exchange, this::fingerprint));
+        server.createContext("/api/rfid/", exchange -> serially(exchange, this::rfid));
+        server.createContext("/sim/faults", this::faults);
+        server.createContext("/", exchange -> send(exchange, 404,
+                Map.of("error", "Not Found", "path", exchange.getRequestURI().getPath())));
+        executor = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "esp32-sim-" + deviceId));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * El firmware atiende en serie: las demás peticiones esperan como en el backlog TCP del ESP32
+     */
+    private void serially(HttpExchange exchange, HttpHandler handler) throws IOException {
+        sensor.lock();
+        try {
+            handler.handle(exchange);
+        } finally {
+            sensor.unlock();
+        }
+    }
+
+    private void fingerprint(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String route = exchange.getRequestURI().getPath().substring("/api/fingerprint/".length());
+        count(method + " /api/fingerprint/" + (route.matches("\\d+") ? "{id}" : route));
+        if (injectFault(exchange)) {
+            return;
+        }
+
+        switch (method + " " + route) {
+            case "GET ping" -> send(exchange, 200, Map.of("status", "ok", "device", "fingerprint"));
+            case "GET count" -> send(exchange, 200, Map.of("count", templates.size()));
+            case "GET slots" -> slots(exchange);
+            case "POST enroll" -> enroll(exchange);
+            case "POST verify" -> verify(exchange);
+            case "DELETE empty" -> {
+                templates.clear();
+                send(exchange, 200, Map.of("status", "emptied"));
+            }
+            default -> {
+                if (method.equals("DELETE") && route.matches("\\d+")) {
+                    boolean deleted = templates.remove(Integer.parseInt(route));
+                    send(exchange, deleted ? 200 : 400, Map.of("status", deleted ? "deleted" : "error"));
+                } else {
+                    send(exchange, 404, Map.of("error", "Not Found", "path", exchange.getRequestURI().getPath()));
+                }
+            }
+        }
+    }
+
+    private void rfid(HttpExchange exchange) throws IOException {
+        String route = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath();
+        count(route);
+        if (injectFault(exchange)) {
+            return;
+        }
+
+        switch (route) {
+            case "GET /api/rfid/ping" -> send(exchange, 200, Map.of("status", "ok", "device", "rfid"));
+            case "POST /api/rfid/scan" -> {
+                sleep(faults.sensorMs);
+                if (cardUids.isEmpty() || !chance(faults.matchRate)) {
+                    send(exchange, 200, Map.of("success", false, "message", "No card detected"));
+                } else {
+                    String uid = cardUids.get(ThreadLocalRandom.current().nextInt(cardUids.size()));
+                    send(exchange, 200, Map.of("success", true, "uid", uid));
+                }
+            }
+            default -> send(exchange, 404, Map.of("error", "Not Found", "path", exchange.getRequestURI().getPath()));
+        }
+    }
+
+    private void slots(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        int from = Math.max(1, Integer.parseInt(query.getOrDefault("from", "1")));
+        int to = Math.min(SENSOR_CAPACITY, Integer.parseInt(query.getOrDefault("to", String.valueOf(SENSOR_CAPACITY))));
+        List<Integer> occupied = from <= to ? new ArrayList<>(templates.subSet(from, true, to, true)) : List.of();
+        // El firmware hace un loadModel por slot (~10 ms cada uno en el AS608)
+        sleep((to - from + 1) * 10L);
+        send(exchange, 200, Map.of("capacity", SENSOR_CAPACITY, "from", from, "to", to, "occupied", occupied));
+    }
+
+    /**
+     * Como performEnroll(): dos capturas y se guarda en el slot pedido (?id=N) o en templateCount + 1
+     */
+    private void enroll(HttpExchange exchange) throws IOException {
+        String requested = parseQuery(exchange.getRequestURI()).get("id");
+        int id = requested != null ? Integer.parseInt(requested) : templates.size() + 1;
+        if (requested != null && (id < 1 || id > SENSOR_CAPACITY)) {
+            send(exchange, 400, Map.of("status", "error", "error", "Invalid slot"));
+            return;
+        }
+        if (requested != null && templates.contains(id)) {
+            send(exchange, 409, Map.of("status", "error", "error", "Slot occupied"));
+            return;
+        }
+        List<String> messages = new ArrayList<>(List.of("Waiting for valid finger to enroll"));
+        sleep(faults.sensorMs);
+        if (!chance(faults.matchRate)) {
+            messages.add("Imaging error");
+            send(exchange, 400, Map.of("status", "error", "error", "Enroll failed", "messages", messages));
+            return;
+        }
+        messages.addAll(List.of("Image taken", "Image converted", "Remove finger", "Place same finger again"));
+        sleep(faults.sensorMs);
+        messages.addAll(List.of("Image taken", "Image converted", "Creating model", "Prints matched!"));
+
+        if (id > SENSOR_CAPACITY) {
+            messages.add("Error writing to flash");
+            send(exchange, 400, Map.of("status", "error", "error", "Enroll failed", "messages", messages));
+            return;
+        }
+        messages.add("ID " + id);
+        messages.add("Stored!");
+        templates.add(id);
+        send(exchange, 200, Map.of("status", "success", "id", id, "messages", messages));
+    }
+
+    private void verify(HttpExchange exchange) throws IOException {
+        sleep(faults.sensorMs);
+        if (templates.isEmpty() || !chance(faults.matchRate)) {
+            send(exchange, 200, Map.of("found", false, "message", "No finger detected"));
+            return;
+        }
+        List<Integer> enrolled = new ArrayList<>(templates);
+        int id = enrolled.get(ThreadLocalRandom.current().nextInt(enrolled.size()));
+        int confidence = 50 + ThreadLocalRandom.current().nextInt(200);
+        send(exchange, 200, Map.of("found", true, "id", id, "confidence", confidence,
+                "message", String.format("Found ID #%d with confidence of %d", id, confidence)));
+    }
+
+    /**
+     * GET devuelve las fallas y contadores actuales; con parámetros (?failure-rate=0.5) las cambia
+     */
+    private void faults(HttpExchange exchange) throws IOException {
+        faults.apply(parseQuery(exchange.getRequestURI()));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("device", deviceId);
+        body.put("faults", faults.toString());
+        body.put("templates", templates.size());
+        Map<String, Long> counts = new LinkedHashMap<>();
+        requests.forEach((route, adder) -> counts.put(route, adder.sum()));
+        body.put("requests", counts);
+        send(exchange, 200, body);
+    }
+
+    /**
+     * Aplica latencia y, según las tasas configuradas, responde 500 o deja la petición colgada
+     *
+     * @return true si la petición ya fue respondida (o abandonada) por la falla
+     */
+    private boolean injectFault(HttpExchange exchange) throws IOException {
+        if (chance(faults.timeoutRate)) {
+            sleep(faults.hangMs);
+            exchange.close();
+            return true;
+        }
+        long jitter = faults.jitterMs > 0 ? ThreadLocalRandom.current().nextLong(faults.jitterMs + 1) : 0;
+        sleep(faults.latencyMs + jitter);
+        if (chance(faults.failureRate)) {
+            send(exchange, 500, Map.of("status", "error", "error", "Injected failure"));
+            return true;
+        }
+        return false;
+    }
+
+    private void count(String route) {
+        requests.computeIfAbsent(route, key -> new LongAdder()).increment();
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = JSON.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static boolean chance(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> params = new LinkedHashMap<>();
+        String query = uri.getQuery();
+        if (query == null || query.isBlank()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Fallas inyectadas; se leen en cada petición, así que pueden cambiarse en caliente
+     */
+    public static class Faults {
+        volatile long latencyMs = 30;
+        volatile long jitterMs = 20;
+        volatile long sensorMs = 800;
+        volatile double failureRate;
+        volatile double timeoutRate;
+        volatile long hangMs = 60000;
+        volatile double matchRate = 0.9;
+
+        void apply(Map<String, String> options) {
+            latencyMs = Long.parseLong(options.getOrDefault("latency-ms", String.valueOf(latencyMs)));
+            jitterMs = Long.parseLong(options.getOrDefault("jitter-ms", String.valueOf(jitterMs)));
+            sensorMs = Long.parseLong(options.getOrDefault("sensor-ms", String.valueOf(sensorMs)));
+            failureRate = Double.parseDouble(options.getOrDefault("failure-rate", String.valueOf(failureRate)));
+            timeoutRate = Double.parseDouble(options.getOrDefault("timeout-rate", String.valueOf(timeoutRate)));
+            hangMs = Long.parseLong(options.getOrDefault("hang-ms", String.valueOf(hangMs)));
+            matchRate = Double.parseDouble(options.getOrDefault("match-rate", String.valueOf(matchRate)));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("latency-ms=%d jitter-ms=%d sensor-ms=%d failure-rate=%.3f timeout-rate=%.3f "
+                            + "hang-ms=%d match-rate=%.2f",
+                    latencyMs, jitterMs, sensorMs, failureRate, timeoutRate, hangMs, matchRate);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.sensor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void quotedFieldsKeepSeparatorsEscapedQuotesAndLineBreaks() throws IOException {
+        CsvReader reader = reader("nombres,cargo\n\"Rojas, Ana\",\"Jefa de \"\"Calidad\"\"\"\n\"Luis\",\"Turno\nnoche\"\nMarta,\n");
+
+        assertThat(reader.readRecord()).containsExactly("nombres", "cargo");
+        assertThat(reader.readRecord()).containsExactly("Rojas, Ana", "Jefa de \"Calidad\"");
+        assertThat(reader.getRecordLine()).isEqualTo(2);
+        assertThat(reader.readRecord()).containsExactly("Luis", "Turno\nnoche");
+        assertThat(reader.getRecordLine()).isEqualTo(3);
+        // El salto de línea dentro de comillas cuenta para la línea del registro siguiente
+        assertThat(reader.readRecord()).containsExactly("Marta", "");
+        assertThat(reader.getRecordLine()).isEqualTo(5);
+        assertThat(reader.readRecord()).isNull();
+    }
+
+    @Test
+    void semicolonHeaderFromExcelSwitchesTheSeparator() throws IOException {
+        List<List<String>> records = readAll("nombres;apellidoPaterno;cargo\nAna;Rojas;Jefa, turno mañana\n");
+
+        assertThat(records).containsExactly(
+                List.of("nombres", "apellidoPaterno", "cargo"),
+                List.of("Ana", "Rojas", "Jefa, turno mañana"));
+    }
+
+    @Test
+    void skipsTheUtf8BomCrLfEndingsAndBlankLines() throws IOException {
+        CsvReader reader = reader("\uFEFFnombres,cargo\r\n\r\nAna,Operaria\r\n\r\n\r\nLuis,Chofer");
+
+        assertThat(reader.readRecord()).containsExactly("nombres", "cargo");
+        assertThat(reader.readRecord()).containsExactly("Ana", "Operaria");
+        assertThat(reader.getRecordLine()).isEqualTo(3);
+        assertThat(reader.readRecord()).containsExactly("Luis", "Chofer");
+        assertThat(reader.getRecordLine()).isEqualTo(6);
+        assertThat(reader.readRecord()).isNull();
+    }
+
+    @Test
+    void unclosedQuoteReportsTheLineWhereTheRecordStarts() throws IOException {
+        CsvReader reader = reader("nombres,cargo\nAna,Operaria\nLuis,\"Chofer\nMarta,Operaria\n");
+        reader.readRecord();
+        reader.readRecord();
+
+        assertThatThrownBy(reader::readRecord)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("línea 3");
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertThat(reader("").readRecord()).isNull();
+        assertThat(reader("\uFEFF\n\n").readRecord()).isNull();
+    }
+
+    private static CsvReader reader(String csv) throws IOException {
+        return new CsvReader(new BufferedReader(new StringReader(csv)));
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvReader reader = reader(csv);
+        List<List<String>> records = new ArrayList<>();
+        for (List<String> record = reader.readRecord(); record != null; record = reader.readRecord()) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.sensor.worktime;
+
+import com.example.sensor.config.WorkTimeConfig;
+import com.example.sensor.model.enums.AccessType;
+import com.example.sensor.model.enums.WorkSessionStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class WorkSessionEngineTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 11);
+
+    private final WorkSessionEngine engine = new WorkSessionEngine(new WorkTimeConfig());
+
+    @Test
+    void pairsByAlternationRegardlessOfCredentialType() {
+        // Tarjeta y huella alternan por separado: el tipo guardado no sirve para emparejar
+        List<WorkSession> sessions = process(
+                tap(1, at(8, 0), AccessType.ENTRADA),
+                tap(1, at(12, 0), AccessType.ENTRADA),
+                tap(1, at(13, 0), AccessType.SALIDA),
+                tap(1, at(17, 30), AccessType.SALIDA));
+
+        assertThat(sessions).extracting(WorkSession::getEntry, WorkSession::getExit, WorkSession::getStatus)
+                .containsExactly(
+                        tuple(at(8, 0), at(12, 0), WorkSessionStatus.COMPLETE),
+                        tuple(at(13, 0), at(17, 30), WorkSessionStatus.COMPLETE));
+        assertThat(sessions).extracting(WorkSession::getMinutes).containsExactly(240L, 270L);
+    }
+
+    @Test
+    void repeatedTapsWithinTheDuplicateWindowAreIgnored() {
+        List<WorkSession> sessions = process(
+                tap(1, at(8, 0), AccessType.ENTRADA),
+                tap(1, at(8, 0).plusSeconds(20), AccessType.SALIDA),
+                tap(1, at(17, 0), AccessType.SALIDA));
+
+        assertThat(sessions).singleElement()
+                .satisfies(session -> assertThat(session.getExit()).isEqualTo(at(17, 0)));
+    }
+
+    @Test
+    void tapAfterMaxSessionLeavesTheOpenOneWithoutExit() {
+        List<WorkSession> sessions = process(
+                tap(1, at(6, 0), AccessType.ENTRADA),
+                tap(1, at(23, 0), AccessType.ENTRADA),
+                tap(1, at(23, 0).plusHours(8), AccessType.SALIDA));
+
+        assertThat(sessions).extracting(WorkSession::getStatus, WorkSession::getMinutes)
+                .containsExactly(
+                        tuple(WorkSessionStatus.MISSING_EXIT, 0L),
+                        tuple(WorkSessionStatus.COMPLETE, 480L));
+    }
+
+    @Test
+    void nightShiftBelongsToTheEntryDayAndUsersArePairedSeparately() {
+        List<WorkSession> sessions = process(
+                tap(1, at(22, 0), AccessType.ENTRADA),
+                tap(1, at(22, 0).plusHours(8), AccessType.SALIDA),
+                tap(2, at(9, 0), AccessType.ENTRADA));
+
+        assertThat(sessions).extracting(WorkSession::getUserId, WorkSession::getDay, WorkSession::getStatus)
+                .containsExactly(
+                        tuple(1, DAY, WorkSessionStatus.COMPLETE),
+                        tuple(2, DAY, WorkSessionStatus.MISSING_EXIT));
+    }
+
+    @Test
+    void readAheadBeforeTheRangeOnlyPairsExitsThatCrossIntoIt() {
+        LocalDateTime from = DAY.atStartOfDay();
+        List<WorkSession> sessions = new ArrayList<>();
+        engine.process(List.of(
+                        // Salida suelta antes del rango: no abre jornada
+                        tap(1, from.minusHours(6), AccessType.SALIDA),
+                        // Turno nocturno del día anterior: su salida cae en el rango pero no se emite
+                        tap(1, from.minusHours(3), AccessType.ENTRADA),
+                        tap(1, from.plusHours(5), AccessType.SALIDA),
+                        tap(1, from.plusHours(9), AccessType.ENTRADA),
+                        tap(1, from.plusHours(17), AccessType.SALIDA)).iterator(),
+                from, from.plusDays(1), sessions::add);
+
+        assertThat(sessions).extracting(WorkSession::getEntry, WorkSession::getExit)
+                .containsExactly(tuple(from.plusHours(9), from.plusHours(17)));
+    }
+
+    @Test
+    void recentUnclosedEntryStaysOpen() {
+        LocalDateTime entry = LocalDateTime.now().minusHours(2);
+        List<WorkSession> sessions = new ArrayList<>();
+        engine.process(List.of(tap(1, entry, AccessType.ENTRADA)).iterator(),
+                entry.minusDays(1), entry.plusDays(1), sessions::add);
+
+        assertThat(sessions).singleElement()
+                .satisfies(session -> assertThat(session.getStatus()).isEqualTo(WorkSessionStatus.OPEN));
+    }
+
+    private List<WorkSession> process(WorkTap... taps) {
+        List<WorkSession> sessions = new ArrayList<>();
+        engine.process(List.of(taps).iterator(), DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(), sessions::add);
+        return sessions;
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.atTime(hour, minute);
+    }
+
+    private static WorkTap tap(int userId, LocalDateTime time, AccessType type) {
+        return new WorkTap(userId, "Usuario", String.valueOf(userId), time, type, "Puerta A");
+    }
+}